@@ -0,0 +1,68 @@
+package com.slimpay.hapiclient.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * The JMH command line with the allocation profiler (<code>-prof gc</code>)
+ * always enabled, so that the memory allocated per operation is reported
+ * along with the time: most regressions on the parsing paths are
+ * allocation regressions first.
+ * <p>
+ * The arguments are those of JMH, e.g. <code>-l</code> to list the
+ * benchmarks or a regular expression to run some of them only.
+ */
+public final class BenchmarkMain {
+
+	private BenchmarkMain() { }
+
+	public static void main(String[] args) throws IOException {
+		CommandLineOptions commandLineOptions;
+		try {
+			commandLineOptions = new CommandLineOptions(args);
+		} catch (CommandLineOptionException e) {
+			System.err.println("Error parsing command line:");
+			System.err.println(" " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+
+		if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList() ||
+			commandLineOptions.shouldListWithParams() || commandLineOptions.shouldListProfilers() ||
+			commandLineOptions.shouldListResultFormats()) {
+			Main.main(args);
+			return;
+		}
+
+		Options options = commandLineOptions;
+		if (!hasGcProfiler(commandLineOptions))
+			options = new OptionsBuilder()
+				.parent(commandLineOptions)
+				.addProfiler(GCProfiler.class)
+				.build();
+
+		try {
+			new Runner(options).run();
+		} catch (RunnerException e) {
+			System.err.println("ERROR: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	private static boolean hasGcProfiler(CommandLineOptions options) {
+		for (ProfilerConfig profiler : options.getProfilers())
+			if ("gc".equals(profiler.getKlass()) || GCProfiler.class.getName().equals(profiler.getKlass()))
+				return true;
+
+		return false;
+	}
+}
@@ -0,0 +1,80 @@
+package com.slimpay.hapiclient.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.JsonObjectBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.slimpay.hapiclient.exception.RelNotFoundException;
+import com.slimpay.hapiclient.hal.CustomRel;
+import com.slimpay.hapiclient.hal.Rel;
+import com.slimpay.hapiclient.hal.Resource;
+
+/**
+ * Cost of looking up a Resource that is not embedded, which is what
+ * <code>HapiClient.send(Follow, Resource)</code> does before following
+ * a link in the common case:
+ * <ul>
+ * <li><strong>getEmbeddedResource</strong>: catching the RelNotFoundException
+ * (stack trace and message listing the <code>rels</code> available rels),</li>
+ * <li><strong>findEmbeddedResource</strong>: the non-throwing lookup.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddedLookupBenchmark {
+
+	@Param({ "1", "20" })
+	public int rels;
+
+	private Resource resource;
+	private Rel missingRel;
+
+	@Setup
+	public void setUp() {
+		JsonObjectBuilder links = Json.createObjectBuilder();
+		JsonObjectBuilder embedded = Json.createObjectBuilder();
+		for (int i = 0; i < rels; i++) {
+			links.add(LocalHalServer.REL_NS + "link-" + i, Json.createObjectBuilder()
+				.add("href", "https://api.slimpay.net/links/" + i));
+			embedded.add(LocalHalServer.REL_NS + "embedded-" + i, Json.createObjectBuilder()
+				.add("id", i));
+		}
+
+		resource = Resource.fromJson(Json.createObjectBuilder()
+			.add("_links", links)
+			.add("_embedded", embedded)
+			.build());
+		missingRel = new CustomRel(LocalHalServer.REL_NS + "link-0");
+	}
+
+	@Benchmark
+	public Resource getEmbeddedResource() {
+		try {
+			return resource.getEmbeddedResource(missingRel);
+		} catch (RelNotFoundException ignored) {
+			return null;
+		}
+	}
+
+	@Benchmark
+	public Resource findEmbeddedResource() {
+		return resource.findEmbeddedResource(missingRel);
+	}
+}
@@ -0,0 +1,74 @@
+package com.slimpay.hapiclient.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.slimpay.hapiclient.hal.RegisteredRel;
+import com.slimpay.hapiclient.hal.Resource;
+
+/**
+ * Parsing a page of <code>items</code> mandates (see {@link HalFixtures#mandateCollection(int)}):
+ * every relation name of every embedded mandate is looked up with
+ * {@link RegisteredRel#getByName(String)} (see <code>hal.LinkBenchmark</code>).
+ * <p>
+ * <strong>parseCollectionStream</strong> parses the page from its bytes,
+ * like a response body is. Run with <code>-prof gc</code> to compare
+ * the memory allocated per page.
+ * <p>
+ * <strong>nextLink*</strong> only read the <code>next</code> link of the page,
+ * from an eager and from a {@link Resource#fromJsonLazily(java.io.Reader) lazy} Resource.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HalCollectionBenchmark {
+
+	@Param({ "100", "500" })
+	public int items;
+
+	private String json;
+	private byte[] bytes;
+
+	@Setup
+	public void setUp() {
+		json = HalFixtures.mandateCollection(items);
+		bytes = json.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public Resource parseCollection() {
+		return Resource.fromJson(json);
+	}
+
+	@Benchmark
+	public Resource parseCollectionStream() {
+		return Resource.fromJson(new ByteArrayInputStream(bytes));
+	}
+
+	@Benchmark
+	public String nextLinkEager() {
+		return Resource.fromJson(new StringReader(json)).getLink(RegisteredRel.NEXT).getHref();
+	}
+
+	@Benchmark
+	public String nextLinkLazy() {
+		return Resource.fromJsonLazily(new StringReader(json)).getLink(RegisteredRel.NEXT).getHref();
+	}
+}
@@ -0,0 +1,70 @@
+package com.slimpay.hapiclient.benchmarks;
+
+/**
+ * HAL representations shaped like the ones of the SlimPay API,
+ * generated so that their size can be a benchmark parameter.
+ * Public for the benchmarks of the package-private code
+ * (in the packages of the client).
+ */
+public final class HalFixtures {
+	public static final String REL_NS = LocalHalServer.REL_NS;
+
+	private static final String[] MANDATE_RELS = {
+		"get-creditor", "get-subscriber", "get-document", "get-bank-account",
+		"get-orders", "revoke-mandate", "update-mandate-bank-account", "get-mandate-history"
+	};
+
+	private HalFixtures() { }
+
+	/**
+	 * A page of mandates: <code>self</code>, <code>first</code>,
+	 * <code>next</code> and <code>last</code> links and the
+	 * given number of embedded mandates, each with 10 links.
+	 * @param items	The number of embedded mandates.
+	 * @return	The JSON representation of the page.
+	 */
+	public static String mandateCollection(int items) {
+		StringBuilder json = new StringBuilder(items * 1200 + 512)
+			.append("{\"_links\":{")
+			.append("\"self\":{\"href\":\"/mandates?page=1\"},")
+			.append("\"first\":{\"href\":\"/mandates?page=0\"},")
+			.append("\"next\":{\"href\":\"/mandates?page=2\"},")
+			.append("\"last\":{\"href\":\"/mandates?page=9\"},")
+			.append("\"profile\":{\"href\":\"https://api.slimpay.net/alps/v1/mandates\"}")
+			.append("},\"_embedded\":{\"").append(REL_NS).append("mandates\":[");
+
+		for (int i = 0; i < items; i++) {
+			if (i > 0)
+				json.append(',');
+			mandate(json, i);
+		}
+
+		return json.append("]},\"page\":{\"size\":").append(items)
+			.append(",\"totalElements\":").append(items * 10)
+			.append(",\"totalPages\":10,\"number\":1}}").toString();
+	}
+
+	/**
+	 * @param id	The mandate identifier.
+	 * @return	The JSON representation of a single mandate.
+	 */
+	public static String mandate(int id) {
+		return mandate(new StringBuilder(1200), id).toString();
+	}
+
+	private static StringBuilder mandate(StringBuilder json, int id) {
+		json.append("{\"_links\":{")
+			.append("\"self\":{\"href\":\"/mandates/").append(id).append("\"},")
+			.append("\"profile\":{\"href\":\"https://api.slimpay.net/alps/v1/mandates\"}");
+		for (String rel : MANDATE_RELS)
+			json.append(",\"").append(REL_NS).append(rel)
+				.append("\":{\"href\":\"/mandates/").append(id).append('/').append(rel).append("\"}");
+
+		return json.append("},\"id\":\"").append(id)
+			.append("\",\"reference\":\"SLMP").append(1000000 + id)
+			.append("\",\"rum\":\"SLMP").append(1000000 + id)
+			.append("\",\"standard\":\"SEPA\",\"state\":\"active\",\"paymentScheme\":\"SEPA.DIRECT_DEBIT.CORE\"")
+			.append(",\"dateCreated\":\"2017-03-14T10:21:07.000+0000\",\"dateSigned\":\"2017-03-14T10:22:41.000+0000\"")
+			.append(",\"amount\":").append(id % 100).append(".50}");
+	}
+}
@@ -0,0 +1,106 @@
+package com.slimpay.hapiclient.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.spi.JsonProvider;
+
+import org.apache.http.HttpEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.JsonBody;
+import com.slimpay.hapiclient.json.JacksonJsonProvider;
+import com.slimpay.hapiclient.json.JsonProviders;
+
+/**
+ * Parsing a response (a page of <code>items</code> mandates or a single
+ * mandate, from its bytes) and serializing a request body with each
+ * <code>provider</code>:
+ * <ul>
+ * <li><strong>javax</strong>: the default javax.json reference implementation,</li>
+ * <li><strong>jackson</strong>: the {@link JacksonJsonProvider}.</li>
+ * </ul>
+ * Run with <code>-prof gc</code> to compare the memory allocated per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonProviderBenchmark {
+
+	@Param({ "javax", "jackson" })
+	public String provider;
+
+	@Param({ "1", "100" })
+	public int items;
+
+	private byte[] collection;
+	private byte[] mandate;
+	private JsonBody body;
+
+	@Setup
+	public void setUp() {
+		JsonProviders.setProvider("jackson".equals(provider) ?
+				new JacksonJsonProvider() : JsonProvider.provider());
+
+		collection = HalFixtures.mandateCollection(items).getBytes(StandardCharsets.UTF_8);
+		mandate = HalFixtures.mandate(items).getBytes(StandardCharsets.UTF_8);
+		JsonObject order = Json.createObjectBuilder()
+			.add("started", true)
+			.add("creditor", Json.createObjectBuilder().add("reference", "democreditor"))
+			.add("subscriber", Json.createObjectBuilder().add("reference", "subscriber" + items))
+			.add("items", Json.createArrayBuilder()
+				.add(Json.createObjectBuilder()
+					.add("type", "signMandate")
+					.add("mandate", Json.createObjectBuilder()
+						.add("standard", "SEPA")
+						.add("signatory", Json.createObjectBuilder()
+							.add("givenName", "John")
+							.add("familyName", "Doe")
+							.add("email", "john.doe@example.com")
+							.add("billingAddress", Json.createObjectBuilder()
+								.add("street1", "27 rue des fleurs")
+								.add("postalCode", "75008")
+								.add("city", "Paris")
+								.add("country", "FR"))))))
+			.build();
+		body = new JsonBody(order);
+	}
+
+	@TearDown
+	public void tearDown() {
+		JsonProviders.setProvider(null);
+	}
+
+	@Benchmark
+	public Resource parseCollection() {
+		return Resource.fromJson(new ByteArrayInputStream(collection));
+	}
+
+	@Benchmark
+	public Resource parseMandate() {
+		return Resource.fromJson(new ByteArrayInputStream(mandate));
+	}
+
+	@Benchmark
+	public HttpEntity serializeBody() {
+		return body.getHttpEntity();
+	}
+}
@@ -0,0 +1,93 @@
+package com.slimpay.hapiclient.benchmarks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A HAL server listening on localhost so that the benchmarks
+ * never depend on the network.
+ * <p>
+ * It serves an entry point linking to a templated
+ * <code>get-creditors</code> relation and the creditor itself.
+ * Responses are delayed by the given latency without holding
+ * a server thread, so the server is never the bottleneck.
+ */
+final class LocalHalServer implements Closeable {
+	static final String REL_NS = "https://api.slimpay.net/alps#";
+	
+	private static final byte[] ENTRY_POINT = ("{\"_links\":{"
+		+ "\"self\":{\"href\":\"/\"},"
+		+ "\"" + REL_NS + "get-creditors\":{\"href\":\"/creditors{?reference}\",\"templated\":true}"
+		+ "}}").getBytes(StandardCharsets.UTF_8);
+	
+	private static final byte[] CREDITOR = ("{\"_links\":{"
+		+ "\"self\":{\"href\":\"/creditors/democreditor\"},"
+		+ "\"" + REL_NS + "get-mandates\":{\"href\":\"/creditors/democreditor/mandates{?rum}\",\"templated\":true}"
+		+ "},\"reference\":\"democreditor\",\"name\":\"The Demo Creditor\"}").getBytes(StandardCharsets.UTF_8);
+	
+	static {
+		// By default the JDK server closes the idle connections beyond 200,
+		// which would break the connections kept alive by the client pools.
+		System.setProperty("sun.net.httpserver.maxIdleConnections", "100000");
+		// The headers and the body are written separately: without TCP_NODELAY,
+		// each response would wait for the delayed ACK of the client (about 40 ms).
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+	
+	private final HttpServer server;
+	private final ExecutorService handlers;
+	private final ScheduledExecutorService delayer;
+	private final long latencyMillis;
+	
+	/**
+	 * @param latencyMillis	The delay before each response is sent.
+	 * @param backlog		The maximum number of pending connections.
+	 * @throws IOException if the server could not be started.
+	 */
+	LocalHalServer(long latencyMillis, int backlog) throws IOException {
+		this.latencyMillis = latencyMillis;
+		this.handlers = Executors.newFixedThreadPool(4);
+		this.delayer = Executors.newScheduledThreadPool(4);
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), backlog);
+		this.server.setExecutor(handlers);
+		this.server.createContext("/", exchange -> {
+			String path = exchange.getRequestURI().getPath();
+			final byte[] body = "/".equals(path) ? ENTRY_POINT : CREDITOR;
+			delayer.schedule(() -> respond(exchange, body), this.latencyMillis, TimeUnit.MILLISECONDS);
+		});
+		this.server.start();
+	}
+	
+	/**
+	 * @return	The URL of the server (to use as the API URL).
+	 */
+	String getUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+	
+	private static void respond(HttpExchange exchange, byte[] body) {
+		try {
+			exchange.getResponseHeaders().set("Content-Type", "application/hal+json");
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+		} catch (IOException ignored) {
+		} finally {
+			exchange.close();
+		}
+	}
+	
+	public void close() {
+		server.stop(0);
+		delayer.shutdownNow();
+		handlers.shutdownNow();
+	}
+}
@@ -0,0 +1,121 @@
+package com.slimpay.hapiclient.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.slimpay.hapiclient.hal.CustomRel;
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.Follow;
+import com.slimpay.hapiclient.http.HapiClient;
+
+/**
+ * Time taken by <code>concurrency</code> simultaneous
+ * <code>sendAsync(Follow)</code> calls against a local server
+ * answering after <code>latencyMillis</code>, depending on
+ * how the requests are executed:
+ * <ul>
+ * <li><strong>platform</strong>: blocking requests on a pool of 200 platform threads,</li>
+ * <li><strong>virtual</strong>: blocking requests on virtual threads (Java 21 or higher),</li>
+ * <li><strong>nio</strong>: the non-blocking client.</li>
+ * </ul>
+ * With the platform threads, the time grows with
+ * <code>concurrency / 200 * latencyMillis</code>
+ * while it stays close to <code>latencyMillis</code> in the two other modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SendConcurrencyBenchmark {
+	private static final int PLATFORM_THREADS = 200;
+	
+	@Param({ "platform", "virtual", "nio" })
+	public String mode;
+	
+	@Param({ "1000", "10000" })
+	public int concurrency;
+	
+	@Param({ "20" })
+	public long latencyMillis;
+	
+	private LocalHalServer server;
+	private ExecutorService platformThreads;
+	private HapiClient hapiClient;
+	private Follow follow;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		server = new LocalHalServer(latencyMillis, concurrency);
+		
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(concurrency);
+		connectionManager.setDefaultMaxPerRoute(concurrency);
+		
+		HapiClient.Builder builder = new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setConnectionManager(connectionManager)
+			.setAsyncClientBuilder(HttpAsyncClients.custom()
+				.setMaxConnTotal(concurrency)
+				.setMaxConnPerRoute(concurrency));
+		
+		if ("platform".equals(mode)) {
+			platformThreads = Executors.newFixedThreadPool(PLATFORM_THREADS);
+			builder.setExecutor(platformThreads);
+		} else if ("virtual".equals(mode)) {
+			builder.setAsyncVirtualThreads(true);
+		}
+		
+		hapiClient = builder.build();
+		follow = new Follow.Builder(new CustomRel(LocalHalServer.REL_NS + "get-creditors"))
+			.setUrlVariable("reference", "democreditor")
+			.build();
+		
+		// Cache the entry point
+		hapiClient.getEntryPointResource();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		hapiClient.close();
+		if (platformThreads != null)
+			platformThreads.shutdownNow();
+		server.close();
+	}
+	
+	@Benchmark
+	public int sendConcurrently() {
+		List<CompletableFuture<Resource>> futures = new ArrayList<CompletableFuture<Resource>>(concurrency);
+		for (int i = 0; i < concurrency; i++)
+			futures.add(hapiClient.sendAsync(follow));
+		
+		int received = 0;
+		for (CompletableFuture<Resource> future : futures)
+			if (future.join() != null)
+				received++;
+		
+		return received;
+	}
+}
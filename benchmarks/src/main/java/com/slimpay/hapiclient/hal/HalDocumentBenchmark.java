@@ -0,0 +1,77 @@
+package com.slimpay.hapiclient.hal;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.slimpay.hapiclient.benchmarks.HalFixtures;
+
+/**
+ * Building a Resource from a HAL <code>document</code>:
+ * <ul>
+ * <li><strong>small</strong>: a single mandate (about 1 KB),</li>
+ * <li><strong>medium</strong>: a page of 20 mandates (about 25 KB),</li>
+ * <li><strong>large</strong>: a page of 500 mandates (about 600 KB).</li>
+ * </ul>
+ * From a String, from the bytes of a response and
+ * from a JsonObject already parsed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HalDocumentBenchmark {
+
+	@Param({ "small", "medium", "large" })
+	public String document;
+
+	private String json;
+	private byte[] bytes;
+	private JsonObject jsonObject;
+
+	@Setup
+	public void setUp() {
+		if ("small".equals(document))
+			json = HalFixtures.mandate(1);
+		else if ("medium".equals(document))
+			json = HalFixtures.mandateCollection(20);
+		else
+			json = HalFixtures.mandateCollection(500);
+
+		bytes = json.getBytes(StandardCharsets.UTF_8);
+		jsonObject = Json.createReader(new StringReader(json)).readObject();
+	}
+
+	@Benchmark
+	public Resource fromJsonString() {
+		return Resource.fromJson(json);
+	}
+
+	@Benchmark
+	public Resource fromJsonStream() {
+		return Resource.fromJson(new ByteArrayInputStream(bytes));
+	}
+
+	@Benchmark
+	public Resource fromJsonObject() {
+		return Resource.fromJson(jsonObject);
+	}
+}
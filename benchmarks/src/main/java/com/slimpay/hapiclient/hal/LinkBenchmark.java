@@ -0,0 +1,100 @@
+package com.slimpay.hapiclient.hal;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.slimpay.hapiclient.benchmarks.HalFixtures;
+
+/**
+ * The operations done for each link of each Resource:
+ * <ul>
+ * <li><strong>linkFromJson</strong>: {@link Link#fromJson(JsonObject)} on a templated link,</li>
+ * <li><strong>getByName*</strong>: {@link RegisteredRel#getByName(String)} on a registered
+ * and an extension relation name, and the former linear scan over
+ * <code>RegisteredRel.values()</code> as a baseline,</li>
+ * <li><strong>customRel*</strong>: {@link CustomRel#hashCode()} and
+ * {@link CustomRel#equals(Object)} (case-insensitive), as used by the
+ * maps of links and embedded resources.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinkBenchmark {
+
+	public String registeredName = "next";
+	public String extensionName = HalFixtures.REL_NS + "get-creditor";
+
+	private JsonObject link;
+	private CustomRel customRel;
+	private CustomRel sameCustomRel;
+	private CustomRel upperCaseCustomRel;
+
+	@Setup
+	public void setUp() {
+		link = Json.createObjectBuilder()
+			.add("href", "https://api.slimpay.net/mandates{?creditorReference,reference}")
+			.add("templated", true)
+			.add("title", "Search mandates")
+			.add("profile", "https://api.slimpay.net/alps/v1/mandates")
+			.build();
+		customRel = new CustomRel(extensionName);
+		sameCustomRel = new CustomRel(extensionName);
+		upperCaseCustomRel = new CustomRel(extensionName.toUpperCase());
+	}
+
+	@Benchmark
+	public Link linkFromJson() {
+		return Link.fromJson(link);
+	}
+
+	@Benchmark
+	public RegisteredRel getByNameRegistered() {
+		return RegisteredRel.getByName(registeredName);
+	}
+
+	@Benchmark
+	public RegisteredRel getByNameExtension() {
+		return RegisteredRel.getByName(extensionName);
+	}
+
+	@Benchmark
+	public RegisteredRel linearScanExtension() {
+		for (RegisteredRel rel : RegisteredRel.values())
+			if (rel.getName().equals(extensionName))
+				return rel;
+
+		return null;
+	}
+
+	@Benchmark
+	public int customRelHashCode() {
+		return customRel.hashCode();
+	}
+
+	@Benchmark
+	public boolean customRelEquals() {
+		return customRel.equals(sameCustomRel);
+	}
+
+	@Benchmark
+	public boolean customRelEqualsIgnoringCase() {
+		return customRel.equals(upperCaseCustomRel);
+	}
+}
@@ -0,0 +1,123 @@
+package com.slimpay.hapiclient.http;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.message.BasicHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.slimpay.hapiclient.benchmarks.HalFixtures;
+import com.slimpay.hapiclient.hal.CustomRel;
+import com.slimpay.hapiclient.hal.Resource;
+
+/**
+ * Preparing a request, without sending it:
+ * <ul>
+ * <li><strong>createHttpRequest*</strong>: {@link HapiClient#createHttpRequest(Request)}
+ * for a plain relative URL, a URI template with variables and a POST with a body,</li>
+ * <li><strong>buildRequest</strong>: a Request built with variables and headers,</li>
+ * <li><strong>copyFollow</strong>: the copy of a Follow into the Request
+ * sent for it ({@link HapiClient#toRequest(Follow, Resource)}),</li>
+ * <li><strong>jsonBody</strong>: {@link JsonBody#getHttpEntity()}.</li>
+ * </ul>
+ * No request is sent: the client is only used to build them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBenchmark {
+
+	private HapiClient hapiClient;
+	private Request plainRequest;
+	private Request templatedRequest;
+	private Request postRequest;
+	private Follow follow;
+	private Resource resource;
+	private JsonBody jsonBody;
+
+	@Setup
+	public void setUp() {
+		hapiClient = new HapiClient.Builder()
+			.setApiUrl("https://api.slimpay.net")
+			.build();
+
+		jsonBody = new JsonBody(Json.createObjectBuilder()
+			.add("started", true)
+			.add("creditor", Json.createObjectBuilder().add("reference", "democreditor"))
+			.add("subscriber", Json.createObjectBuilder().add("reference", "subscriber01")));
+
+		plainRequest = new Request.Builder("/mandates/1").build();
+		templatedRequest = new Request.Builder("/mandates{?creditorReference,reference}")
+			.setUrlVariable("creditorReference", "democreditor")
+			.setUrlVariable("reference", "SLMP1000001")
+			.build();
+		postRequest = new Request.Builder("/orders")
+			.setMethod(Method.POST)
+			.setMessageBody(jsonBody)
+			.build();
+
+		resource = Resource.fromJson("{\"_links\":{\"" + HalFixtures.REL_NS + "search-mandates\":"
+			+ "{\"href\":\"https://api.slimpay.net/mandates{?creditorReference,reference}\",\"templated\":true}}}");
+		follow = new Follow.Builder(new CustomRel(HalFixtures.REL_NS + "search-mandates"))
+			.setUrlVariable("creditorReference", "democreditor")
+			.setUrlVariable("reference", "SLMP1000001")
+			.addHeader(new BasicHeader("X-Request-Id", "benchmark"))
+			.build();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		hapiClient.close();
+	}
+
+	@Benchmark
+	public HttpRequestBase createHttpRequestPlain() {
+		return hapiClient.createHttpRequest(plainRequest);
+	}
+
+	@Benchmark
+	public HttpRequestBase createHttpRequestTemplated() {
+		return hapiClient.createHttpRequest(templatedRequest);
+	}
+
+	@Benchmark
+	public HttpRequestBase createHttpRequestPost() {
+		return hapiClient.createHttpRequest(postRequest);
+	}
+
+	@Benchmark
+	public Request buildRequest() {
+		return new Request.Builder("/mandates{?creditorReference,reference}")
+			.setUrlVariable("creditorReference", "democreditor")
+			.setUrlVariable("reference", "SLMP1000001")
+			.addHeader(new BasicHeader("X-Request-Id", "benchmark"))
+			.build();
+	}
+
+	@Benchmark
+	public Request copyFollow() {
+		return HapiClient.toRequest(follow, resource);
+	}
+
+	@Benchmark
+	public HttpEntity jsonBody() {
+		return jsonBody.getHttpEntity();
+	}
+}
@@ -2,6 +2,8 @@ package com.slimpay.hapiclient.hal;
 
 import java.net.URI;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * The Extension Relation Type described in:
@@ -9,13 +11,25 @@ import java.util.Locale;
  * <li>section 8.2 of the HAL specification (as custom link relation types)</li>
  * <li>section 4 of the RFC5988 - Web Linking document</li>
  * </ul>
+ * <p>
+ * The lower case name the relations are compared with and its hash are
+ * computed once: using a CustomRel as a key allocates nothing. The relations
+ * of the parsed Resources are moreover shared (see {@link #valueOf(String)}).
  * @see <a href="https://tools.ietf.org/html/draft-kelly-json-hal-07#section-8.2">The HAL Specification Section 8.2</a>
  * @see <a href="https://tools.ietf.org/html/rfc5988#section-4">RFC 5988 Section 4</a>
  */
 public final class CustomRel implements Rel {
 	private static final long serialVersionUID = 1L;
 	
+	/**
+	 * The maximum number of relations interned by {@link #valueOf(String)}.
+	 */
+	static final int MAXIMUM_INTERNED = 4096;
+	private static final ConcurrentMap<String, CustomRel> INTERNED = new ConcurrentHashMap<String, CustomRel>();
+	
 	private final String name;
+	private final transient String key;
+	private final transient int hash;
 	
 	/**
 	 * An Extension Relation Type.
@@ -28,6 +42,8 @@ public final class CustomRel implements Rel {
 			throw new IllegalArgumentException("The uri is mandatory and can't be empty");
 			
 		this.name = name;
+		this.key = name.toLowerCase(Locale.ENGLISH);
+		this.hash = 31 + key.hashCode();
 	}
 	
 	/**
@@ -41,6 +57,8 @@ public final class CustomRel implements Rel {
 			throw new IllegalArgumentException("The name is mandatory and can't be empty.");
 		
 		this.name = name.trim();
+		this.key = this.name.toLowerCase(Locale.ENGLISH);
+		this.hash = 31 + key.hashCode();
 	}
 	
 	/**
@@ -63,6 +81,35 @@ public final class CustomRel implements Rel {
 			throw new IllegalArgumentException("The reference is mandatory and can't be empty.");
 		
 		this.name = prefix.trim() + ":" + reference.trim();
+		this.key = this.name.toLowerCase(Locale.ENGLISH);
+		this.hash = 31 + key.hashCode();
+	}
+	
+	/**
+	 * An Extension Relation Type shared by all the callers
+	 * using the same name, like the ones of the parsed Resources:
+	 * a relation name met again and again in the representations
+	 * makes a single CustomRel.
+	 * <p>
+	 * Up to {@value #MAXIMUM_INTERNED} relations are kept; beyond,
+	 * a new CustomRel is returned for the names not kept yet.
+	 * @param name The Relation Name
+	 * @return The CustomRel.
+	 * @see #CustomRel(String)
+	 */
+	public static CustomRel valueOf(String name) {
+		CustomRel rel = INTERNED.get(name);
+		if (rel != null)
+			return rel;
+		
+		rel = new CustomRel(name);
+		if (INTERNED.size() < MAXIMUM_INTERNED) {
+			CustomRel interned = INTERNED.putIfAbsent(name, rel);
+			if (interned != null)
+				return interned;
+		}
+		
+		return rel;
 	}
 	
 	public String getName() {
@@ -71,10 +118,7 @@ public final class CustomRel implements Rel {
 	
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + name.toLowerCase(Locale.ENGLISH).hashCode();
-		return result;
+		return hash;
 	}
 
 	/**
@@ -90,7 +134,16 @@ public final class CustomRel implements Rel {
 		if (obj == null || getClass() != obj.getClass())
 			return false;
 		
-		return name.toLowerCase(Locale.ENGLISH).equals(((CustomRel) obj).name.toLowerCase(Locale.ENGLISH));
+		CustomRel other = (CustomRel) obj;
+		return hash == other.hash && key.equals(other.key);
+	}
+
+	/**
+	 * The lower case name and its hash are not serialized.
+	 * @return	The CustomRel with the same name.
+	 */
+	private Object readResolve() {
+		return valueOf(name);
 	}
 
 	@Override
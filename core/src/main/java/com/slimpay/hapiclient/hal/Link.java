@@ -1,6 +1,9 @@
 package com.slimpay.hapiclient.hal;
 
 import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+
+import com.slimpay.hapiclient.json.JsonProviders;
 
 
 /**
@@ -165,6 +168,30 @@ public final class Link {
 		return new Link(href, templated, type, deprecation, name, profile, title, hreflang);
 	}
 
+	/**
+	 * The JSON representation of the Link, the inverse of {@link #fromJson(JsonObject)}.
+	 * @return	JsonObject
+	 */
+	JsonObject toJson() {
+		JsonObjectBuilder json = JsonProviders.getProvider().createObjectBuilder().add("href", href);
+		if (templated != null)
+			json.add("templated", templated.booleanValue());
+		if (type != null)
+			json.add("type", type);
+		if (deprecation != null)
+			json.add("deprecation", deprecation);
+		if (name != null)
+			json.add("name", name);
+		if (profile != null)
+			json.add("profile", profile);
+		if (title != null)
+			json.add("title", title);
+		if (hreflang != null)
+			json.add("hreflang", hreflang);
+		
+		return json.build();
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -1,5 +1,9 @@
 package com.slimpay.hapiclient.hal;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * The link relation types registered by the IANA Registry.
  * <p>
@@ -839,10 +843,19 @@ public enum RegisteredRel implements Rel {
 	 * @return	The RegisteredRel or null if not found.
 	 */
 	public static RegisteredRel getByName(String name) {
+		return BY_NAME.get(name);
+	}
+	
+	/**
+	 * The registered relation types indexed by their name,
+	 * since every relation name of every parsed Resource is looked up.
+	 */
+	private static final Map<String, RegisteredRel> BY_NAME;
+	static {
+		Map<String, RegisteredRel> byName = new HashMap<String, RegisteredRel>();
 		for (RegisteredRel rel : RegisteredRel.values())
-			if (rel.name.equals(name))
-				return rel;
+			byName.put(rel.name, rel);
 		
-		return null;
+		BY_NAME = Collections.unmodifiableMap(byName);
 	}
 }
@@ -1,5 +1,11 @@
 package com.slimpay.hapiclient.hal;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.PushbackInputStream;
+import java.io.PushbackReader;
+import java.io.Reader;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.util.ArrayList;
@@ -8,18 +14,23 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.json.Json;
 import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
 import javax.json.JsonException;
 import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
 import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.JsonValue.ValueType;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonParser;
 
 import com.slimpay.hapiclient.exception.EmbeddedResourceNotUniqueException;
 import com.slimpay.hapiclient.exception.EmbeddedResourceUniqueException;
 import com.slimpay.hapiclient.exception.LinkNotUniqueException;
 import com.slimpay.hapiclient.exception.LinkUniqueException;
 import com.slimpay.hapiclient.exception.RelNotFoundException;
+import com.slimpay.hapiclient.json.JsonProviders;
 
 /**
  * The Resource Object described in the
@@ -29,14 +40,72 @@ import com.slimpay.hapiclient.exception.RelNotFoundException;
 public final class Resource implements Serializable {
 	private static final long serialVersionUID = 1L;
 	
-	private final JsonObject state;
-	private final Map<Rel, Object> links;
-	private final Map<Rel, Object> embeddedResources;
+	private volatile JsonObject state;
+	private volatile Map<Rel, Object> links;
+	private volatile Map<Rel, Object> embeddedResources;
+	
+	/**
+	 * The JSON representation of a lazy Resource
+	 * from which the state, the links and the embedded
+	 * resources are extracted when first needed.
+	 */
+	private final transient JsonObject json;
 	
 	private Resource(JsonObject state, Map<Rel, Object> links, Map<Rel, Object> embeddedResources) {
-		this.state = state != null ? state : Json.createObjectBuilder().build();
+		this.state = state != null ? state : JsonProviders.getProvider().createObjectBuilder().build();
 		this.links = Collections.unmodifiableMap(links != null ? links : new HashMap<Rel, Object>());
 		this.embeddedResources = Collections.unmodifiableMap(embeddedResources != null ? embeddedResources : new HashMap<Rel, Object>());
+		this.json = null;
+	}
+	
+	/**
+	 * @see Resource#fromJsonLazily(JsonObject)
+	 */
+	private Resource(JsonObject json) {
+		this.json = json;
+	}
+	
+	/*
+	 * The state, the links and the embedded resources of a lazy Resource
+	 * are extracted on first access. Two threads may extract them at the
+	 * same time but both get equal immutable values.
+	 */
+	
+	private JsonObject state() {
+		JsonObject state = this.state;
+		if (state == null)
+			this.state = state = extractState(json);
+		
+		return state;
+	}
+	
+	private Map<Rel, Object> links() {
+		Map<Rel, Object> links = this.links;
+		if (links == null)
+			this.links = links = Collections.unmodifiableMap(extractLinks(json));
+		
+		return links;
+	}
+	
+	private Map<Rel, Object> embeddedResources() {
+		Map<Rel, Object> embeddedResources = this.embeddedResources;
+		if (embeddedResources == null)
+			this.embeddedResources = embeddedResources = Collections.unmodifiableMap(extractEmbeddedResources(json, true));
+		
+		return embeddedResources;
+	}
+	
+	/**
+	 * Extracts everything from a lazy Resource before it is serialized
+	 * since its JSON representation is not.
+	 * @param out	The stream.
+	 * @throws IOException if the Resource could not be written.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		state();
+		links();
+		embeddedResources();
+		out.defaultWriteObject();
 	}
 	
 	/**
@@ -45,7 +114,7 @@ public final class Resource implements Serializable {
 	 * @return	JsonObject (may be empty but not null)
 	 */
 	public JsonObject getState() {
-		return state;
+		return state();
 	}
 
 	/**
@@ -57,7 +126,7 @@ public final class Resource implements Serializable {
 	 * @return A Read-Only Map&lt;String, Object&gt; (may be empty but not null)
 	 */
 	public Map<Rel, Object> getAllLinks() {
-		return links;
+		return links();
 	}
 
 	/**
@@ -69,7 +138,7 @@ public final class Resource implements Serializable {
 	 * @return A Read-Only Map&lt;String, Object&gt; (may be empty but not null)
 	 */
 	public Map<Rel, Object> getAllEmbeddedResources() {
-		return embeddedResources;
+		return embeddedResources();
 	}
 
 	/**
@@ -80,6 +149,7 @@ public final class Resource implements Serializable {
 	 * @throws RelNotFoundException if the Rel is inexistant in the Resource.
 	 */
 	public Link getLink(Rel rel) {
+		Map<Rel, Object> links = links();
 		Object link = links.get(rel);
 		
 		if (link == null)
@@ -91,6 +161,23 @@ public final class Resource implements Serializable {
 		return (Link) link;
 	}
 	
+	/**
+	 * Same as {@link #getLink(Rel)} but returns null instead of throwing
+	 * a {@link RelNotFoundException} if the Rel is inexistant in the Resource,
+	 * which makes it cheap to check whether a link is present.
+	 * @param rel	The relation type ({@link Rel})
+	 * @return	The Link referenced by the given rel or null.
+	 * @throws LinkNotUniqueException if the Rel points to an array of links.
+	 */
+	public Link findLink(Rel rel) {
+		Object link = links().get(rel);
+		
+		if (link != null && !(link instanceof Link))
+			throw new LinkNotUniqueException();
+		
+		return (Link) link;
+	}
+	
 	/**
 	 * Finds an array of links by their relation type.
 	 * Note that there is no guarantees as to the order of the links. 
@@ -101,10 +188,10 @@ public final class Resource implements Serializable {
 	 */
 	@SuppressWarnings("unchecked")
 	public List<Link> getLinks(Rel rel) {
-		Object links = this.links.get(rel);
+		Object links = links().get(rel);
 		
 		if (links == null)
-			throw new RelNotFoundException(rel, this.links.keySet());
+			throw new RelNotFoundException(rel, links().keySet());
 		
 		if (links instanceof Link)
 			throw new LinkUniqueException();
@@ -121,6 +208,7 @@ public final class Resource implements Serializable {
 	 * @throws RelNotFoundException if the Rel is inexistant in the Resource.
 	 */
 	public Resource getEmbeddedResource(Rel rel) {
+		Map<Rel, Object> embeddedResources = embeddedResources();
 		Object resource = embeddedResources.get(rel);
 		
 		if (resource == null)
@@ -132,6 +220,24 @@ public final class Resource implements Serializable {
 		return (Resource) resource;
 	}
 	
+	/**
+	 * Same as {@link #getEmbeddedResource(Rel)} but returns null instead of throwing
+	 * a {@link RelNotFoundException} if the Rel is inexistant in the Resource,
+	 * which makes it cheap to check whether a resource is embedded.
+	 * @param rel	The relation type ({@link Rel})
+	 * @return	The Resource referenced by the given rel or null.
+	 * @throws EmbeddedResourceNotUniqueException if the Rel
+	 * 			points to an array of embedded resourses.
+	 */
+	public Resource findEmbeddedResource(Rel rel) {
+		Object resource = embeddedResources().get(rel);
+		
+		if (resource != null && !(resource instanceof Resource))
+			throw new EmbeddedResourceNotUniqueException();
+		
+		return (Resource) resource;
+	}
+	
 	/**
 	 * Finds an array of embedded resources by their relation type.
 	 * Note that there is no guarantees as to the order of the resources. 
@@ -142,6 +248,7 @@ public final class Resource implements Serializable {
 	 */
 	@SuppressWarnings("unchecked")
 	public List<Resource> getEmbeddedResources(Rel rel) {
+		Map<Rel, Object> embeddedResources = embeddedResources();
 		Object resources = embeddedResources.get(rel);
 		
 		if (resources == null)
@@ -214,10 +321,50 @@ public final class Resource implements Serializable {
 		return new Builder()
 			.setState(extractState(json))
 			.setLinks(extractLinks(json))
-			.setEmbeddedResources(extractEmbeddedResources(json))
+			.setEmbeddedResources(extractEmbeddedResources(json, false))
 			.build();
 	}
 	
+	/**
+	 * Builds a lazy Resource from its JSON representation: the state, the links
+	 * and the embedded resources (lazy as well) are only extracted from the
+	 * JsonObject when first needed, which saves most of the work when only
+	 * a few properties or links of a large Resource are read.
+	 * <p>
+	 * A lazy Resource is equal to the Resource built by {@link #fromJson(JsonObject)}.
+	 * @param json	A JsonObject representing the resource.
+	 * @return The lazy Resource.
+	 */
+	public static Resource fromJsonLazily(JsonObject json) {
+		if (json == null)
+			throw new NullPointerException("The JSON representation is mandatory.");
+		
+		return new Resource(json);
+	}
+	
+	/**
+	 * Builds a lazy Resource (see {@link #fromJsonLazily(JsonObject)})
+	 * from its JSON representation, read as a JsonObject.
+	 * <p>
+	 * Note: an empty representation will be converted to "{}".
+	 * The reader is closed once the representation is read.
+	 * @param json	A reader of the JSON representation of the resource.
+	 * @return The lazy Resource.
+	 * @throws JsonException if the reader could not be read or parsed as JSON.
+	 */
+	public static Resource fromJsonLazily(Reader json) throws JsonException {
+		PushbackReader reader = skipWhitespaces(json);
+		if (reader == null)
+			return new Builder().build();
+		
+		JsonReader jsonReader = JsonProviders.getProvider().createReader(reader);
+		try {
+			return fromJsonLazily(jsonReader.readObject());
+		} finally {
+			jsonReader.close();
+		}
+	}
+	
 	/**
 	 * Builds a Resource from its JSON representation.
 	 * <p>
@@ -227,14 +374,139 @@ public final class Resource implements Serializable {
 	 * @throws JsonException if the String could not be parsed as JSON.
 	 */
 	public static Resource fromJson(String json) throws JsonException {
-		if (json == null || json.trim().isEmpty())
-			json = "{}";
+		if (json == null)
+			json = "";
+		
+		return fromJson(new StringReader(json));
+	}
+	
+	/**
+	 * Builds a Resource from its JSON representation, read in a
+	 * single pass without buffering it (see {@link #fromJson(Reader)}).
+	 * <p>
+	 * The character encoding (UTF-8, UTF-16 or UTF-32) is detected.
+	 * An empty stream will be converted to "{}".
+	 * The stream is closed once the Resource is read.
+	 * @param json	A stream containing the JSON representation of the resource.
+	 * @return The build Resource.
+	 * @throws JsonException if the stream could not be read or parsed as JSON.
+	 */
+	public static Resource fromJson(InputStream json) throws JsonException {
+		PushbackInputStream stream = new PushbackInputStream(json);
+		try {
+			int first = stream.read();
+			if (first == -1) {
+				stream.close();
+				return new Builder().build();
+			}
+			stream.unread(first);
+		} catch (IOException e) {
+			throw new JsonException("Couldn't read the JSON representation.", e);
+		}
+		
+		return parse(JsonProviders.getProvider().createParser(stream));
+	}
+	
+	/**
+	 * Builds a Resource from its JSON representation, read in a single pass:
+	 * the links and the embedded resources are built while the characters are
+	 * read and neither the whole representation nor the intermediate
+	 * JsonObjects are kept in memory.
+	 * <p>
+	 * Note: an empty representation will be converted to "{}".
+	 * The reader is closed once the Resource is read.
+	 * @param json	A reader of the JSON representation of the resource.
+	 * @return The build Resource.
+	 * @throws JsonException if the reader could not be read or parsed as JSON.
+	 */
+	public static Resource fromJson(Reader json) throws JsonException {
+		PushbackReader reader = skipWhitespaces(json);
+		if (reader == null)
+			return new Builder().build();
+		
+		return parse(JsonProviders.getProvider().createParser(reader));
+	}
+	
+	/**
+	 * The JSON (HAL) representation of the Resource, from which
+	 * {@link #fromJson(JsonObject)} builds an equal Resource.
+	 * @return	The JSON representation of the Resource.
+	 */
+	public JsonObject toJson() {
+		if (json != null)
+			return json;
+		
+		JsonProvider provider = JsonProviders.getProvider();
+		JsonObjectBuilder json = provider.createObjectBuilder();
+		Map<Rel, Object> links = links();
+		if (!links.isEmpty()) {
+			JsonObjectBuilder _links = provider.createObjectBuilder();
+			for (Map.Entry<Rel, Object> link : links.entrySet()) {
+				if (link.getValue() instanceof Link) {
+					_links.add(link.getKey().getName(), ((Link) link.getValue()).toJson());
+				} else {
+					JsonArrayBuilder arrayOfLinks = provider.createArrayBuilder();
+					for (Object value : (List<?>) link.getValue())
+						arrayOfLinks.add(((Link) value).toJson());
+					_links.add(link.getKey().getName(), arrayOfLinks);
+				}
+			}
+			json.add("_links", _links);
+		}
+		
+		Map<Rel, Object> embeddedResources = embeddedResources();
+		if (!embeddedResources.isEmpty()) {
+			JsonObjectBuilder _embedded = provider.createObjectBuilder();
+			for (Map.Entry<Rel, Object> embeddedResource : embeddedResources.entrySet()) {
+				if (embeddedResource.getValue() instanceof Resource) {
+					_embedded.add(embeddedResource.getKey().getName(), ((Resource) embeddedResource.getValue()).toJson());
+				} else {
+					JsonArrayBuilder arrayOfEmbeddedResources = provider.createArrayBuilder();
+					for (Object value : (List<?>) embeddedResource.getValue())
+						arrayOfEmbeddedResources.add(((Resource) value).toJson());
+					_embedded.add(embeddedResource.getKey().getName(), arrayOfEmbeddedResources);
+				}
+			}
+			json.add("_embedded", _embedded);
+		}
 		
-		JsonReader jsonReader = Json.createReader(new StringReader(json));
-		JsonObject jsonObject = jsonReader.readObject();
-	    jsonReader.close();
-	    
-	    return fromJson(jsonObject);
+		for (Map.Entry<String, JsonValue> property : state().entrySet())
+			json.add(property.getKey(), property.getValue());
+		
+		return json.build();
+	}
+	
+	/**
+	 * @param json	A reader of a JSON representation.
+	 * @return	The reader positioned on the first significant character
+	 * 			or null (and closed) if the representation is empty.
+	 * @throws JsonException if the reader could not be read.
+	 */
+	private static PushbackReader skipWhitespaces(Reader json) throws JsonException {
+		PushbackReader reader = new PushbackReader(json);
+		try {
+			int first;
+			do {
+				first = reader.read();
+			} while (first == ' ' || first == '\t' || first == '\n' || first == '\r');
+			
+			if (first == -1) {
+				reader.close();
+				return null;
+			}
+			reader.unread(first);
+			return reader;
+		} catch (IOException e) {
+			throw new JsonException("Couldn't read the JSON representation.", e);
+		}
+	}
+	
+	private static Resource parse(JsonParser parser) {
+		try {
+			return new ResourceParser(parser).parse();
+		} finally {
+			parser.close();
+		}
 	}
 
 	/**
@@ -243,7 +515,7 @@ public final class Resource implements Serializable {
 	 * @see Resource#getState()
 	 */
 	private static JsonObject extractState(JsonObject json) {
-		JsonObjectBuilder objectBuilder = Json.createObjectBuilder();
+		JsonObjectBuilder objectBuilder = JsonProviders.getProvider().createObjectBuilder();
 		for (String key : json.keySet())
 			if (!"_links".equals(key) && !"_embedded".equals(key))
 				objectBuilder.add(key, json.get(key));
@@ -266,18 +538,16 @@ public final class Resource implements Serializable {
 		JsonObject _links = json.getJsonObject("_links");
 		for (String name : _links.keySet()) {
 		    // The relation type (Rel)
-			Rel rel;
-			if ((rel = RegisteredRel.getByName(name)) == null)
-				rel = new CustomRel(name);
+			Rel rel = ResourceParser.toRel(name);
 			
-			try { // Array of Links
+			if (_links.get(name).getValueType() == ValueType.ARRAY) { // Array of Links
 				JsonArray value = _links.getJsonArray(name);
 		    	List<Link> arrayOfLinks = new ArrayList<Link>(value.size());
 		    	for (int i = 0, j = value.size(); i < j; i++)
 		    		arrayOfLinks.add(Link.fromJson(value.getJsonObject(i)));
 		    	
 		    	links.put(rel, Collections.unmodifiableList(arrayOfLinks));
-			} catch (ClassCastException ignored) { // Unique Link
+			} else { // Unique Link
 		    	links.put(rel, Link.fromJson(_links.getJsonObject(name)));
 			}
 		}
@@ -287,10 +557,11 @@ public final class Resource implements Serializable {
 
 	/**
 	 * @param json The response as a JsonObject.
+	 * @param lazy Whether the embedded resources are lazy.
 	 * @return The embedded resources as a Map.
 	 * @see Resource#getAllEmbeddedResources()
 	 */
-	private static Map<Rel, Object> extractEmbeddedResources(JsonObject json) {
+	private static Map<Rel, Object> extractEmbeddedResources(JsonObject json, boolean lazy) {
 		Map<Rel, Object> embeddedResources = new HashMap<Rel, Object>();
 		
 		if (!json.containsKey("_embedded"))
@@ -300,32 +571,34 @@ public final class Resource implements Serializable {
 		JsonObject _embedded = json.getJsonObject("_embedded");
 		for (String name : _embedded.keySet()) {
 		    // The relation type (Rel)
-			Rel rel;
-			if ((rel = RegisteredRel.getByName(name)) == null)
-				rel = new CustomRel(name);
+			Rel rel = ResourceParser.toRel(name);
 			
-			try { // Array of Resources
+			if (_embedded.get(name).getValueType() == ValueType.ARRAY) { // Array of Resources
 				JsonArray value = _embedded.getJsonArray(name);
 		    	List<Resource> arrayOfEmbeddedResources = new ArrayList<Resource>(value.size());
 		    	for (int i = 0, j = value.size(); i < j; i++)
-		    		arrayOfEmbeddedResources.add(Resource.fromJson(value.getJsonObject(i)));
+		    		arrayOfEmbeddedResources.add(toResource(value.getJsonObject(i), lazy));
 		    	
 		    	embeddedResources.put(rel, Collections.unmodifiableList(arrayOfEmbeddedResources));
-			} catch (ClassCastException ignored) { // Unique embedded Resource
-				embeddedResources.put(rel, Resource.fromJson(_embedded.getJsonObject(name)));
+			} else { // Unique embedded Resource
+				embeddedResources.put(rel, toResource(_embedded.getJsonObject(name), lazy));
 			}
 		}
 		
 		return embeddedResources;
 	}
+	
+	private static Resource toResource(JsonObject json, boolean lazy) {
+		return lazy ? fromJsonLazily(json) : fromJson(json);
+	}
 
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((embeddedResources == null) ? 0 : embeddedResources.hashCode());
-		result = prime * result + ((links == null) ? 0 : links.hashCode());
-		result = prime * result + ((state == null) ? 0 : state.hashCode());
+		result = prime * result + embeddedResources().hashCode();
+		result = prime * result + links().hashCode();
+		result = prime * result + state().hashCode();
 		return result;
 	}
 
@@ -343,8 +616,8 @@ public final class Resource implements Serializable {
 		
 		Resource other = (Resource) obj;
 		
-		return  state.equals(other.state) && links.equals(other.links) &&
-				embeddedResources.equals(other.embeddedResources);
+		return  state().equals(other.state()) && links().equals(other.links()) &&
+				embeddedResources().equals(other.embeddedResources());
 	}
 
 	/** 
@@ -355,9 +628,9 @@ public final class Resource implements Serializable {
 	public String toString() {
 		return new StringBuilder()
 			.append("Resource [")
-			.append("state=").append(state).append(", ")
-			.append("links=").append(links).append(", ")
-			.append("embeddedResources=").append(embeddedResources).append("]")
+			.append("state=").append(state()).append(", ")
+			.append("links=").append(links()).append(", ")
+			.append("embeddedResources=").append(embeddedResources()).append("]")
 			.toString();
 	}
 
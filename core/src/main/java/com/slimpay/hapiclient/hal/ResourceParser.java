@@ -0,0 +1,283 @@
+package com.slimpay.hapiclient.hal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonException;
+import javax.json.JsonObjectBuilder;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+import com.slimpay.hapiclient.json.JsonProviders;
+
+/**
+ * Builds a Resource in a single pass over the JSON tokens:
+ * the <strong>_links</strong> and <strong>_embedded</strong> properties
+ * are turned into Links and Resources as they are read and only the
+ * other properties are added to the state, so that the representation
+ * is never held as a whole in memory, neither as a String nor as a JsonObject.
+ */
+final class ResourceParser {
+	private final JsonParser parser;
+	private final JsonProvider provider = JsonProviders.getProvider();
+
+	/**
+	 * @param parser	The parser positioned before the Resource.
+	 */
+	ResourceParser(JsonParser parser) {
+		this.parser = parser;
+	}
+
+	/**
+	 * @return	The Resource.
+	 * @throws JsonException if the representation is not a JSON object.
+	 */
+	Resource parse() {
+		expect(parser.next(), Event.START_OBJECT);
+		Resource resource = readResource();
+
+		if (parser.hasNext())
+			throw new JsonException("Unexpected " + parser.next() + " after the Resource.");
+
+		return resource;
+	}
+
+	/**
+	 * Reads a Resource whose START_OBJECT has been read.
+	 * @return	The Resource.
+	 */
+	private Resource readResource() {
+		JsonObjectBuilder state = provider.createObjectBuilder();
+		Map<Rel, Object> links = null;
+		Map<Rel, Object> embeddedResources = null;
+
+		Event event;
+		while ((event = parser.next()) == Event.KEY_NAME) {
+			String key = parser.getString();
+			event = parser.next();
+
+			if ("_links".equals(key)) {
+				expect(event, Event.START_OBJECT);
+				links = readLinks();
+			} else if ("_embedded".equals(key)) {
+				expect(event, Event.START_OBJECT);
+				embeddedResources = readEmbeddedResources();
+			} else {
+				addValue(state, key, event);
+			}
+		}
+		expect(event, Event.END_OBJECT);
+
+		return new Resource.Builder()
+			.setState(state.build())
+			.setLinks(links)
+			.setEmbeddedResources(embeddedResources)
+			.build();
+	}
+
+	/**
+	 * @return	The links as a Map.
+	 * @see Resource#getAllLinks()
+	 */
+	private Map<Rel, Object> readLinks() {
+		Map<Rel, Object> links = new HashMap<Rel, Object>();
+
+		Event event;
+		while ((event = parser.next()) == Event.KEY_NAME) {
+			Rel rel = toRel(parser.getString());
+
+			event = parser.next();
+			if (event == Event.START_ARRAY) { // Array of Links
+				List<Link> arrayOfLinks = new ArrayList<Link>();
+				while ((event = parser.next()) != Event.END_ARRAY) {
+					expect(event, Event.START_OBJECT);
+					arrayOfLinks.add(readLink());
+				}
+				links.put(rel, Collections.unmodifiableList(arrayOfLinks));
+			} else { // Unique Link
+				expect(event, Event.START_OBJECT);
+				links.put(rel, readLink());
+			}
+		}
+		expect(event, Event.END_OBJECT);
+
+		return links;
+	}
+
+	/**
+	 * @return	The embedded resources as a Map.
+	 * @see Resource#getAllEmbeddedResources()
+	 */
+	private Map<Rel, Object> readEmbeddedResources() {
+		Map<Rel, Object> embeddedResources = new HashMap<Rel, Object>();
+
+		Event event;
+		while ((event = parser.next()) == Event.KEY_NAME) {
+			Rel rel = toRel(parser.getString());
+
+			event = parser.next();
+			if (event == Event.START_ARRAY) { // Array of Resources
+				List<Resource> arrayOfEmbeddedResources = new ArrayList<Resource>();
+				while ((event = parser.next()) != Event.END_ARRAY) {
+					expect(event, Event.START_OBJECT);
+					arrayOfEmbeddedResources.add(readResource());
+				}
+				embeddedResources.put(rel, Collections.unmodifiableList(arrayOfEmbeddedResources));
+			} else { // Unique embedded Resource
+				expect(event, Event.START_OBJECT);
+				embeddedResources.put(rel, readResource());
+			}
+		}
+		expect(event, Event.END_OBJECT);
+
+		return embeddedResources;
+	}
+
+	/**
+	 * Reads a Link whose START_OBJECT has been read.
+	 * The unknown properties are ignored.
+	 * @return	The Link.
+	 * @see Link#fromJson(javax.json.JsonObject)
+	 */
+	private Link readLink() {
+		String href = null, type = null, deprecation = null,
+				name = null, profile = null, title = null, hreflang = null;
+		Boolean templated = null;
+
+		Event event;
+		while ((event = parser.next()) == Event.KEY_NAME) {
+			String key = parser.getString();
+			event = parser.next();
+
+			if ("templated".equals(key)) {
+				if (event != Event.VALUE_TRUE && event != Event.VALUE_FALSE)
+					throw new JsonException("The templated property of a Link must be a boolean.");
+				templated = event == Event.VALUE_TRUE;
+			} else if ("href".equals(key)) {
+				href = readString(key, event);
+			} else if ("type".equals(key)) {
+				type = readString(key, event);
+			} else if ("deprecation".equals(key)) {
+				deprecation = readString(key, event);
+			} else if ("name".equals(key)) {
+				name = readString(key, event);
+			} else if ("profile".equals(key)) {
+				profile = readString(key, event);
+			} else if ("title".equals(key)) {
+				title = readString(key, event);
+			} else if ("hreflang".equals(key)) {
+				hreflang = readString(key, event);
+			} else {
+				skipValue(event);
+			}
+		}
+		expect(event, Event.END_OBJECT);
+
+		if (href == null)
+			throw new JsonException("The href property of a Link is mandatory.");
+
+		return new Link(href, templated, type, deprecation, name, profile, title, hreflang);
+	}
+
+	private String readString(String key, Event event) {
+		if (event != Event.VALUE_STRING)
+			throw new JsonException("The " + key + " property of a Link must be a string.");
+
+		return parser.getString();
+	}
+
+	/**
+	 * Adds the value starting with the given event to the object.
+	 */
+	private void addValue(JsonObjectBuilder object, String key, Event event) {
+		switch (event) {
+			case START_OBJECT:	object.add(key, readObject()); break;
+			case START_ARRAY:	object.add(key, readArray()); break;
+			case VALUE_STRING:	object.add(key, parser.getString()); break;
+			case VALUE_NUMBER:	object.add(key, parser.getBigDecimal()); break;
+			case VALUE_TRUE:	object.add(key, true); break;
+			case VALUE_FALSE:	object.add(key, false); break;
+			case VALUE_NULL:	object.addNull(key); break;
+			default: throw new JsonException("Unexpected " + event + ".");
+		}
+	}
+
+	/**
+	 * Adds the value starting with the given event to the array.
+	 */
+	private void addValue(JsonArrayBuilder array, Event event) {
+		switch (event) {
+			case START_OBJECT:	array.add(readObject()); break;
+			case START_ARRAY:	array.add(readArray()); break;
+			case VALUE_STRING:	array.add(parser.getString()); break;
+			case VALUE_NUMBER:	array.add(parser.getBigDecimal()); break;
+			case VALUE_TRUE:	array.add(true); break;
+			case VALUE_FALSE:	array.add(false); break;
+			case VALUE_NULL:	array.addNull(); break;
+			default: throw new JsonException("Unexpected " + event + ".");
+		}
+	}
+
+	private JsonObjectBuilder readObject() {
+		JsonObjectBuilder object = provider.createObjectBuilder();
+
+		Event event;
+		while ((event = parser.next()) == Event.KEY_NAME) {
+			String key = parser.getString();
+			addValue(object, key, parser.next());
+		}
+		expect(event, Event.END_OBJECT);
+
+		return object;
+	}
+
+	private JsonArrayBuilder readArray() {
+		JsonArrayBuilder array = provider.createArrayBuilder();
+
+		Event event;
+		while ((event = parser.next()) != Event.END_ARRAY)
+			addValue(array, event);
+
+		return array;
+	}
+
+	/**
+	 * Skips the value starting with the given event.
+	 */
+	private void skipValue(Event event) {
+		if (event != Event.START_OBJECT && event != Event.START_ARRAY)
+			return;
+
+		int depth = 1;
+		while (depth > 0) {
+			event = parser.next();
+			if (event == Event.START_OBJECT || event == Event.START_ARRAY)
+				depth++;
+			else if (event == Event.END_OBJECT || event == Event.END_ARRAY)
+				depth--;
+		}
+	}
+
+	/**
+	 * @param name	The relation name.
+	 * @return	The registered relation or else the shared CustomRel.
+	 * @see CustomRel#valueOf(String)
+	 */
+	static Rel toRel(String name) {
+		Rel rel;
+		if ((rel = RegisteredRel.getByName(name)) == null)
+			rel = CustomRel.valueOf(name);
+
+		return rel;
+	}
+
+	private static void expect(Event event, Event expected) {
+		if (event != expected)
+			throw new JsonException("Expected " + expected + " but got " + event + ".");
+	}
+}
@@ -10,17 +10,22 @@ import java.util.Map;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 
+import com.slimpay.hapiclient.http.auth.AuthenticationMethod;
+
 abstract class AbstractRequest {
 	protected final Method method;
 	protected final Map<String, Object> urlVariables;
 	protected final HttpEntity messageBody;
 	protected final List<Header> headers;
+	protected final AuthenticationMethod authenticationMethod;
 
-	protected AbstractRequest(Method method, Map<String, Object> urlVariables, HttpEntity messageBody, List<Header> headers) {
+	protected AbstractRequest(Method method, Map<String, Object> urlVariables, HttpEntity messageBody, List<Header> headers,
+			AuthenticationMethod authenticationMethod) {
 		this.method = method;
 		this.urlVariables = unmodifiableUrlVariables(urlVariables);
 		this.messageBody = messageBody;
 		this.headers = Collections.unmodifiableList(headers);
+		this.authenticationMethod = authenticationMethod;
 	}
 	
 	/**
@@ -125,11 +130,20 @@ abstract class AbstractRequest {
 		return headers;
 	}
 	
+	/**
+	 * @return	The authentication method overriding the one of the client
+	 * 			for this request only, or null.
+	 */
+	public AuthenticationMethod getAuthenticationMethod() {
+		return authenticationMethod;
+	}
+	
 	static abstract class Builder {
 		protected Method method;
 		protected final Map<String, Object> urlVariables;
 		protected HttpEntity messageBody;
 		protected final List<Header> headers;
+		protected AuthenticationMethod authenticationMethod;
 		
 		protected Builder() {
 			super();
@@ -253,6 +267,18 @@ abstract class AbstractRequest {
 			return this;
 		}
 		
+		/**
+		 * Overrides the authentication method of the client for this request only,
+		 * e.g. to send it on behalf of one of the tenants of a
+		 * {@link com.slimpay.hapiclient.http.auth.MultiTenantOauth2Authentication}.
+		 * @param authenticationMethod	The authentication method.
+		 * @return	The builder.
+		 */
+		public Builder setAuthenticationMethod(AuthenticationMethod authenticationMethod) {
+			this.authenticationMethod = authenticationMethod;
+			return this;
+		}
+		
 		public abstract AbstractRequest build();
 
 	}
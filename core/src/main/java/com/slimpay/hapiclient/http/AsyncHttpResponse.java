@@ -0,0 +1,35 @@
+package com.slimpay.hapiclient.http;
+
+import java.io.IOException;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Exposes a response received by the non-blocking transport as a
+ * {@link CloseableHttpResponse} so it can be handled (and reported
+ * by the {@link com.slimpay.hapiclient.exception.HttpException HttpException}s)
+ * exactly like a response received by the blocking one.
+ * <p>
+ * The message body has already been fully received at that point:
+ * closing the response only releases its content.
+ */
+final class AsyncHttpResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+	/**
+	 * @param response	The response received by the asynchronous client.
+	 */
+	AsyncHttpResponse(HttpResponse response) {
+		super(response.getStatusLine());
+		setHeaders(response.getAllHeaders());
+		setEntity(response.getEntity());
+		setLocale(response.getLocale());
+	}
+
+	public void close() throws IOException {
+		EntityUtils.consume(getEntity());
+	}
+
+}
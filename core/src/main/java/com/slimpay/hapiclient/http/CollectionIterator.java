@@ -0,0 +1,188 @@
+package com.slimpay.hapiclient.http;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.slimpay.hapiclient.exception.HttpException;
+import com.slimpay.hapiclient.hal.RegisteredRel;
+import com.slimpay.hapiclient.hal.Rel;
+import com.slimpay.hapiclient.hal.Resource;
+
+/**
+ * A lazy Iterator over the Resources embedded in the pages of
+ * a paginated collection, from a first page to the last one,
+ * following the <code>next</code> link of each page.
+ * <p>
+ * The next pages are requested in the background while the current
+ * one is consumed: up to <code>prefetch</code> pages are requested
+ * ahead, each one as soon as the previous one is received. With a
+ * prefetch of 0, a page is only requested when its first item is needed.
+ * <p>
+ * A page without the embedded resources is an empty page.
+ * If a page request fails, {@link #hasNext()} and {@link #next()} throw a
+ * <code>CompletionException</code> caused by the {@link HttpException}
+ * (a RuntimeException is thrown as is), and no more page is requested.
+ * <p>
+ * A CollectionIterator is not thread-safe. It should be closed
+ * if it is not consumed until the end, so that no more pages
+ * are requested.
+ * @see HapiClient#iterate(Resource, Rel, int)
+ */
+public final class CollectionIterator implements Iterator<Resource>, Closeable {
+	private static final Follow NEXT = new Follow.Builder(RegisteredRel.NEXT).build();
+
+	private final HapiClient client;
+	private final Rel rel;
+	private final int prefetch;
+	/**
+	 * The pages requested ahead, in order. A page completed
+	 * with null means that there is no more page.
+	 */
+	private final Queue<CompletableFuture<Resource>> pages = new ArrayDeque<CompletableFuture<Resource>>();
+	/**
+	 * The last page requested, or null once there is no more page.
+	 */
+	private CompletableFuture<Resource> lastPage;
+	/**
+	 * The page requests in progress, sent from the threads
+	 * completing the previous pages and aborted by {@link #close()}.
+	 */
+	private final Set<CompletableFuture<Resource>> exchanges = ConcurrentHashMap.newKeySet();
+	private Iterator<Resource> items = Collections.<Resource>emptyIterator();
+	private volatile boolean closed;
+
+	/**
+	 * @see HapiClient#iterate(Resource, Rel, int)
+	 */
+	CollectionIterator(final HapiClient client, final Resource firstPage, final Rel rel, final int prefetch) {
+		if (prefetch < 0)
+			throw new IllegalArgumentException("The prefetch cannot be negative.");
+
+		this.client = client;
+		this.rel = rel;
+		this.prefetch = prefetch;
+		this.lastPage = CompletableFuture.completedFuture(firstPage);
+		this.pages.add(lastPage);
+	}
+
+	/**
+	 * @return	The number of pages requested ahead.
+	 */
+	public int getPrefetch() {
+		return prefetch;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!items.hasNext()) {
+			if (pages.isEmpty()) {
+				if (lastPage == null)
+					return false;
+				requestNextPage();
+			}
+
+			CompletableFuture<Resource> page = pages.poll();
+			while (pages.size() < prefetch && lastPage != null)
+				requestNextPage();
+
+			Resource resource;
+			try {
+				resource = await(page);
+			} catch (RuntimeException | Error e) {
+				close();
+				throw e;
+			}
+			if (resource == null) {
+				close();
+				return false;
+			}
+			items = getItems(resource).iterator();
+		}
+
+		return true;
+	}
+
+	@Override
+	public Resource next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+
+		return items.next();
+	}
+
+	/**
+	 * Stops requesting the next pages and aborts the page requests in progress.
+	 * The items already received can still be iterated.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		lastPage = null;
+		for (CompletableFuture<Resource> exchange : exchanges)
+			exchange.cancel(true);
+		for (CompletableFuture<Resource> page : pages)
+			page.cancel(false);
+		pages.clear();
+	}
+
+	/**
+	 * Requests the page following the last one requested
+	 * once it is received, from a task of the client rather than
+	 * from the I/O dispatcher thread receiving it.
+	 */
+	private void requestNextPage() {
+		lastPage = lastPage.thenComposeAsync(page -> {
+			if (page == null || closed || page.findLink(RegisteredRel.NEXT) == null)
+				return CompletableFuture.<Resource>completedFuture(null);
+
+			CompletableFuture<Resource> exchange = client.sendAsync(NEXT, page);
+			exchanges.add(exchange);
+			exchange.whenComplete((nextPage, failure) -> exchanges.remove(exchange));
+			// Closed in the meantime
+			if (closed)
+				exchange.cancel(true);
+			return exchange;
+		}, client::executeBlocking);
+		pages.add(lastPage);
+	}
+
+	/**
+	 * @param page	The page.
+	 * @return	The Resources embedded in the page.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<Resource> getItems(Resource page) {
+		Object items = page.getAllEmbeddedResources().get(rel);
+		if (items == null)
+			return Collections.<Resource>emptyList();
+
+		return items instanceof Resource ? Collections.singletonList((Resource) items) : (List<Resource>) items;
+	}
+
+	/**
+	 * @param page	The future page.
+	 * @return	The page or null if there is no more page.
+	 * @throws CompletionException if the page request failed.
+	 */
+	private static Resource await(CompletableFuture<Resource> page) {
+		try {
+			return page.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw e;
+		}
+	}
+
+}
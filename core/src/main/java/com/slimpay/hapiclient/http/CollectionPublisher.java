@@ -0,0 +1,251 @@
+package com.slimpay.hapiclient.http;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.slimpay.hapiclient.hal.RegisteredRel;
+import com.slimpay.hapiclient.hal.Rel;
+import com.slimpay.hapiclient.hal.Resource;
+
+/**
+ * A Reactive Streams Publisher of the Resources embedded in the pages
+ * of a paginated collection, following the <code>next</code> link of each
+ * page only as the demand of the Subscriber requires.
+ * <p>
+ * It requires <code>org.reactivestreams:reactive-streams</code> on the
+ * classpath (an optional dependency of the client), so that any Reactive
+ * Streams library can subscribe to it, e.g. <code>Flux.from(publisher)</code>.
+ * <p>
+ * Each subscription starts from the first page. The next page is
+ * requested when the Subscriber has requested Resources which are not
+ * received yet and fewer than <code>bufferSize</code> Resources are buffered,
+ * so a slow Subscriber holds at most <code>bufferSize</code> Resources and a page,
+ * while a fast one gets the next page requested as soon as it needs it.
+ * Only one page is requested at a time. Cancelling the subscription aborts
+ * the page request in progress.
+ * <p>
+ * The signals are sent to the Subscriber one at a time, from the thread
+ * calling {@link Subscription#request(long)} or, once a page is received,
+ * from the {@link HapiClient.Builder#setExecutor(java.util.concurrent.Executor) executor}
+ * of the client (or a daemon thread of the client if there is none).
+ * The I/O threads receiving the pages are never blocked by the Subscriber
+ * nor by the next page request.
+ * If a page request fails, the Resources already received are sent before
+ * {@link Subscriber#onError(Throwable)} is called with the {@link com.slimpay.hapiclient.exception.HttpException}.
+ * @see HapiClient#publish(Resource, Rel, int)
+ */
+public final class CollectionPublisher implements Publisher<Resource> {
+	private static final Follow NEXT = new Follow.Builder(RegisteredRel.NEXT).build();
+
+	private final HapiClient client;
+	private final Resource firstPage;
+	private final Rel rel;
+	private final int bufferSize;
+
+	/**
+	 * @see HapiClient#publish(Resource, Rel, int)
+	 */
+	CollectionPublisher(final HapiClient client, final Resource firstPage, final Rel rel, final int bufferSize) {
+		if (bufferSize <= 0)
+			throw new IllegalArgumentException("The buffer size must be positive.");
+
+		this.client = client;
+		this.firstPage = firstPage;
+		this.rel = rel;
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * Starts a new subscription, from the first page.
+	 * @param subscriber	The Subscriber of the Resources.
+	 */
+	@Override
+	public void subscribe(final Subscriber<? super Resource> subscriber) {
+		if (subscriber == null)
+			throw new NullPointerException("The subscriber is mandatory.");
+
+		PageSubscription subscription = new PageSubscription(subscriber);
+		subscriber.onSubscribe(subscription);
+		subscription.drain();
+	}
+
+	private final class PageSubscription implements Subscription {
+		private final Subscriber<? super Resource> subscriber;
+		private final AtomicLong requested = new AtomicLong();
+		/**
+		 * The number of drain calls missed while a thread
+		 * was sending the signals (work in progress).
+		 */
+		private final AtomicInteger wip = new AtomicInteger();
+		private volatile boolean cancelled;
+		/**
+		 * The page request in progress, to abort on cancellation.
+		 */
+		private volatile CompletableFuture<Resource> inFlight;
+		private volatile Resource receivedPage;
+		private volatile Throwable failure;
+		/**
+		 * The failure sent straight away, whatever is buffered (rule 3.9).
+		 */
+		private volatile Throwable invalidRequest;
+
+		/*
+		 * Only accessed from the drain loop.
+		 */
+		private final Queue<Resource> buffer = new ArrayDeque<Resource>();
+		private Resource lastPage;
+		private boolean done;
+
+		private PageSubscription(Subscriber<? super Resource> subscriber) {
+			this.subscriber = subscriber;
+			this.receivedPage = firstPage;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				invalidRequest = new IllegalArgumentException("The number of Resources requested must be positive.");
+				drain();
+				return;
+			}
+
+			long current;
+			do {
+				current = requested.get();
+				if (current == Long.MAX_VALUE)
+					break;
+			} while (!requested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			CompletableFuture<Resource> page = inFlight;
+			if (page != null)
+				page.cancel(true);
+			drain();
+		}
+
+		/**
+		 * Sends the signals due to the Subscriber and requests the next page
+		 * if needed. Only one thread at a time runs the loop: the others
+		 * only make it run once more.
+		 */
+		private void drain() {
+			if (wip.getAndIncrement() != 0)
+				return;
+
+			int missed = 1;
+			do {
+				if (invalidRequest != null && !cancelled && !done) {
+					done = true;
+					CompletableFuture<Resource> page = inFlight;
+					if (page != null)
+						page.cancel(true);
+					subscriber.onError(invalidRequest);
+				}
+
+				if (cancelled || done) {
+					buffer.clear();
+					lastPage = null;
+				} else {
+					Resource page = receivedPage;
+					if (page != null) {
+						receivedPage = null;
+						inFlight = null;
+						addItems(page);
+						lastPage = page;
+					}
+
+					long emitted = 0;
+					long demand = requested.get();
+					while (emitted != demand && !buffer.isEmpty() && !cancelled) {
+						try {
+							subscriber.onNext(buffer.poll());
+						} catch (Throwable e) {
+							// Rule 2.13: the subscription is considered cancelled
+							cancel();
+							break;
+						}
+						emitted++;
+					}
+					if (emitted > 0 && demand != Long.MAX_VALUE)
+						requested.addAndGet(-emitted);
+
+					sendTerminalSignal();
+					requestNextPageIfNeeded();
+				}
+
+				missed = wip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		/**
+		 * Sends the error or the completion once there is nothing more to send.
+		 */
+		private void sendTerminalSignal() {
+			if (cancelled || !buffer.isEmpty())
+				return;
+
+			Throwable failure = this.failure;
+			if (failure != null) {
+				done = true;
+				subscriber.onError(failure instanceof CompletionException && failure.getCause() != null ?
+					failure.getCause() : failure);
+			} else if (inFlight == null && receivedPage == null && !hasNextPage()) {
+				done = true;
+				subscriber.onComplete();
+			}
+		}
+
+		private void requestNextPageIfNeeded() {
+			if (done || cancelled || inFlight != null || !hasNextPage() ||
+					requested.get() == 0 || buffer.size() >= bufferSize)
+				return;
+
+			Resource page = lastPage;
+			lastPage = null;
+			CompletableFuture<Resource> nextPage = client.sendAsync(NEXT, page);
+			inFlight = nextPage;
+			nextPage.whenComplete((resource, failure) -> {
+				if (failure != null)
+					this.failure = failure;
+				else
+					receivedPage = resource;
+				
+				// The next page is requested off the I/O dispatcher thread
+				try {
+					client.executeBlocking(this::drain);
+				} catch (RejectedExecutionException e) {
+					drain();
+				}
+			});
+		}
+
+		private boolean hasNextPage() {
+			return lastPage != null && lastPage.findLink(RegisteredRel.NEXT) != null;
+		}
+
+		@SuppressWarnings("unchecked")
+		private void addItems(Resource page) {
+			Object items = page.getAllEmbeddedResources().get(rel);
+			if (items instanceof Resource)
+				buffer.add((Resource) items);
+			else if (items != null)
+				buffer.addAll((List<Resource>) items);
+		}
+	}
+
+}
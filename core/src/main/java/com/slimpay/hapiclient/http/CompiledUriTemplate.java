@@ -0,0 +1,507 @@
+package com.slimpay.hapiclient.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.damnhandy.uri.template.MalformedUriTemplateException;
+import com.damnhandy.uri.template.UriTemplate;
+import com.damnhandy.uri.template.VariableExpansionException;
+
+/**
+ * A <a href="http://tools.ietf.org/html/rfc6570">URI template</a> parsed once
+ * into its literals and expressions, and expanded straight into a StringBuilder.
+ * <p>
+ * Unlike a {@link UriTemplate}, which keeps the values it is expanded with,
+ * a CompiledUriTemplate is immutable and can be expanded by several threads at once.
+ * <p>
+ * The strings, numbers, booleans and UUIDs, and the lists and maps of them,
+ * are expanded here. The other values (dates, arrays, beans...) and the
+ * templates that are not parsed here are left to <code>UriTemplate</code>,
+ * so that the expansion stays the same as with
+ * <code>UriTemplate.fromTemplate(template).set(variables).expand()</code>.
+ * @see #valueOf(String)
+ */
+final class CompiledUriTemplate {
+	static final int MAXIMUM_CACHED = 1024;
+	private static final ConcurrentMap<String, CachedTemplate> CACHE = new ConcurrentHashMap<String, CachedTemplate>();
+	private static final Lock EVICTION_LOCK = new ReentrantLock();
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	private final String template;
+	/**
+	 * The literals (String) and the expressions (Expression), in order,
+	 * or null if the template is left to UriTemplate.
+	 */
+	private final Object[] parts;
+	/**
+	 * Whether an expression has the ; operator.
+	 */
+	private final boolean parameters;
+
+	private CompiledUriTemplate(String template, Object[] parts) {
+		this.template = template;
+		this.parts = parts;
+		this.parameters = template.contains("{;");
+	}
+
+	/**
+	 * Returns the compiled template, shared by all the callers.
+	 * About {@value #MAXIMUM_CACHED} templates are kept: beyond, the ones
+	 * not used since the previous eviction are evicted, so that a stream
+	 * of one-off templates does not evict the usual ones.
+	 * Looking a template up never locks.
+	 * @param template	The URI template.
+	 * @return	The compiled template.
+	 * @throws MalformedUriTemplateException if the template is malformed.
+	 */
+	static CompiledUriTemplate valueOf(String template) throws MalformedUriTemplateException {
+		CachedTemplate cached = CACHE.get(template);
+		if (cached != null) {
+			if (!cached.used)
+				cached.used = true;
+			return cached.template;
+		}
+
+		// Two threads may compile the same template
+		CompiledUriTemplate compiled = compile(template);
+		cached = CACHE.putIfAbsent(template, new CachedTemplate(compiled));
+		if (cached != null)
+			return cached.template;
+
+		if (CACHE.size() > MAXIMUM_CACHED)
+			evict();
+		return compiled;
+	}
+
+	/**
+	 * Evicts the templates not used since the previous eviction and
+	 * gives the others a second chance (CLOCK), or evicts them all
+	 * if they have all been used.
+	 * <p>
+	 * Only one thread evicts at a time: the others do not wait for it
+	 * and keep adding templates meanwhile.
+	 */
+	private static void evict() {
+		if (!EVICTION_LOCK.tryLock())
+			return;
+		try {
+			for (int pass = 0; pass < 2 && CACHE.size() > MAXIMUM_CACHED; pass++) {
+				Iterator<CachedTemplate> templates = CACHE.values().iterator();
+				while (templates.hasNext()) {
+					CachedTemplate cached = templates.next();
+					if (cached.used)
+						cached.used = false;
+					else
+						templates.remove();
+				}
+			}
+		} finally {
+			EVICTION_LOCK.unlock();
+		}
+	}
+
+	/**
+	 * @param template	The URI template.
+	 * @return	The compiled template.
+	 * @throws MalformedUriTemplateException if the template is malformed.
+	 */
+	static CompiledUriTemplate compile(String template) throws MalformedUriTemplateException {
+		Object[] parts = parse(template);
+		if (parts == null)
+			UriTemplate.fromTemplate(template); // Throws if it is malformed indeed.
+
+		return new CompiledUriTemplate(template, parts);
+	}
+
+	/**
+	 * @return	The URI template.
+	 */
+	String getTemplate() {
+		return template;
+	}
+
+	/**
+	 * @param names	Variable names.
+	 * @return	Whether one of the variables is in an expression of the template
+	 * 			(always true if the template is left to UriTemplate).
+	 */
+	boolean hasAnyVariable(Collection<String> names) {
+		if (parts == null)
+			return !names.isEmpty();
+
+		for (Object part : parts)
+			if (part instanceof Expression)
+				for (VarSpec varSpec : ((Expression) part).varSpecs)
+					if (names.contains(varSpec.name))
+						return true;
+
+		return false;
+	}
+
+	/**
+	 * @param variables	The values of the variables (the missing ones are undefined).
+	 * @param uri		Where the expanded URI is appended.
+	 * @return	The StringBuilder.
+	 * @throws VariableExpansionException if a value can't be expanded.
+	 */
+	StringBuilder expand(Map<String, Object> variables, StringBuilder uri) throws VariableExpansionException {
+		if (parts == null || !isSupported(variables, parameters))
+			return uri.append(UriTemplate.fromTemplate(template).set(variables).expand());
+
+		for (Object part : parts) {
+			if (part instanceof String)
+				uri.append((String) part);
+			else
+				((Expression) part).expand(variables, uri);
+		}
+
+		return uri;
+	}
+
+	/**
+	 * @param parameters	Whether the template has the ; operator, that UriTemplate
+	 * 						expands in its own way with the empty values.
+	 * @return	Whether all the values are expanded here.
+	 */
+	private static boolean isSupported(Map<String, Object> variables, boolean parameters) {
+		for (Object value : variables.values()) {
+			if (value instanceof Collection) {
+				for (Object item : (Collection<?>) value)
+					if (!isSimple(item) || parameters && item.toString().isEmpty())
+						return false;
+			} else if (value instanceof Map) {
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+					if (!(entry.getKey() instanceof String) || !isSimple(entry.getValue()) ||
+						parameters && (((String) entry.getKey()).isEmpty() || entry.getValue().toString().isEmpty()))
+						return false;
+			} else if (value != null && (!isSimple(value) || parameters && value.toString().isEmpty())) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isSimple(Object value) {
+		return value instanceof CharSequence || value instanceof Number ||
+			value instanceof Boolean || value instanceof UUID;
+	}
+
+	/**
+	 * @return	The parts, or null if the template is not supported here.
+	 */
+	private static Object[] parse(String template) {
+		List<Object> parts = new ArrayList<Object>();
+		int start = 0;
+		int length = template.length();
+		while (start < length) {
+			int open = template.indexOf('{', start);
+			int close = template.indexOf('}', start);
+			if (open == -1) {
+				if (close != -1)
+					return null;
+				parts.add(template.substring(start));
+				break;
+			}
+			if (close != -1 && close < open)
+				return null;
+			if (open > start)
+				parts.add(template.substring(start, open));
+
+			close = template.indexOf('}', open);
+			if (close == -1 || template.indexOf('{', open + 1) != -1 && template.indexOf('{', open + 1) < close)
+				return null;
+
+			Expression expression = Expression.parse(template.substring(open + 1, close));
+			if (expression == null)
+				return null;
+			parts.add(expression);
+			start = close + 1;
+		}
+
+		return parts.toArray();
+	}
+
+	/**
+	 * A cached template and whether it has been used
+	 * since the previous eviction.
+	 */
+	private static final class CachedTemplate {
+		private final CompiledUriTemplate template;
+		private volatile boolean used;
+
+		private CachedTemplate(CompiledUriTemplate template) {
+			this.template = template;
+		}
+	}
+
+	/**
+	 * An expression: its operator and its variables.
+	 */
+	private static final class Expression {
+		private final String first;
+		private final char separator;
+		private final boolean named;
+		private final String ifEmpty;
+		private final boolean allowReserved;
+		private final VarSpec[] varSpecs;
+
+		private Expression(char operator, VarSpec[] varSpecs) {
+			this.varSpecs = varSpecs;
+			switch (operator) {
+				case '+':	first = "";		separator = ',';	named = false;	ifEmpty = "";	allowReserved = true;	break;
+				case '.':	first = ".";	separator = '.';	named = false;	ifEmpty = "";	allowReserved = false;	break;
+				case '/':	first = "/";	separator = '/';	named = false;	ifEmpty = "";	allowReserved = false;	break;
+				case ';':	first = ";";	separator = ';';	named = true;	ifEmpty = "";	allowReserved = false;	break;
+				case '?':	first = "?";	separator = '&';	named = true;	ifEmpty = "=";	allowReserved = false;	break;
+				case '&':	first = "&";	separator = '&';	named = true;	ifEmpty = "=";	allowReserved = false;	break;
+				case '#':	first = "#";	separator = ',';	named = false;	ifEmpty = "";	allowReserved = true;	break;
+				default:	first = "";		separator = ',';	named = false;	ifEmpty = "";	allowReserved = false;	break;
+			}
+		}
+
+		/**
+		 * @param expression	The expression, without its braces.
+		 * @return	The expression, or null if it is not supported here.
+		 */
+		private static Expression parse(String expression) {
+			if (expression.isEmpty())
+				return null;
+
+			char operator = expression.charAt(0);
+			String variableList = expression;
+			if ("+#./;?&".indexOf(operator) != -1)
+				variableList = expression.substring(1);
+			else if (!isVarChar(operator))
+				return null;
+			else
+				operator = 0;
+
+			String[] names = variableList.split(",", -1);
+			VarSpec[] varSpecs = new VarSpec[names.length];
+			for (int i = 0; i < names.length; i++)
+				if ((varSpecs[i] = VarSpec.parse(names[i])) == null)
+					return null;
+
+			return new Expression(operator, varSpecs);
+		}
+
+		/**
+		 * As UriTemplate, a separator is only appended after a non-empty value.
+		 */
+		private void expand(Map<String, Object> variables, StringBuilder uri) throws VariableExpansionException {
+			boolean firstValue = true;
+			boolean separate = false;
+			for (VarSpec varSpec : varSpecs) {
+				Object value = variables.get(varSpec.name);
+				boolean composite = value instanceof Collection || value instanceof Map;
+				if (composite && varSpec.maxLength > 0)
+					throw new VariableExpansionException("Prefix modifiers are not applicable to variables that have composite values.");
+				if (value == null ||
+					value instanceof Collection && ((Collection<?>) value).isEmpty() ||
+					value instanceof Map && ((Map<?, ?>) value).isEmpty())
+					continue;
+
+				if (firstValue)
+					uri.append(first);
+				else if (separate)
+					uri.append(separator);
+				firstValue = false;
+
+				int start = uri.length();
+				if (value instanceof Collection) {
+					expandCollection(varSpec, (Collection<?>) value, uri);
+				} else if (value instanceof Map) {
+					expandMap(varSpec, (Map<?, ?>) value, uri);
+				} else {
+					String string = value.toString();
+					if (named) {
+						uri.append(varSpec.name);
+						if (string.isEmpty())
+							uri.append(ifEmpty);
+						else
+							uri.append('=');
+					}
+					// As UriTemplate, the prefix is counted in chars, not code points
+					if (varSpec.maxLength > 0 && string.length() > varSpec.maxLength)
+						string = string.substring(0, varSpec.maxLength);
+					encode(string, uri);
+				}
+				separate = uri.length() > start;
+			}
+		}
+
+		private void expandCollection(VarSpec varSpec, Collection<?> values, StringBuilder uri) {
+			boolean firstValue = true;
+			boolean separate = false;
+			if (named && !varSpec.explode)
+				uri.append(varSpec.name).append('=');
+			for (Object value : values) {
+				String string = value.toString();
+				if (!firstValue && separate)
+					uri.append(varSpec.explode ? separator : ',');
+				firstValue = false;
+
+				int start = uri.length();
+				if (named && varSpec.explode) {
+					uri.append(varSpec.name);
+					if (string.isEmpty())
+						uri.append(ifEmpty);
+					else
+						uri.append('=');
+				}
+				encode(string, uri);
+				separate = uri.length() > start;
+			}
+		}
+
+		private void expandMap(VarSpec varSpec, Map<?, ?> values, StringBuilder uri) {
+			boolean firstValue = true;
+			if (!varSpec.explode) {
+				if (named)
+					uri.append(varSpec.name).append('=');
+				for (Map.Entry<?, ?> entry : values.entrySet()) {
+					if (!firstValue)
+						uri.append(',');
+					encode((String) entry.getKey(), uri);
+					uri.append(',');
+					encode(entry.getValue().toString(), uri);
+					firstValue = false;
+				}
+			} else {
+				for (Map.Entry<?, ?> entry : values.entrySet()) {
+					if (!firstValue)
+						uri.append(separator);
+					encode((String) entry.getKey(), uri);
+					String string = entry.getValue().toString();
+					if (named && string.isEmpty())
+						uri.append(ifEmpty);
+					else {
+						uri.append('=');
+						encode(string, uri);
+					}
+					firstValue = false;
+				}
+			}
+		}
+
+		/**
+		 * Percent-encodes (UTF-8) all but the unreserved characters,
+		 * and the reserved characters and the percent-encoded triplets
+		 * too with the + and # operators.
+		 */
+		private void encode(String value, StringBuilder uri) {
+			for (int i = 0, length = value.length(); i < length; i++) {
+				char c = value.charAt(i);
+				if (isUnreserved(c) || allowReserved && isReserved(c)) {
+					uri.append(c);
+				} else if (allowReserved && c == '%' && i + 2 < length &&
+					isHexDigit(value.charAt(i + 1)) && isHexDigit(value.charAt(i + 2))) {
+					uri.append(value, i, i + 3);
+					i += 2;
+				} else if (c < 0x80) {
+					appendEncoded(c, uri);
+				} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+					for (byte b : value.substring(i, i + 2).getBytes(StandardCharsets.UTF_8))
+						appendEncoded(b & 0xFF, uri);
+					i++;
+				} else if (Character.isSurrogate(c)) {
+					// A lone surrogate is replaced by a question mark
+					if (allowReserved)
+						uri.append('?');
+					else
+						appendEncoded('?', uri);
+				} else {
+					for (byte b : String.valueOf(c).getBytes(StandardCharsets.UTF_8))
+						appendEncoded(b & 0xFF, uri);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A variable of an expression, with its prefix or explode modifier.
+	 */
+	private static final class VarSpec {
+		private final String name;
+		private final int maxLength;
+		private final boolean explode;
+
+		private VarSpec(String name, int maxLength, boolean explode) {
+			this.name = name;
+			this.maxLength = maxLength;
+			this.explode = explode;
+		}
+
+		/**
+		 * @return	The variable, or null if it is not supported here.
+		 */
+		private static VarSpec parse(String varSpec) {
+			String name = varSpec;
+			int maxLength = 0;
+			boolean explode = false;
+			if (varSpec.endsWith("*")) {
+				name = varSpec.substring(0, varSpec.length() - 1);
+				explode = true;
+			} else {
+				int colon = varSpec.indexOf(':');
+				if (colon != -1) {
+					name = varSpec.substring(0, colon);
+					String prefix = varSpec.substring(colon + 1);
+					if (prefix.isEmpty() || prefix.length() > 4 || prefix.charAt(0) == '0')
+						return null;
+					for (int i = 0; i < prefix.length(); i++)
+						if (prefix.charAt(i) < '0' || prefix.charAt(i) > '9')
+							return null;
+					maxLength = Integer.parseInt(prefix);
+				}
+			}
+
+			if (name.isEmpty())
+				return null;
+			for (int i = 0; i < name.length(); i++)
+				if (!isVarChar(name.charAt(i)))
+					return null;
+
+			return new VarSpec(name, maxLength, explode);
+		}
+	}
+
+	/**
+	 * The characters supported here in a variable name
+	 * (no percent-encoded ones).
+	 */
+	private static boolean isVarChar(char c) {
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_' || c == '.';
+	}
+
+	private static boolean isUnreserved(char c) {
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' ||
+			c == '-' || c == '.' || c == '_' || c == '~';
+	}
+
+	/**
+	 * The reserved characters, but the brackets that UriTemplate encodes.
+	 */
+	private static boolean isReserved(char c) {
+		return ":/?#@!$&'()*+,;=".indexOf(c) != -1;
+	}
+
+	private static boolean isHexDigit(char c) {
+		return c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F';
+	}
+
+	private static void appendEncoded(int b, StringBuilder uri) {
+		uri.append('%').append(HEX[b >> 4]).append(HEX[b & 0xF]);
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.slimpay.hapiclient.http;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.slimpay.hapiclient.hal.Resource;
+
+/**
+ * Sends requests concurrently, at most <code>maxConcurrency</code>
+ * at a time, and gathers the Resources in the order of the requests.
+ * @see HapiClient#sendAllAsync(Follow, Resource, int, boolean)
+ */
+final class FanOut {
+	private final HapiClient client;
+	private final List<Request> requests;
+	private final boolean failFast;
+
+	private final Resource[] resources;
+	private final Throwable[] failures;
+	private final AtomicReferenceArray<CompletableFuture<Resource>> inFlight;
+	private final CompletableFuture<FanOutResult> result = new CompletableFuture<FanOutResult>();
+
+	/**
+	 * The index of the next request to send.
+	 */
+	private int next;
+	/**
+	 * The number of requests that may be sent right now.
+	 */
+	private final AtomicInteger permits;
+	private final AtomicInteger remaining;
+	/**
+	 * The number of drain calls missed while a thread
+	 * was sending the requests (work in progress).
+	 */
+	private final AtomicInteger wip = new AtomicInteger();
+
+	FanOut(final HapiClient client, final List<Request> requests, final int maxConcurrency, final boolean failFast) {
+		if (maxConcurrency <= 0)
+			throw new IllegalArgumentException("The maximum concurrency must be positive.");
+
+		this.client = client;
+		this.requests = requests;
+		this.failFast = failFast;
+		this.resources = new Resource[requests.size()];
+		this.failures = new Throwable[requests.size()];
+		this.inFlight = new AtomicReferenceArray<CompletableFuture<Resource>>(requests.size());
+		this.permits = new AtomicInteger(maxConcurrency);
+		this.remaining = new AtomicInteger(requests.size());
+	}
+
+	/**
+	 * Starts sending the requests.
+	 * @return	The future result, completed exceptionally with the first failure
+	 * 			if the fan-out fails fast. Cancelling it cancels the requests.
+	 */
+	CompletableFuture<FanOutResult> send() {
+		result.whenComplete((value, failure) -> {
+			if (failure != null)
+				cancelAll();
+		});
+
+		if (requests.isEmpty())
+			result.complete(new FanOutResult(resources, failures));
+		else
+			drain();
+
+		return result;
+	}
+
+	/**
+	 * Sends the next requests while permits are left. Only one thread at a
+	 * time runs the loop, so that the requests completed synchronously
+	 * (e.g. cached) don't make the stack grow.
+	 */
+	private void drain() {
+		if (wip.getAndIncrement() != 0)
+			return;
+
+		int missed = 1;
+		do {
+			while (next < requests.size() && permits.get() > 0 && !result.isDone()) {
+				permits.decrementAndGet();
+				sendRequest(next++);
+			}
+
+			missed = wip.addAndGet(-missed);
+		} while (missed != 0);
+	}
+
+	private void sendRequest(final int index) {
+		CompletableFuture<Resource> resource = client.sendAsync(requests.get(index));
+		inFlight.set(index, resource);
+		if (result.isCompletedExceptionally())
+			resource.cancel(true);
+		resource.whenComplete((value, failure) -> {
+			inFlight.set(index, null);
+			if (failure != null) {
+				failure = failure instanceof CompletionException && failure.getCause() != null ?
+					failure.getCause() : failure;
+				if (failFast) {
+					result.completeExceptionally(failure);
+					return;
+				}
+				failures[index] = failure;
+			} else {
+				resources[index] = value;
+			}
+
+			if (remaining.decrementAndGet() == 0) {
+				result.complete(new FanOutResult(resources, failures));
+			} else {
+				permits.incrementAndGet();
+				drainOffIoThread();
+			}
+		});
+	}
+
+	/**
+	 * Sends the next requests from a task of the client: the responses are
+	 * received by the I/O dispatcher threads, which must not block while
+	 * the next requests are authorized (e.g. waiting for a new token).
+	 */
+	private void drainOffIoThread() {
+		try {
+			client.executeBlocking(this::drain);
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(e);
+		}
+	}
+
+	private void cancelAll() {
+		for (int i = 0; i < inFlight.length(); i++) {
+			CompletableFuture<Resource> resource = inFlight.get(i);
+			if (resource != null)
+				resource.cancel(true);
+		}
+	}
+
+}
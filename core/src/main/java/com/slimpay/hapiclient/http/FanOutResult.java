@@ -0,0 +1,53 @@
+package com.slimpay.hapiclient.http;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.slimpay.hapiclient.hal.Resource;
+
+/**
+ * The Resources returned for each link of a relation type,
+ * in the order of the links.
+ * @see HapiClient#sendAll(Follow, Resource, int, boolean)
+ */
+public final class FanOutResult {
+	private final List<Resource> resources;
+	private final List<Throwable> failures;
+	private final boolean failed;
+
+	FanOutResult(Resource[] resources, Throwable[] failures) {
+		this.resources = Collections.unmodifiableList(Arrays.asList(resources));
+		this.failures = Collections.unmodifiableList(Arrays.asList(failures));
+
+		boolean failed = false;
+		for (Throwable failure : failures)
+			failed = failed || failure != null;
+		this.failed = failed;
+	}
+
+	/**
+	 * @return	The Resource returned for each link, or null
+	 * 			if the request failed (Read-Only).
+	 */
+	public List<Resource> getResources() {
+		return resources;
+	}
+
+	/**
+	 * @return	The failure of the request of each link (usually an
+	 * 			{@link com.slimpay.hapiclient.exception.HttpException}),
+	 * 			or null if it succeeded (Read-Only).
+	 */
+	public List<Throwable> getFailures() {
+		return failures;
+	}
+
+	/**
+	 * @return	Whether the request of any link failed.
+	 */
+	public boolean hasFailures() {
+		return failed;
+	}
+
+}
@@ -10,6 +10,7 @@ import com.slimpay.hapiclient.exception.LinkNotUniqueException;
 import com.slimpay.hapiclient.exception.RelNotFoundException;
 import com.slimpay.hapiclient.hal.Rel;
 import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.auth.AuthenticationMethod;
 
 /**
  * The configuration for a request to the given 
@@ -23,8 +24,9 @@ public final class Follow extends AbstractRequest {
 	/**
 	 * @see Builder#Builder(Rel)
 	 */
-	private Follow(Rel rel, Method method, Map<String, Object> urlVariables, HttpEntity messageBody, List<Header> headers) {
-		super(method, urlVariables, messageBody, headers);
+	private Follow(Rel rel, Method method, Map<String, Object> urlVariables, HttpEntity messageBody, List<Header> headers,
+			AuthenticationMethod authenticationMethod) {
+		super(method, urlVariables, messageBody, headers, authenticationMethod);
 		this.rel = rel;
 	}
 	
@@ -103,6 +105,12 @@ public final class Follow extends AbstractRequest {
 			super.addHeaders(headers);
 			return this;
 		}
+
+		@Override
+		public Builder setAuthenticationMethod(AuthenticationMethod authenticationMethod) {
+			super.setAuthenticationMethod(authenticationMethod);
+			return this;
+		}
 		
 		/**
 		 * Instantiates the Follow object.
@@ -110,7 +118,7 @@ public final class Follow extends AbstractRequest {
 		 */
 		@Override
 		public Follow build() {
-			return new Follow(rel, method, urlVariables, messageBody, headers);
+			return new Follow(rel, method, urlVariables, messageBody, headers, authenticationMethod);
 		}
 
 	}
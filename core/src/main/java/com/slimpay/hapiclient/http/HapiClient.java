@@ -2,13 +2,42 @@ package com.slimpay.hapiclient.http;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.json.JsonException;
+import javax.json.JsonWriter;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
@@ -18,22 +47,29 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
 import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
 
-import com.damnhandy.uri.template.UriTemplate;
 import com.slimpay.hapiclient.exception.HttpClientErrorException;
 import com.slimpay.hapiclient.exception.HttpException;
 import com.slimpay.hapiclient.exception.HttpRedirectionException;
 import com.slimpay.hapiclient.exception.HttpServerErrorException;
 import com.slimpay.hapiclient.exception.RelNotFoundException;
 import com.slimpay.hapiclient.exception.UnparsableResponseException;
+import com.slimpay.hapiclient.hal.Link;
+import com.slimpay.hapiclient.hal.Rel;
 import com.slimpay.hapiclient.hal.RegisteredRel;
 import com.slimpay.hapiclient.hal.Resource;
 import com.slimpay.hapiclient.http.auth.AuthenticationMethod;
+import com.slimpay.hapiclient.json.JsonProviders;
 import com.slimpay.hapiclient.util.EntityConverter;
 
 /**
@@ -63,6 +99,17 @@ import com.slimpay.hapiclient.util.EntityConverter;
  *} catch (HttpException e) {
  *	// ...
  *}</code></pre>
+ * 
+ * The same request can be sent without blocking the calling thread:
+ * 
+ *<pre><code>hapiClient.sendAsync(follow).whenComplete((creditor, failure) -&gt; {
+ *	// failure is the HttpException (or any other exception)
+ *	// that send(follow) would have thrown.
+ *});</code></pre>
+ * 
+ * No method of the client holds a monitor while waiting for the network
+ * so the blocking methods can also be called from virtual threads.
+ * @see Builder#setAsyncVirtualThreads(boolean)
  */
 public final class HapiClient implements Closeable {
 	private final String apiUrl;
@@ -71,8 +118,33 @@ public final class HapiClient implements Closeable {
 	private final AuthenticationMethod authenticationMethod;
 	
 	private final CloseableHttpClient client;
+	private final HttpAsyncClientBuilder asyncClientBuilder;
+	private final Executor executor;
+	private final boolean executorOwned;
+	
+	private final Lock asyncClientLock = new ReentrantLock();
+	private volatile CloseableHttpAsyncClient asyncClient;
+	private boolean closed;
+	
+	private final Lock entryPointLock = new ReentrantLock();
+	private volatile EntryPoint entryPoint;
+	private final long entryPointTtlNanos;
+	private final AtomicBoolean entryPointRevalidating = new AtomicBoolean();
+	/**
+	 * The asynchronous request of the entry point in progress, shared by the callers.
+	 */
+	private final AtomicReference<CompletableFuture<Resource>> entryPointExchange =
+			new AtomicReference<CompletableFuture<Resource>>();
+	/**
+	 * The delay before validating a snapshot again after
+	 * a failure when the entry point is kept forever.
+	 */
+	private static final long SNAPSHOT_RETRY_NANOS = TimeUnit.MINUTES.toNanos(1);
 	
-	private Resource entryPointResource;
+	private final ResponseCache responseCache;
+	private final RequestCoalescer requestCoalescer;
+	private final RetryPolicy retryPolicy;
+	private final boolean lazyResources;
 	
 	/**
 	 * @see Builder#Builder()
@@ -82,12 +154,31 @@ public final class HapiClient implements Closeable {
 			final String entryPointUrl,
 			final String profile,
 			final AuthenticationMethod authenticationMethod,
-			final CloseableHttpClient client) {
+			final CloseableHttpClient client,
+			final HttpAsyncClientBuilder asyncClientBuilder,
+			final Executor executor,
+			final boolean executorOwned,
+			final ResponseCache responseCache,
+			final RequestCoalescer requestCoalescer,
+			final RetryPolicy retryPolicy,
+			final boolean lazyResources,
+			final long entryPointTtlNanos,
+			final Resource entryPointSnapshot) {
 		this.apiUrl = apiUrl;
 		this.entryPointUrl = entryPointUrl;
 		this.profile = profile;
 		this.authenticationMethod = authenticationMethod;
 		this.client = client;
+		this.asyncClientBuilder = asyncClientBuilder;
+		this.executor = executor;
+		this.executorOwned = executorOwned;
+		this.responseCache = responseCache;
+		this.requestCoalescer = requestCoalescer;
+		this.retryPolicy = retryPolicy;
+		this.lazyResources = lazyResources;
+		this.entryPointTtlNanos = entryPointTtlNanos;
+		if (entryPointSnapshot != null)
+			this.entryPoint = new EntryPoint(entryPointSnapshot, null, null, System.nanoTime(), false);
 	}
 	
 	/**
@@ -141,14 +232,232 @@ public final class HapiClient implements Closeable {
 			throws HttpException {
 		// Create the HTTP request
 		HttpRequestBase httpRequest = createHttpRequest(request);
+		AuthenticationMethod authenticationMethod = getAuthenticationMethod(request);
+		
+		// Share the exchange of an identical request in progress if possible
+		ResponseCache.Key key = requestCoalescer != null ? ResponseCache.keyOf(httpRequest, authenticationMethod) : null;
+		if (key == null)
+			return sendHttpRequest(httpRequest, authenticationMethod);
+		
+		CompletableFuture<Resource> exchange = new CompletableFuture<Resource>();
+		CompletableFuture<Resource> sharedExchange = requestCoalescer.join(key, exchange);
+		if (sharedExchange != null)
+			return await(sharedExchange);
+		
+		try {
+			Resource resource = sendHttpRequest(httpRequest, authenticationMethod);
+			requestCoalescer.leave(key, exchange);
+			exchange.complete(resource);
+			return resource;
+		} catch (HttpException | RuntimeException | Error e) {
+			requestCoalescer.leave(key, exchange);
+			exchange.completeExceptionally(e);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Sends the HTTP request, unless the Resource is fresh in the cache.
+	 * @param httpRequest			The HTTP request to send.
+	 * @param authenticationMethod	The authentication method of the request, or null.
+	 * @return	The {@link Resource} returned by the server.
+	 * @throws	HttpException if the request fails.
+	 */
+	private Resource sendHttpRequest(final HttpRequestBase httpRequest, final AuthenticationMethod authenticationMethod)
+			throws HttpException {
+		// Serve it from the cache if possible
+		ResponseCache.Lookup lookup = lookupResponseCache(httpRequest, authenticationMethod);
+		if (lookup != null && lookup.isFresh())
+			return lookup.getResource();
+		
+		// Execute it
+		CloseableHttpResponse httpResponse = executeHttpRequest(httpRequest, authenticationMethod);
+		
+		return handleResponse(httpRequest, httpResponse, lookup);
+	}
+	
+	/**
+	 * Sends a request to an absolute or relative URL
+	 * (if {@link Builder#setApiUrl(String)} is set)
+	 * without blocking the calling thread while waiting for the response.
+	 * <p>
+	 * The returned future is completed exceptionally with the same exception
+	 * {@link #send(Request)} would have thrown (an {@link HttpException}
+	 * if the status code is not 2xx).
+	 * Cancelling it aborts the HTTP exchange (unless the GET requests are coalesced, see
+	 * {@link Builder#setRequestCoalescing(boolean)}).
+	 * <p>
+	 * Note: unless an {@link Builder#setExecutor(Executor) executor} is set,
+	 * the {@link AuthenticationMethod} is called from the calling thread
+	 * and may block it while it requests a new access token.
+	 * @param request	The {@link Request}
+	 * @return	The future {@link Resource} returned by the server.
+	 */
+	public CompletableFuture<Resource> sendAsync(final Request request) {
+		// Create the HTTP request
+		final HttpRequestBase httpRequest;
+		try {
+			httpRequest = createHttpRequest(request);
+		} catch (RuntimeException e) {
+			return failedFuture(e);
+		}
+		
+		final AuthenticationMethod authenticationMethod = getAuthenticationMethod(request);
+		
+		// Share the exchange of an identical request in progress if possible
+		final ResponseCache.Key key = requestCoalescer != null ? ResponseCache.keyOf(httpRequest, authenticationMethod) : null;
+		if (key == null)
+			return sendHttpRequestAsync(httpRequest, authenticationMethod);
+		
+		final CompletableFuture<Resource> exchange = new CompletableFuture<Resource>();
+		CompletableFuture<Resource> sharedExchange = requestCoalescer.join(key, exchange);
+		if (sharedExchange == null) {
+			sharedExchange = exchange;
+			sendHttpRequestAsync(httpRequest, authenticationMethod).whenComplete((resource, failure) -> {
+				requestCoalescer.leave(key, exchange);
+				if (failure != null)
+					exchange.completeExceptionally(unwrap(failure));
+				else
+					exchange.complete(resource);
+			});
+		}
+		
+		// Cancelling it doesn't abort the shared exchange
+		final CompletableFuture<Resource> resource = new CompletableFuture<Resource>();
+		sharedExchange.whenComplete((value, failure) -> {
+			if (failure != null)
+				resource.completeExceptionally(unwrap(failure));
+			else
+				resource.complete(value);
+		});
+		
+		return resource;
+	}
+	
+	/**
+	 * Asynchronous version of {@link #sendHttpRequest(HttpRequestBase, AuthenticationMethod)}.
+	 * @param httpRequest			The HTTP request to send.
+	 * @param authenticationMethod	The authentication method of the request, or null.
+	 * @return	The future {@link Resource} returned by the server.
+	 */
+	private CompletableFuture<Resource> sendHttpRequestAsync(final HttpRequestBase httpRequest,
+			final AuthenticationMethod authenticationMethod) {
+		// Serve it from the cache if possible
+		final ResponseCache.Lookup lookup = lookupResponseCache(httpRequest, authenticationMethod);
+		if (lookup != null && lookup.isFresh())
+			return CompletableFuture.completedFuture(lookup.getResource());
+		
+		if (executor != null)
+			return sendOnExecutor(httpRequest, authenticationMethod, lookup);
 		
 		// Execute it
-		CloseableHttpResponse httpResponse = executeHttpRequest(httpRequest);
+		final CompletableFuture<CloseableHttpResponse> exchange =
+				executeHttpRequestAsync(httpRequest, authenticationMethod);
 		
+		final CompletableFuture<Resource> resource = new CompletableFuture<Resource>();
+		exchange.whenComplete((httpResponse, failure) -> {
+			if (failure != null) {
+				resource.completeExceptionally(unwrap(failure));
+				return;
+			}
+			
+			try {
+				resource.complete(handleResponse(httpRequest, httpResponse, lookup));
+			} catch (Throwable e) {
+				resource.completeExceptionally(e);
+			}
+		});
+		cancelOnCancellation(resource, exchange);
+		
+		return resource;
+	}
+	
+	/**
+	 * Sends the HTTP request with the blocking client
+	 * from a task submitted to the {@link Builder#setExecutor(Executor) executor}.
+	 * @param httpRequest	The HTTP request to send.
+	 * @param authenticationMethod	The authentication method of the request, or null.
+	 * @param lookup	The response cache lookup, or null.
+	 * @return	The future Resource returned by the server.
+	 */
+	private CompletableFuture<Resource> sendOnExecutor(final HttpRequestBase httpRequest,
+			final AuthenticationMethod authenticationMethod, final ResponseCache.Lookup lookup) {
+		final CompletableFuture<Resource> resource = new CompletableFuture<Resource>();
+		try {
+			executor.execute(() -> {
+				if (resource.isDone())
+					return;
+				
+				try {
+					resource.complete(handleResponse(httpRequest,
+						executeHttpRequest(httpRequest, authenticationMethod), lookup));
+				} catch (Throwable e) {
+					resource.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			resource.completeExceptionally(e);
+		}
+		
+		resource.whenComplete((value, failure) -> {
+			if (resource.isCancelled())
+				httpRequest.abort();
+		});
+		
+		return resource;
+	}
+	
+	/**
+	 * @param httpRequest			The HTTP request about to be sent.
+	 * @param authenticationMethod	The authentication method of the request, or null.
+	 * @return	The response cache lookup, or null if there is no
+	 * 			response cache or the request cannot use it.
+	 */
+	private ResponseCache.Lookup lookupResponseCache(HttpRequestBase httpRequest, AuthenticationMethod authenticationMethod) {
+		return responseCache != null ? responseCache.lookup(httpRequest, authenticationMethod) : null;
+	}
+	
+	/**
+	 * Same as {@link #handleResponse(HttpRequestBase, CloseableHttpResponse)}
+	 * but also returns the cached Resource if it has not been modified
+	 * and updates the response cache.
+	 * @param httpRequest	The HTTP request that was sent.
+	 * @param httpResponse	The HTTP response received.
+	 * @param lookup		The response cache lookup, or null.
+	 * @return	The Resource returned by the server or the cached one.
+	 * @throws HttpException if the status code is not 2xx (nor 304 for a cached Resource).
+	 */
+	private Resource handleResponse(HttpRequestBase httpRequest, CloseableHttpResponse httpResponse,
+			ResponseCache.Lookup lookup) throws HttpException {
+		if (responseCache == null)
+			return handleResponse(httpRequest, httpResponse);
+		
+		if (lookup != null && lookup.isHit() && httpResponse.getStatusLine().getStatusCode() == 304) {
+			closeResponseQuietly(httpResponse);
+			return responseCache.revalidated(lookup, httpResponse);
+		}
+		
+		Resource resource = handleResponse(httpRequest, httpResponse);
+		responseCache.store(httpRequest, lookup, httpResponse, resource);
+		return resource;
+	}
+	
+	/**
+	 * Turns the HTTP response into a Resource if the
+	 * status code is 2xx or into the matching HttpException.
+	 * <p>
+	 * The HTTP response is closed in both cases.
+	 * @param httpRequest	The HTTP request that was sent.
+	 * @param httpResponse	The HTTP response received.
+	 * @return	The Resource returned by the server.
+	 * @throws HttpException if the status code is not 2xx.
+	 */
+	private Resource handleResponse(HttpRequestBase httpRequest, CloseableHttpResponse httpResponse)
+			throws HttpException {
 		// Check the status code (must be 2xx)
 		int statusCode = httpResponse.getStatusLine().getStatusCode();
 		if (statusCode >= 200 && statusCode < 300)
-			return Resource.fromJson(consumeResponse(httpResponse));
+			return parseResponse(httpResponse, lazyResources);
 
 		// Request is not a success but we still try to get a body from the response
 		String responseBody;
@@ -169,6 +478,39 @@ public final class HapiClient implements Closeable {
 			throw new HttpException(httpRequest, httpResponse, responseBody);
 	}
 
+	/**
+	 * Parses the HTTP response body message into a Resource
+	 * while it is received (see {@link Resource#fromJson(java.io.Reader)}),
+	 * using the charset of the response (UTF-8 by default).
+	 * <p>
+	 * The HTTP response is then closed.
+	 * @param httpResponse The HTTP response.
+	 * @param lazy	Whether to build a lazy Resource (see {@link Resource#fromJsonLazily(Reader)}).
+	 * @return The Resource (empty if there is no body message).
+	 * @throws UnparsableResponseException if the response is unreadable.
+	 * @throws JsonException if the body message is not a JSON object.
+	 */
+	private static Resource parseResponse(CloseableHttpResponse httpResponse, boolean lazy)
+			throws UnparsableResponseException {
+		try {
+			HttpEntity entity = httpResponse.getEntity();
+			if (entity == null)
+				return Resource.fromJson((String) null);
+			
+			Reader reader;
+			try {
+				Charset charset = ContentType.getOrDefault(entity).getCharset();
+				reader = new InputStreamReader(entity.getContent(), charset != null ? charset : StandardCharsets.UTF_8);
+			} catch (IOException | RuntimeException e) {
+				throw new UnparsableResponseException("Couldn't parse response entity.", e);
+			}
+			
+			return lazy ? Resource.fromJsonLazily(reader) : Resource.fromJson(reader);
+		} finally {
+			closeResponseQuietly(httpResponse);
+		}
+	}
+	
 	/**
 	 * Consumes the HTTP response body message
 	 * and returns its String representation.
@@ -223,18 +565,150 @@ public final class HapiClient implements Closeable {
 	 */
 	public Resource send(final Follow follow, final Resource resource)
 			throws HttpException, RelNotFoundException {
+		Resource embeddedResource = resource.findEmbeddedResource(follow.getRel());
+		if (embeddedResource != null)
+			return embeddedResource;
+		
+		return send(toRequest(follow, resource));
+	}
+	
+	/**
+	 * Asynchronous version of {@link #send(Follow)}.
+	 * @param follow	The Follow object containing the relation name,
+	 * 					the method and eventually the data and/or headers.
+	 * @return The future Resource returned by the server.
+	 * @see #sendAsync(Request)
+	 */
+	public CompletableFuture<Resource> sendAsync(final Follow follow) {
+		return getEntryPointResourceAsync().thenCompose(entryPoint -> sendAsync(follow, entryPoint));
+	}
+	
+	/**
+	 * Asynchronous version of {@link #send(Follow, Resource)}.
+	 * <p>
+	 * The future is already completed if the Resource is embedded
+	 * or if the Relation Name is inexistant in the Resource
+	 * (with a {@link RelNotFoundException}).
+	 * @param follow	The Follow object containing the relation name,
+	 * 					the method and eventually the data and/or headers.
+	 * @param resource	The resource containing the link
+	 * @return The future Resource returned by the server.
+	 * @see #sendAsync(Request)
+	 */
+	public CompletableFuture<Resource> sendAsync(final Follow follow, final Resource resource) {
+		final Request request;
+		try {
+			Resource embeddedResource = resource.findEmbeddedResource(follow.getRel());
+			if (embeddedResource != null)
+				return CompletableFuture.completedFuture(embeddedResource);
+			
+			request = toRequest(follow, resource);
+		} catch (RuntimeException e) {
+			return failedFuture(e);
+		}
+		
+		return sendAsync(request);
+	}
+	
+	/**
+	 * Follows all the links of a relation type on a Resource concurrently,
+	 * e.g. to get all the Resources linked by an array of links
+	 * in about the time of a single request.
+	 * <p>
+	 * If the Resources are embedded, they are returned straight away
+	 * (see the hypertext cache pattern of {@link #send(Follow, Resource)}).
+	 * @param follow			The Follow object containing the relation name,
+	 * 							the method and eventually the data and/or headers,
+	 * 							used for each link.
+	 * @param resource			The resource containing the links.
+	 * @param maxConcurrency	The maximum number of requests sent at the same time.
+	 * @param failFast			Whether to stop at the first failure (throwing it
+	 * 							and cancelling the other requests) rather than
+	 * 							collecting the failures in the result.
+	 * @return	The Resources returned for each link, in the order of the links.
+	 * @throws HttpException if a request fails and failFast is true.
+	 * @throws RelNotFoundException if the Relation Name is inexistant in the Resource.
+	 */
+	public FanOutResult sendAll(final Follow follow, final Resource resource,
+			final int maxConcurrency, final boolean failFast)
+			throws HttpException, RelNotFoundException {
+		return await(sendAllAsync(follow, resource, maxConcurrency, failFast));
+	}
+	
+	/**
+	 * Asynchronous version of {@link #sendAll(Follow, Resource, int, boolean)}.
+	 * <p>
+	 * The future is completed exceptionally with the first failure if
+	 * failFast is true. Cancelling it cancels the requests in progress.
+	 * @param follow			The Follow object used for each link.
+	 * @param resource			The resource containing the links.
+	 * @param maxConcurrency	The maximum number of requests sent at the same time.
+	 * @param failFast			Whether to stop at the first failure.
+	 * @return	The future Resources returned for each link, in the order of the links.
+	 * @see #sendAsync(Request)
+	 */
+	public CompletableFuture<FanOutResult> sendAllAsync(final Follow follow, final Resource resource,
+			final int maxConcurrency, final boolean failFast) {
+		final List<Request> requests;
 		try {
-			return resource.getEmbeddedResource(follow.getRel());
-		} catch (RelNotFoundException ignored) { }
-		
-		return send(
-			new Request.Builder(follow.getUrl(resource))
-				.setMethod(follow.getMethod())
-				.setUrlVariables(follow.getUrlVariables())
-				.setMessageBody(follow.getMessageBody())
-				.addHeaders(follow.getHeaders())
-				.build()
-		);
+			Object embeddedResources = resource.getAllEmbeddedResources().get(follow.getRel());
+			if (embeddedResources != null) {
+				Resource[] resources = embeddedResources instanceof Resource ?
+					new Resource[] { (Resource) embeddedResources } :
+					resource.getEmbeddedResources(follow.getRel()).toArray(new Resource[0]);
+				return CompletableFuture.completedFuture(new FanOutResult(resources, new Throwable[resources.length]));
+			}
+			
+			Object links = resource.getAllLinks().get(follow.getRel());
+			List<Link> linkList = links instanceof Link ?
+				Collections.singletonList((Link) links) : resource.getLinks(follow.getRel());
+			requests = new ArrayList<Request>(linkList.size());
+			for (Link link : linkList)
+				requests.add(toRequest(follow, link.getHref(), null));
+			
+			return new FanOut(this, requests, maxConcurrency, failFast).send();
+		} catch (RuntimeException e) {
+			return failedFuture(e);
+		}
+	}
+	
+	/**
+	 * Builds the Request following the link of the Resource.
+	 * @param follow	The Follow object.
+	 * @param resource	The resource containing the link.
+	 * @return	The Request to send.
+	 * @throws RelNotFoundException if the Relation Name is inexistant in the Resource.
+	 */
+	static Request toRequest(final Follow follow, final Resource resource) {
+		return toRequest(follow, follow.getUrl(resource), null);
+	}
+	
+	/**
+	 * Builds the Request following the link at the given URL.
+	 * @param follow		The Follow object.
+	 * @param url			The URL of the link.
+	 * @param urlVariables	URL variables added to the ones of the Follow object, or null.
+	 * @return	The Request to send.
+	 */
+	static Request toRequest(final Follow follow, final String url, final Map<String, Object> urlVariables) {
+		return new Request.Builder(url)
+			.setMethod(follow.getMethod())
+			.setUrlVariables(follow.getUrlVariables())
+			.setUrlVariables(urlVariables)
+			.setMessageBody(follow.getMessageBody())
+			.addHeaders(follow.getHeaders())
+			.setAuthenticationMethod(follow.getAuthenticationMethod())
+			.build();
+	}
+	
+	/**
+	 * @param request	The request to send.
+	 * @return	The authentication method overriding the one of the client
+	 * 			for this request if any, the one of the client otherwise.
+	 */
+	private AuthenticationMethod getAuthenticationMethod(Request request) {
+		AuthenticationMethod authenticationMethod = request.getAuthenticationMethod();
+		return authenticationMethod != null ? authenticationMethod : this.authenticationMethod;
 	}
 
 	/**
@@ -273,6 +747,107 @@ public final class HapiClient implements Closeable {
 		
 		return lastResource;
 	}
+	
+	/**
+	 * Asynchronous version of {@link #send(List)}.
+	 * @param follow	The list of Follow objects containing the relation name,
+	 * 					the method and eventually the data and/or headers.
+	 * @return The future Resource returned by the server.
+	 * @see #sendAsync(Request)
+	 */
+	public CompletableFuture<Resource> sendAsync(final List<Follow> follow) {
+		return getEntryPointResourceAsync().thenCompose(entryPoint -> sendAsync(follow, entryPoint));
+	}
+	
+	/**
+	 * Asynchronous version of {@link #send(List, Resource)}.
+	 * Each hop is only sent once the previous one completed.
+	 * @param follow	The list if Follow objects containing the relation name,
+	 * 					the method and eventually the data and/or headers.
+	 * @param resource	The resource containing the link
+	 * @return The future Resource returned by the server.
+	 * @see #sendAsync(Request)
+	 */
+	public CompletableFuture<Resource> sendAsync(final List<Follow> follow, final Resource resource) {
+		if (follow.size() == 0)
+			return failedFuture(new IllegalArgumentException("The follow list is empty."));
+		
+		CompletableFuture<Resource> lastResource = CompletableFuture.completedFuture(resource);
+		for (final Follow hop : follow)
+			lastResource = lastResource.thenCompose(previous -> sendAsync(hop, previous));
+		
+		return lastResource;
+	}
+
+	/**
+	 * Prepares one or more consecutive links to follow from the
+	 * entry point Resource, to be sent as many times as needed
+	 * with different URL variables.
+	 * @param follow	The list of Follow objects containing the relation name,
+	 * 					the method and eventually the data and/or headers.
+	 * @return	The plan, remembering the URLs of the links that don't
+	 * 			depend on the URL variables.
+	 * @see TraversalPlan
+	 */
+	public TraversalPlan prepare(final List<Follow> follow) {
+		return new TraversalPlan(this, follow);
+	}
+
+	/**
+	 * Same as {@link #iterate(Resource, Rel, int)} with one page requested ahead.
+	 * @param firstPage	The first page of the collection.
+	 * @param rel		The relation type of the Resources embedded in each page.
+	 * @return	The lazy Iterator over the Resources of the collection.
+	 */
+	public CollectionIterator iterate(final Resource firstPage, final Rel rel) {
+		return iterate(firstPage, rel, 1);
+	}
+
+	/**
+	 * Iterates lazily over the Resources embedded in the pages of a
+	 * paginated collection, following the <code>next</code> link of each page.
+	 * The next pages are requested in the background while the current one
+	 * is consumed, so that the network time and the processing overlap.
+	 * @param firstPage	The first page of the collection.
+	 * @param rel		The relation type of the Resources embedded in each page.
+	 * @param prefetch	The number of pages requested ahead (0 to request each
+	 * 					page only when its first item is needed).
+	 * @return	The lazy Iterator over the Resources of the collection.
+	 * @see CollectionIterator
+	 */
+	public CollectionIterator iterate(final Resource firstPage, final Rel rel, final int prefetch) {
+		return new CollectionIterator(this, firstPage, rel, prefetch);
+	}
+
+	/**
+	 * Same as {@link #iterate(Resource, Rel, int)} but as a sequential Stream,
+	 * which stops requesting the next pages when it is closed.
+	 * @param firstPage	The first page of the collection.
+	 * @param rel		The relation type of the Resources embedded in each page.
+	 * @param prefetch	The number of pages requested ahead.
+	 * @return	The lazy Stream of the Resources of the collection.
+	 */
+	public Stream<Resource> stream(final Resource firstPage, final Rel rel, final int prefetch) {
+		CollectionIterator iterator = iterate(firstPage, rel, prefetch);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+				Spliterator.ORDERED | Spliterator.NONNULL), false)
+			.onClose(iterator::close);
+	}
+
+	/**
+	 * Publishes the Resources embedded in the pages of a paginated collection,
+	 * following the <code>next</code> link of each page only as the demand
+	 * of the Subscriber requires.
+	 * @param firstPage		The first page of the collection.
+	 * @param rel			The relation type of the Resources embedded in each page.
+	 * @param bufferSize	The number of Resources buffered beyond which
+	 * 						no more page is requested.
+	 * @return	The Publisher of the Resources of the collection.
+	 * @see CollectionPublisher
+	 */
+	public CollectionPublisher publish(final Resource firstPage, final Rel rel, final int bufferSize) {
+		return new CollectionPublisher(this, firstPage, rel, bufferSize);
+	}
 
 	/**
 	 * Sends a request to the API entry point URL ("/" by default)
@@ -280,17 +855,207 @@ public final class HapiClient implements Closeable {
 	 * <p>
 	 * The entry point Resource is only retrieved <strong>if needed</strong>
 	 * and <strong>only once</strong> per HapiClient instance
-	 * (and cached as an attribute).
+	 * (and cached as an attribute), unless a
+	 * {@link Builder#setEntryPointTtl(long, TimeUnit) time to live} is set.
+	 * Once retrieved, it is read without any lock.
+	 * A {@link Builder#setEntryPointSnapshot(InputStream) snapshot} is returned
+	 * straight away and validated in the background.
 	 * @return	The entry point Resource.
 	 * @throws HttpException if the request fails.
 	 * @see Builder#setEntryPointUrl(String)
 	 */
-	public synchronized Resource getEntryPointResource()
+	public Resource getEntryPointResource()
 			throws HttpException {
-		if (entryPointResource == null)
-			entryPointResource = send(new Request.Builder(entryPointUrl).build());
+		EntryPoint entryPoint = this.entryPoint;
+		if (entryPoint != null)
+			return revalidateIfStale(entryPoint);
 		
-		return entryPointResource;
+		entryPointLock.lock();
+		try {
+			entryPoint = this.entryPoint;
+			if (entryPoint == null) {
+				HttpRequestBase httpRequest = createHttpRequest(new Request.Builder(entryPointUrl).build());
+				this.entryPoint = entryPoint = toEntryPoint(httpRequest,
+					executeHttpRequest(httpRequest, authenticationMethod), null);
+			}
+			
+			return entryPoint.resource;
+		} finally {
+			entryPointLock.unlock();
+		}
+	}
+	
+	/**
+	 * Writes the entry point Resource (retrieved if needed) as a compact
+	 * JSON (HAL) snapshot, to preload it in the next HapiClient instances with
+	 * {@link Builder#setEntryPointSnapshot(InputStream)} and save them the request
+	 * on startup.
+	 * <p>
+	 * The stream is closed once the snapshot is written.
+	 * @param out	The stream to write the snapshot to, e.g. a local file.
+	 * @throws HttpException if the entry point request fails.
+	 * @throws JsonException if the snapshot could not be written.
+	 */
+	public void writeEntryPointSnapshot(OutputStream out)
+			throws HttpException, JsonException {
+		Resource entryPoint = getEntryPointResource();
+		JsonWriter writer = JsonProviders.getProvider().createWriter(out);
+		try {
+			writer.writeObject(entryPoint.toJson());
+		} finally {
+			writer.close();
+		}
+	}
+	
+	/**
+	 * Asynchronous version of {@link #getEntryPointResource()}.
+	 * The concurrent callers share the same request until the entry point is set.
+	 * @return	The future entry point Resource.
+	 */
+	CompletableFuture<Resource> getEntryPointResourceAsync() {
+		while (true) {
+			EntryPoint entryPoint = this.entryPoint;
+			if (entryPoint != null)
+				return CompletableFuture.completedFuture(revalidateIfStale(entryPoint));
+			
+			CompletableFuture<Resource> pendingExchange = entryPointExchange.get();
+			if (pendingExchange != null)
+				return pendingExchange;
+			
+			final CompletableFuture<Resource> exchange = new CompletableFuture<Resource>();
+			if (!entryPointExchange.compareAndSet(null, exchange))
+				continue;
+			
+			// The previous request may have completed right before this one started
+			entryPoint = this.entryPoint;
+			if (entryPoint != null) {
+				entryPointExchange.set(null);
+				exchange.complete(entryPoint.resource);
+				return exchange;
+			}
+			
+			exchangeEntryPoint(null).whenComplete((fetched, failure) -> {
+				if (fetched != null)
+					this.entryPoint = fetched;
+				entryPointExchange.set(null);
+				if (failure != null)
+					exchange.completeExceptionally(unwrap(failure));
+				else
+					exchange.complete(fetched.resource);
+			});
+			
+			return exchange;
+		}
+	}
+	
+	/**
+	 * Starts revalidating the entry point Resource in the background
+	 * if its time to live has elapsed or if it is a snapshot not validated yet,
+	 * unless it is already being revalidated.
+	 * Until then, and if the revalidation fails, the stale Resource is returned.
+	 * @param entryPoint	The current entry point.
+	 * @return	The current entry point Resource.
+	 */
+	private Resource revalidateIfStale(final EntryPoint entryPoint) {
+		if ((entryPointTtlNanos == 0 && entryPoint.validated) || System.nanoTime() - entryPoint.expiresAt < 0 ||
+			!entryPointRevalidating.compareAndSet(false, true))
+			return entryPoint.resource;
+		
+		exchangeEntryPoint(entryPoint).whenComplete((revalidated, failure) -> {
+			// On failure, the stale Resource is kept until the next revalidation
+			this.entryPoint = revalidated != null ? revalidated : new EntryPoint(entryPoint.resource,
+				entryPoint.etag, entryPoint.lastModified,
+				System.nanoTime() + (entryPointTtlNanos > 0 ? entryPointTtlNanos : SNAPSHOT_RETRY_NANOS),
+				entryPoint.validated);
+			entryPointRevalidating.set(false);
+		});
+		
+		return entryPoint.resource;
+	}
+	
+	/**
+	 * Requests the entry point Resource, conditionally if a stale one is given.
+	 * @param stale	The stale entry point, or null.
+	 * @return	The future entry point.
+	 */
+	private CompletableFuture<EntryPoint> exchangeEntryPoint(final EntryPoint stale) {
+		final HttpRequestBase httpRequest;
+		try {
+			httpRequest = createHttpRequest(new Request.Builder(entryPointUrl).build());
+		} catch (RuntimeException e) {
+			return failedFuture(e);
+		}
+		
+		if (stale != null && stale.etag != null)
+			httpRequest.setHeader("If-None-Match", stale.etag);
+		if (stale != null && stale.lastModified != null)
+			httpRequest.setHeader("If-Modified-Since", stale.lastModified);
+		
+		final CompletableFuture<EntryPoint> entryPoint = new CompletableFuture<EntryPoint>();
+		if (executor != null) {
+			try {
+				executor.execute(() -> {
+					try {
+						entryPoint.complete(toEntryPoint(httpRequest,
+							executeHttpRequest(httpRequest, authenticationMethod), stale));
+					} catch (Throwable e) {
+						entryPoint.completeExceptionally(e);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				entryPoint.completeExceptionally(e);
+			}
+			
+			return entryPoint;
+		}
+		
+		executeHttpRequestAsync(httpRequest, authenticationMethod).whenComplete((httpResponse, failure) -> {
+			if (failure != null) {
+				entryPoint.completeExceptionally(unwrap(failure));
+				return;
+			}
+			
+			try {
+				entryPoint.complete(toEntryPoint(httpRequest, httpResponse, stale));
+			} catch (Throwable e) {
+				entryPoint.completeExceptionally(e);
+			}
+		});
+		
+		return entryPoint;
+	}
+	
+	/**
+	 * @param httpRequest	The HTTP request that was sent.
+	 * @param httpResponse	The HTTP response received.
+	 * @param stale			The stale entry point that was revalidated, or null.
+	 * @return	The entry point returned by the server, or the stale one
+	 * 			refreshed if it has not been modified (the stale Resource
+	 * 			is kept as well if the new one is equal).
+	 * @throws HttpException if the status code is not 2xx (nor 304 for a stale entry point).
+	 */
+	private EntryPoint toEntryPoint(HttpRequestBase httpRequest, CloseableHttpResponse httpResponse, EntryPoint stale)
+			throws HttpException {
+		Header etag = httpResponse.getFirstHeader("ETag");
+		Header lastModified = httpResponse.getFirstHeader("Last-Modified");
+		long expiresAt = System.nanoTime() + entryPointTtlNanos;
+		
+		if (stale != null && httpResponse.getStatusLine().getStatusCode() == 304) {
+			closeResponseQuietly(httpResponse);
+			return new EntryPoint(stale.resource,
+				etag != null ? etag.getValue() : stale.etag,
+				lastModified != null ? lastModified.getValue() : stale.lastModified,
+				expiresAt, true);
+		}
+		
+		Resource resource = handleResponse(httpRequest, httpResponse);
+		if (stale != null && resource.equals(stale.resource))
+			resource = stale.resource;
+		
+		return new EntryPoint(resource,
+			etag != null ? etag.getValue() : null,
+			lastModified != null ? lastModified.getValue() : null,
+			expiresAt, true);
 	}
 	
 	/**
@@ -303,8 +1068,11 @@ public final class HapiClient implements Closeable {
 	 */
 	public Resource refresh(Resource resource) {
 		try {
-			String url = resource.getLink(RegisteredRel.SELF).getHref();
-			return send(new Request.Builder(url).build());
+			Link self = resource.findLink(RegisteredRel.SELF);
+			if (self == null)
+				return resource;
+			
+			return send(new Request.Builder(self.getHref()).build());
 		} catch (Exception ignored) {
 			return resource;
 		}
@@ -313,21 +1081,27 @@ public final class HapiClient implements Closeable {
 	/**
 	 * Instantiates the HttpRequest depending on the
 	 * configuration from the given Request.
+	 * Package-private for the benchmarks.
 	 * @param request	The Request configuration.
 	 * @return	The HTTP request.
 	 */
-	private HttpRequestBase createHttpRequest(Request request) {
+	HttpRequestBase createHttpRequest(Request request) {
 		// The URL
 		String url = request.getUrl().trim();
 		
-		// Handle URLs relative to the server URL
-		if (url.startsWith("/"))
+		// Handle templated URLs, with or without variables,
+		// and the URLs relative to the server URL
+		if (url.indexOf('{') != -1) {
+			Map<String, Object> urlVariables = request.getUrlVariables();
+			StringBuilder expanded = new StringBuilder(apiUrl.length() + url.length() + 32);
+			if (url.startsWith("/"))
+				expanded.append(apiUrl);
+			url = CompiledUriTemplate.valueOf(url).expand(
+					urlVariables != null ? urlVariables : Collections.<String, Object>emptyMap(),
+					expanded).toString();
+		} else if (url.startsWith("/")) {
 			url = apiUrl + url;
-		
-		// Handle templated URLs
-		Map<String, Object> urlVariables = request.getUrlVariables();
-		if (urlVariables != null && !urlVariables.isEmpty())
-			url = UriTemplate.fromTemplate(url).set(urlVariables).expand();
+		}
 		
 		// Build the URI
 		URI uri;
@@ -373,41 +1147,343 @@ public final class HapiClient implements Closeable {
 	}
 	
 	/**
-	 * Sends the HTTP request and rethrows any IOException as a RuntimeException.
+	 * Sends the HTTP request, again after the delay of the
+	 * {@link Builder#setRetryPolicy(RetryPolicy) retry policy} if it fails
+	 * and can be retried, and rethrows the last IOException as a RuntimeException.
 	 * @param httpRequest	The HTTP request to send.
+	 * @param authenticationMethod	The authentication method of the request, or null.
 	 * @return	The HTTP response.
 	 * @throws HttpException	May be raised by the authentication method.
 	 */
-	private CloseableHttpResponse executeHttpRequest(HttpUriRequest httpRequest)
+	private CloseableHttpResponse executeHttpRequest(HttpUriRequest httpRequest, AuthenticationMethod authenticationMethod)
 			throws HttpException {
+		if (retryPolicy != null)
+			retryPolicy.recordRequest();
+		boolean retryable = retryPolicy != null && retryPolicy.isRetryable(httpRequest);
+		boolean callerAuthorization = httpRequest.containsHeader("Authorization");
+		
+		for (int attempt = 1; ; attempt++) {
+			// Authorized again with the current token, unless the caller set the header
+			if (attempt > 1 && !callerAuthorization)
+				httpRequest.removeHeaders("Authorization");
+			
+			CloseableHttpResponse httpResponse = null;
+			long delay;
+			try {
+				httpResponse = executeHttpRequestOnce(httpRequest, authenticationMethod);
+				delay = retryable && !isAbandoned(httpRequest) ? retryPolicy.getRetryDelay(attempt, httpResponse) : -1;
+				if (delay < 0)
+					return httpResponse;
+			} catch (IOException e) {
+				delay = retryable && RetryPolicy.isTransient(e) && !isAbandoned(httpRequest) ?
+						retryPolicy.getRetryDelay(attempt, null) : -1;
+				if (delay < 0)
+					throw new RuntimeException(e);
+			}
+			
+			if (httpResponse != null)
+				closeResponseQuietly(httpResponse);
+			
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		}
+	}
+	
+	/**
+	 * @param httpRequest	The HTTP request being retried.
+	 * @return	Whether the request has been aborted or the
+	 * 			calling thread interrupted: it is not retried then.
+	 */
+	private static boolean isAbandoned(HttpUriRequest httpRequest) {
+		return httpRequest.isAborted() || Thread.currentThread().isInterrupted();
+	}
+	
+	/**
+	 * Sends the HTTP request once (twice if the authorization timed out).
+	 * @param httpRequest	The HTTP request to send.
+	 * @param authenticationMethod	The authentication method of the request, or null.
+	 * @return	The HTTP response.
+	 * @throws HttpException	May be raised by the authentication method.
+	 * @throws IOException	If the exchange fails.
+	 */
+	private CloseableHttpResponse executeHttpRequestOnce(HttpUriRequest httpRequest, AuthenticationMethod authenticationMethod)
+			throws HttpException, IOException {
+		// Authorization
+		if (authenticationMethod != null)
+			authenticationMethod.authorizeRequest(this, httpRequest);
+		
+		// Execution
+		CloseableHttpResponse httpResponse = client.execute(httpRequest);
+		
+		// If Unauthorized, maybe the authorization just timed out.
+		// Try it again to be sure.
+		if (httpResponse.getStatusLine().getStatusCode() == 401 &&
+			authenticationMethod != null) {
+			// Close the old response
+			closeResponseQuietly(httpResponse);
+			
+			// Authorize again
+			authenticationMethod.reauthorizeRequest(this, httpRequest);
+
+			// Execute again
+			httpResponse = client.execute(httpRequest);
+		}
+		
+		return httpResponse;
+	}
+	
+	/**
+	 * Sends the HTTP request with the non-blocking client, again after the delay of the
+	 * {@link Builder#setRetryPolicy(RetryPolicy) retry policy} if it fails and can be retried.
+	 * The last IOException completes the future with a RuntimeException
+	 * like {@link #executeHttpRequest(HttpUriRequest, AuthenticationMethod)} would throw.
+	 * @param httpRequest	The HTTP request to send.
+	 * @param authenticationMethod	The authentication method of the request, or null.
+	 * @return	The future HTTP response.
+	 */
+	private CompletableFuture<CloseableHttpResponse> executeHttpRequestAsync(
+			final HttpUriRequest httpRequest, final AuthenticationMethod authenticationMethod) {
+		if (retryPolicy != null)
+			retryPolicy.recordRequest();
+		if (retryPolicy == null || !retryPolicy.isRetryable(httpRequest))
+			return executeHttpRequestAsync(httpRequest, authenticationMethod, false);
+		
+		CompletableFuture<CloseableHttpResponse> future = new CompletableFuture<CloseableHttpResponse>();
+		retryHttpRequestAsync(httpRequest, authenticationMethod, httpRequest.containsHeader("Authorization"), 1, future);
+		return future;
+	}
+	
+	/**
+	 * Sends an attempt of a retryable HTTP request and schedules the next one if it fails.
+	 * @param httpRequest	The HTTP request to send.
+	 * @param authenticationMethod	The authentication method of the request, or null.
+	 * @param callerAuthorization	Whether the caller set the Authorization header,
+	 * 								which is then kept for all the attempts.
+	 * @param attempt	The number of the attempt (1 for the first one).
+	 * @param future	The future HTTP response of the last attempt.
+	 */
+	private void retryHttpRequestAsync(final HttpUriRequest httpRequest, final AuthenticationMethod authenticationMethod,
+			final boolean callerAuthorization, final int attempt, final CompletableFuture<CloseableHttpResponse> future) {
+		if (future.isDone())
+			return;
+		
+		// Authorized again with the current token, unless the caller set the header
+		if (attempt > 1 && !callerAuthorization)
+			httpRequest.removeHeaders("Authorization");
+		
+		final CompletableFuture<CloseableHttpResponse> exchange =
+				executeHttpRequestAsync(httpRequest, authenticationMethod, false);
+		cancelOnCancellation(future, exchange);
+		exchange.whenComplete((httpResponse, failure) -> {
+			failure = failure != null ? unwrap(failure) : null;
+			long delay;
+			if (failure == null)
+				delay = retryPolicy.getRetryDelay(attempt, httpResponse);
+			else if (failure instanceof RuntimeException && failure.getCause() instanceof IOException &&
+					RetryPolicy.isTransient((IOException) failure.getCause()) && !httpRequest.isAborted())
+				delay = retryPolicy.getRetryDelay(attempt, null);
+			else
+				delay = -1;
+			
+			if (delay < 0) {
+				if (failure != null)
+					future.completeExceptionally(failure);
+				else if (!future.complete(httpResponse))
+					closeResponseQuietly(httpResponse);
+				return;
+			}
+			
+			if (httpResponse != null)
+				closeResponseQuietly(httpResponse);
+			
+			// Authorizing may block: leave the scheduler thread
+			try {
+				RetryScheduler.INSTANCE.schedule(() -> {
+					try {
+						executeBlocking(() -> retryHttpRequestAsync(httpRequest, authenticationMethod,
+							callerAuthorization, attempt + 1, future));
+					} catch (RejectedExecutionException e) {
+						future.completeExceptionally(e);
+					}
+				}, delay, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				future.completeExceptionally(e);
+			}
+		});
+	}
+	
+	/**
+	 * Sends the HTTP request with the non-blocking client.
+	 * Any IOException completes the future with a RuntimeException
+	 * like {@link #executeHttpRequest(HttpUriRequest, AuthenticationMethod)} would throw.
+	 * @param httpRequest	The HTTP request to send.
+	 * @param authenticationMethod	The authentication method of the request, or null.
+	 * @param unauthorized	Whether the server already answered 401 to this request,
+	 * 						in which case it is reauthorized and not sent again on 401.
+	 * @return	The future HTTP response.
+	 */
+	private CompletableFuture<CloseableHttpResponse> executeHttpRequestAsync(
+			final HttpUriRequest httpRequest, final AuthenticationMethod authenticationMethod, final boolean unauthorized) {
+		final CompletableFuture<CloseableHttpResponse> future = new CompletableFuture<CloseableHttpResponse>();
+		
 		try {
 			// Authorization
-			if (authenticationMethod != null)
-				authenticationMethod.authorizeRequest(this, httpRequest);
+			if (authenticationMethod != null) {
+				if (unauthorized)
+					authenticationMethod.reauthorizeRequest(this, httpRequest);
+				else
+					authenticationMethod.authorizeRequest(this, httpRequest);
+			}
 			
 			// Execution
-			CloseableHttpResponse httpResponse = client.execute(httpRequest);
-			
-			// If Unauthorized, maybe the authorization just timed out.
-			// Try it again to be sure.
-			if (httpResponse.getStatusLine().getStatusCode() == 401 &&
-				authenticationMethod != null) {
-				// Close the old response
-				closeResponseQuietly(httpResponse);
+			final Future<HttpResponse> exchange = getAsyncClient().execute(httpRequest, new FutureCallback<HttpResponse>() {
+				public void completed(HttpResponse response) {
+					CloseableHttpResponse httpResponse = new AsyncHttpResponse(response);
+					
+					// If Unauthorized, maybe the authorization just timed out.
+					// Try it again to be sure.
+					if (!unauthorized && authenticationMethod != null &&
+						httpResponse.getStatusLine().getStatusCode() == 401) {
+						// Close the old response
+						closeResponseQuietly(httpResponse);
+						
+						// Authorizing may block: leave the I/O dispatcher thread
+						try {
+							executeBlocking(() -> relay(executeHttpRequestAsync(httpRequest, authenticationMethod, true), future));
+						} catch (RejectedExecutionException e) {
+							future.completeExceptionally(e);
+						}
+						return;
+					}
+					
+					future.complete(httpResponse);
+				}
 				
-				// Authorize again
-				authenticationMethod.authorizeRequest(this, httpRequest);
-
-				// Execute again
-				httpResponse = client.execute(httpRequest);
+				public void failed(Exception e) {
+					future.completeExceptionally(e instanceof IOException ? new RuntimeException(e) : e);
+				}
+				
+				public void cancelled() {
+					future.cancel(false);
+				}
+			});
+			future.whenComplete((httpResponse, failure) -> {
+				if (future.isCancelled())
+					exchange.cancel(true);
+			});
+		} catch (Throwable e) {
+			future.completeExceptionally(e);
+		}
+		
+		return future;
+	}
+	
+	/**
+	 * Starts the non-blocking client the first time it is needed
+	 * so that a HapiClient only sending blocking requests
+	 * does not run an I/O reactor.
+	 * @return	The started non-blocking client.
+	 * @throws IllegalStateException if the HapiClient is closed.
+	 */
+	private CloseableHttpAsyncClient getAsyncClient() {
+		CloseableHttpAsyncClient asyncClient = this.asyncClient;
+		if (asyncClient != null)
+			return asyncClient;
+		
+		asyncClientLock.lock();
+		try {
+			if (closed)
+				throw new IllegalStateException("The HapiClient is closed.");
+			
+			if (this.asyncClient == null) {
+				asyncClient = asyncClientBuilder.build();
+				asyncClient.start();
+				this.asyncClient = asyncClient;
 			}
 			
-			return httpResponse;
-		} catch (IOException e) {
-			throw new RuntimeException(e);
+			return this.asyncClient;
+		} finally {
+			asyncClientLock.unlock();
 		}
 	}
 	
+	/**
+	 * Runs a task that may block (e.g. while authorizing a request) on the
+	 * {@link Builder#setExecutor(Executor) executor} if one is set, or else on
+	 * a shared pool of daemon threads, so that neither the I/O dispatcher threads
+	 * nor the common ForkJoinPool are blocked.
+	 * @param task	The task.
+	 * @throws RejectedExecutionException if the executor is shut down.
+	 */
+	void executeBlocking(Runnable task) {
+		(executor != null ? executor : BlockingTasks.INSTANCE).execute(task);
+	}
+	
+	/**
+	 * Completes the target with the outcome of the source
+	 * and cancels the source if the target is cancelled.
+	 */
+	private static <T> void relay(final CompletableFuture<T> source, final CompletableFuture<T> target) {
+		source.whenComplete((value, failure) -> {
+			if (failure != null)
+				target.completeExceptionally(unwrap(failure));
+			else
+				target.complete(value);
+		});
+		cancelOnCancellation(target, source);
+	}
+	
+	/**
+	 * Cancels the source future as soon as the dependent one is cancelled.
+	 */
+	private static void cancelOnCancellation(final CompletableFuture<?> dependent, final Future<?> source) {
+		dependent.whenComplete((value, failure) -> {
+			if (dependent.isCancelled())
+				source.cancel(true);
+		});
+	}
+	
+	/**
+	 * @return	A future completed with the given exception.
+	 */
+	private static <T> CompletableFuture<T> failedFuture(Throwable failure) {
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		future.completeExceptionally(failure);
+		return future;
+	}
+	
+	/**
+	 * Waits for a future completed by another thread.
+	 * @param future	The future.
+	 * @return	Its value.
+	 * @throws HttpException if the future failed with an HttpException.
+	 */
+	private static <T> T await(final CompletableFuture<T> future) throws HttpException {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof HttpException)
+				throw (HttpException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw e;
+		}
+	}
+	
+	/**
+	 * @return	The exception wrapped by the CompletionException if any.
+	 */
+	private static Throwable unwrap(Throwable failure) {
+		return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+	}
+	
 	/**
 	 * Closes the HTTP response quietly (no IOException thrown).
 	 */
@@ -418,22 +1494,88 @@ public final class HapiClient implements Closeable {
 	}
 
 	/**
-	 * Closes the HTTP client.
+	 * Closes the HTTP clients
+	 * (and the executor if created by {@link Builder#setAsyncVirtualThreads(boolean)}).
 	 */
 	public void close() throws IOException {
-		client.close();
+		CloseableHttpAsyncClient asyncClient;
+		asyncClientLock.lock();
+		try {
+			closed = true;
+			asyncClient = this.asyncClient;
+		} finally {
+			asyncClientLock.unlock();
+		}
+		
+		try {
+			client.close();
+		} finally {
+			if (executorOwned)
+				((ExecutorService) executor).shutdown();
+			
+			if (asyncClient != null)
+				asyncClient.close();
+		}
 	}
 
 	/**
-	 * Closes the HTTP client quietly (no IOException thrown)
+	 * Closes the HTTP clients quietly (no IOException thrown)
 	 * If you want to catch the exception, please use {@link HapiClient#close()}.
 	 */
 	public void closeQuietly() {
 		try {
-			client.close();
+			close();
 		} catch (IOException ignored) { }
 	}
 	
+	/**
+	 * The daemon threads running the tasks that may block when no executor
+	 * is set, shared by all the clients and only started when first needed.
+	 */
+	private static final class BlockingTasks {
+		private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(task -> {
+			Thread thread = new Thread(task, "hapiclient-blocking-task");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * The daemon thread waiting for the delays before the asynchronous
+	 * retries, shared by all the clients and only started when first needed.
+	 */
+	private static final class RetryScheduler {
+		private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "hapiclient-retry-scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * An immutable entry point Resource with its validators
+	 * (ETag and Last-Modified) and the time it becomes stale.
+	 */
+	private static final class EntryPoint {
+		private final Resource resource;
+		private final String etag;
+		private final String lastModified;
+		private final long expiresAt;
+		/**
+		 * Whether the Resource was returned by the server,
+		 * rather than preloaded from a snapshot.
+		 */
+		private final boolean validated;
+		
+		private EntryPoint(Resource resource, String etag, String lastModified, long expiresAt, boolean validated) {
+			this.resource = resource;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.expiresAt = expiresAt;
+			this.validated = validated;
+		}
+	}
+	
 	public static class Builder {
 		private String apiUrl;
 		private String entryPointUrl;
@@ -441,6 +1583,15 @@ public final class HapiClient implements Closeable {
 		private AuthenticationMethod authenticationMethod;
 		private HttpClientBuilder clientBuilder;
 		private HttpClientConnectionManager connectionManager;
+		private HttpAsyncClientBuilder asyncClientBuilder;
+		private Executor executor;
+		private boolean asyncVirtualThreads;
+		private int responseCacheSize;
+		private boolean requestCoalescing;
+		private RetryPolicy retryPolicy;
+		private boolean lazyResources;
+		private long entryPointTtlNanos;
+		private Resource entryPointSnapshot;
 		
 		/**
 		 * In order to use a REST HAPI, you need
@@ -529,6 +1680,173 @@ public final class HapiClient implements Closeable {
 			return this;
 		}
 		
+		/**
+		 * Optional.
+		 * Overrides the default {@link HttpAsyncClientBuilder} used by the
+		 * <code>sendAsync</code> methods. The default client has a maximum
+		 * total connections of 20 and a maximum connection per route of 5:
+		 * requests exceeding those limits wait for a connection
+		 * without holding any thread.
+		 * <p>
+		 * The client is only built and started by the first asynchronous request.
+		 * @param asyncClientBuilder	The asynchronous client builder configured to fit your needs.
+		 * @return 	The builder.
+		 */
+		public Builder setAsyncClientBuilder(HttpAsyncClientBuilder asyncClientBuilder) {
+			this.asyncClientBuilder = asyncClientBuilder;
+			return this;
+		}
+		
+		/**
+		 * Optional.
+		 * Makes the <code>sendAsync</code> methods run the blocking
+		 * <code>send</code> methods on the given executor instead of
+		 * using the non-blocking client.
+		 * <p>
+		 * Each request then holds one of the executor threads until its
+		 * response is received: on Java 21 or higher, prefer
+		 * {@link #setAsyncVirtualThreads(boolean) virtual threads}.
+		 * The executor is not shut down when the client is closed.
+		 * @param executor	The executor running the requests.
+		 * @return 	The builder.
+		 */
+		public Builder setExecutor(Executor executor) {
+			this.executor = executor;
+			return this;
+		}
+		
+		/**
+		 * Optional (Java 21 or higher).
+		 * Makes the <code>sendAsync</code> methods run the blocking
+		 * <code>send</code> methods on a new virtual thread per request
+		 * (see {@link #setExecutor(Executor)}). Thousands of concurrent
+		 * asynchronous requests then only need as many carrier threads as CPUs.
+		 * The executor is shut down when the client is closed.
+		 * <p>
+		 * Only the <code>sendAsync</code> methods are concerned: the blocking
+		 * <code>send</code> methods still run on the calling thread. Since no
+		 * method of the client pins its carrier thread, call them from virtual
+		 * threads of your own to get the same scaling.
+		 * <p>
+		 * Note: you will also want a {@link #setConnectionManager(HttpClientConnectionManager) connection manager}
+		 * allowing more than the default 5 connections per route.
+		 * @param asyncVirtualThreads	Whether to run the asynchronous requests on virtual threads.
+		 * @return 	The builder.
+		 * @throws UnsupportedOperationException when building the client if
+		 * 			the JVM does not support virtual threads.
+		 */
+		public Builder setAsyncVirtualThreads(boolean asyncVirtualThreads) {
+			this.asyncVirtualThreads = asyncVirtualThreads;
+			return this;
+		}
+		
+		/**
+		 * Optional.
+		 * Caches up to the given number of Resources returned by the GET requests
+		 * when the server allows it (Cache-Control, Expires, ETag and Last-Modified headers).
+		 * <p>
+		 * A fresh Resource is returned without sending any request and a stale one
+		 * is revalidated with a conditional request (If-None-Match / If-Modified-Since):
+		 * if the server answers 304 (Not Modified), the cached Resource is returned
+		 * without receiving nor parsing it again.
+		 * Requests with their own Cache-Control or conditional headers bypass the cache
+		 * and the ones with their own Authorization header are cached separately.
+		 * @param responseCacheSize	The maximum number of cached Resources (0, the default, disables the cache).
+		 * @return 	The builder.
+		 */
+		public Builder setResponseCacheSize(int responseCacheSize) {
+			if (responseCacheSize < 0)
+				throw new IllegalArgumentException("The response cache size cannot be negative.");
+			
+			this.responseCacheSize = responseCacheSize;
+			return this;
+		}
+		
+		/**
+		 * Optional.
+		 * Makes the identical GET requests sent at the same time (same URL,
+		 * Accept header, authentication method and Authorization header
+		 * set by the caller, if any) share a single exchange
+		 * and a single parsed Resource, e.g. when many threads get the same
+		 * creditor at once. Cancelling the future of a request sent with
+		 * {@link HapiClient#sendAsync(Request)} then doesn't abort the shared exchange.
+		 * @param requestCoalescing	Whether to coalesce the identical requests (false by default).
+		 * @return 	The builder.
+		 */
+		public Builder setRequestCoalescing(boolean requestCoalescing) {
+			this.requestCoalescing = requestCoalescing;
+			return this;
+		}
+		
+		/**
+		 * Optional.
+		 * Sends the requests again after an I/O error or a transient error status
+		 * code (e.g. 503) when they can safely be sent twice: GET, PUT and DELETE
+		 * requests, and POST or PATCH requests carrying an idempotency key header.
+		 * See {@link RetryPolicy} for the backoff, Retry-After and budget rules.
+		 * {@link HapiClient#sendAsync(Request)} doesn't block any thread during the delays.
+		 * @param retryPolicy	The retry policy (null, the default, to only retry on 401).
+		 * @return 	The builder.
+		 */
+		public Builder setRetryPolicy(RetryPolicy retryPolicy) {
+			this.retryPolicy = retryPolicy;
+			return this;
+		}
+		
+		/**
+		 * Optional.
+		 * Makes the client return lazy Resources (see {@link Resource#fromJsonLazily(javax.json.JsonObject)}):
+		 * the response is parsed as a JsonObject and the state, links and embedded
+		 * resources are only extracted when first needed. This is faster and allocates
+		 * less when only a few properties or links of large Resources are read,
+		 * but keeps the whole JsonObject in memory as long as the Resource.
+		 * @param lazyResources	Whether to return lazy Resources (false by default).
+		 * @return 	The builder.
+		 */
+		public Builder setLazyResources(boolean lazyResources) {
+			this.lazyResources = lazyResources;
+			return this;
+		}
+		
+		/**
+		 * Optional.
+		 * Revalidates the entry point Resource once it has been retrieved for the
+		 * given time: the request is conditional (If-None-Match / If-Modified-Since)
+		 * and sent in the background while the stale Resource is still returned,
+		 * so that the links added to the API are picked up without restarting.
+		 * If the revalidation fails, the stale Resource is kept for the same time.
+		 * @param ttl	The time to live of the entry point Resource
+		 * 				(0, the default, to keep it forever).
+		 * @param unit	The unit of the time to live.
+		 * @return 	The builder.
+		 */
+		public Builder setEntryPointTtl(long ttl, TimeUnit unit) {
+			if (ttl < 0)
+				throw new IllegalArgumentException("The entry point time to live cannot be negative.");
+			
+			this.entryPointTtlNanos = unit.toNanos(ttl);
+			return this;
+		}
+		
+		/**
+		 * Optional.
+		 * Preloads the entry point Resource from a snapshot written by
+		 * {@link HapiClient#writeEntryPointSnapshot(OutputStream)}, so that the first
+		 * {@link HapiClient#send(Follow)} goes straight to the target resource
+		 * instead of waiting for the entry point request (e.g. on a cold start).
+		 * The snapshot is validated in the background when the entry point
+		 * Resource is first needed and replaced if the server returns another one.
+		 * <p>
+		 * The stream is closed once the snapshot is read.
+		 * @param snapshot	The stream of the snapshot, e.g. a local file.
+		 * @return 	The builder.
+		 * @throws JsonException if the snapshot could not be read or parsed.
+		 */
+		public Builder setEntryPointSnapshot(InputStream snapshot) throws JsonException {
+			this.entryPointSnapshot = Resource.fromJson(snapshot);
+			return this;
+		}
+		
 		/**
 		 * Instantiates the HapiClient.
 		 * @return	The instantiated HapiClient.
@@ -546,12 +1864,42 @@ public final class HapiClient implements Closeable {
 					connectionManager = new PoolingHttpClientConnectionManager();
 					((PoolingHttpClientConnectionManager) connectionManager).setMaxTotal(20);
 					((PoolingHttpClientConnectionManager) connectionManager).setDefaultMaxPerRoute(5);
-					
-					clientBuilder.setConnectionManager(connectionManager);
 				}
+				
+				clientBuilder.setConnectionManager(connectionManager);
+			}
+			
+			if (asyncClientBuilder == null) {
+				asyncClientBuilder = HttpAsyncClients.custom()
+					.setMaxConnTotal(20)
+					.setMaxConnPerRoute(5);
 			}
 			
-			return new HapiClient(apiUrl, entryPointUrl, profile, authenticationMethod, clientBuilder.build());
+			Executor executor = this.executor;
+			if (asyncVirtualThreads)
+				executor = newVirtualThreadPerTaskExecutor();
+			
+			return new HapiClient(apiUrl, entryPointUrl, profile, authenticationMethod,
+				clientBuilder.build(), asyncClientBuilder, executor, asyncVirtualThreads,
+				responseCacheSize > 0 ? new ResponseCache(responseCacheSize) : null,
+				requestCoalescing ? new RequestCoalescer() : null, retryPolicy, lazyResources,
+				entryPointTtlNanos, entryPointSnapshot);
+		}
+		
+		/**
+		 * Looks up <code>Executors.newVirtualThreadPerTaskExecutor()</code>
+		 * by reflection since the client is compiled for Java 8.
+		 * @return	The executor starting a virtual thread per task.
+		 * @throws UnsupportedOperationException if the JVM does not support virtual threads.
+		 */
+		private static ExecutorService newVirtualThreadPerTaskExecutor() {
+			try {
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (NoSuchMethodException e) {
+				throw new UnsupportedOperationException("Virtual threads require Java 21 or higher.", e);
+			} catch (Exception e) {
+				throw new UnsupportedOperationException("Virtual threads could not be enabled.", e);
+			}
 		}
 		
 	}
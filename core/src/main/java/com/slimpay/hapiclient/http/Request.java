@@ -6,6 +6,8 @@ import java.util.Map;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 
+import com.slimpay.hapiclient.http.auth.AuthenticationMethod;
+
 /**
  * The configuration for a request to the given 
  * <strong>URL</strong> with optional values
@@ -18,8 +20,9 @@ public final class Request extends AbstractRequest {
 	/**
 	 * @see Builder#Builder(String)
 	 */
-	private Request(String url, Method method, Map<String, Object> urlVariables, HttpEntity messageBody, List<Header> headers) {
-		super(method, urlVariables, messageBody, headers);
+	private Request(String url, Method method, Map<String, Object> urlVariables, HttpEntity messageBody, List<Header> headers,
+			AuthenticationMethod authenticationMethod) {
+		super(method, urlVariables, messageBody, headers, authenticationMethod);
 		this.url = url;
 	}
 	
@@ -87,6 +90,12 @@ public final class Request extends AbstractRequest {
 			super.addHeaders(headers);
 			return this;
 		}
+
+		@Override
+		public Builder setAuthenticationMethod(AuthenticationMethod authenticationMethod) {
+			super.setAuthenticationMethod(authenticationMethod);
+			return this;
+		}
 		
 		/**
 		 * Instantiates the Request object.
@@ -94,7 +103,7 @@ public final class Request extends AbstractRequest {
 		 */
 		@Override
 		public Request build() {
-			return new Request(url, method, urlVariables, messageBody, headers);
+			return new Request(url, method, urlVariables, messageBody, headers, authenticationMethod);
 		}
 
 	}
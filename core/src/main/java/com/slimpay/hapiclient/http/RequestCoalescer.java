@@ -0,0 +1,46 @@
+package com.slimpay.hapiclient.http;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.slimpay.hapiclient.hal.Resource;
+
+/**
+ * The GET requests in progress, so that the identical ones sent
+ * at the same time share a single exchange and a single parsed Resource
+ * (single flight) instead of each one using a connection.
+ * <p>
+ * The requests are identical when they have the same key as in the
+ * {@link ResponseCache}: the same URL, Accept header, authentication
+ * method and Authorization header set by the caller (if any), so that
+ * a request never gets the Resource fetched with other credentials.
+ * A request joining an exchange in progress gets its Resource
+ * or its failure, as is.
+ * @see HapiClient.Builder#setRequestCoalescing(boolean)
+ */
+final class RequestCoalescer {
+	private final ConcurrentHashMap<ResponseCache.Key, CompletableFuture<Resource>> exchanges =
+		new ConcurrentHashMap<ResponseCache.Key, CompletableFuture<Resource>>();
+
+	/**
+	 * Registers the exchange of a request unless an identical one is in progress.
+	 * @param key		The key of the request.
+	 * @param exchange	The future Resource of the request, completed by the caller.
+	 * @return	The future Resource of the identical request in progress,
+	 * 			or null if the caller has to send the request.
+	 */
+	CompletableFuture<Resource> join(final ResponseCache.Key key, final CompletableFuture<Resource> exchange) {
+		return exchanges.putIfAbsent(key, exchange);
+	}
+
+	/**
+	 * Unregisters the exchange of a request, before it is completed, so that
+	 * the requests sent from then on are sent again.
+	 * @param key		The key of the request.
+	 * @param exchange	The future Resource registered by {@link #join(ResponseCache.Key, CompletableFuture)}.
+	 */
+	void leave(final ResponseCache.Key key, final CompletableFuture<Resource> exchange) {
+		exchanges.remove(key, exchange);
+	}
+
+}
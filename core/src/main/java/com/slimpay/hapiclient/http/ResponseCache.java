@@ -0,0 +1,392 @@
+package com.slimpay.hapiclient.http;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpMessage;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.DateUtils;
+
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.auth.AuthenticationMethod;
+
+/**
+ * A size-bounded, least recently used, private cache of the
+ * Resources returned by the GET requests, along with their
+ * validators (ETag and Last-Modified) and freshness lifetime
+ * (Cache-Control max-age or Expires).
+ * <p>
+ * A fresh Resource is returned without sending any request.
+ * A stale one is revalidated with a conditional request
+ * (If-None-Match / If-Modified-Since) and returned as is if the
+ * server answers 304 (Not Modified): neither the message body
+ * is transferred nor the JSON parsed again.
+ * <p>
+ * The Resources are cached per URL, Accept header, authentication
+ * method and Authorization header set by the caller (if any) so that
+ * two tenants, or two callers setting their own credentials,
+ * never share their Resources.
+ * A successful POST, PUT, PATCH or DELETE request evicts the
+ * Resources cached for its URL.
+ * @see HapiClient.Builder#setResponseCacheSize(int)
+ */
+final class ResponseCache {
+	private final int maximumEntries;
+	private final Lock lock = new ReentrantLock();
+	private final LinkedHashMap<Key, Entry> entries;
+
+	/**
+	 * @param maximumEntries	The maximum number of Resources cached.
+	 */
+	ResponseCache(final int maximumEntries) {
+		this.maximumEntries = maximumEntries;
+		this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return size() > ResponseCache.this.maximumEntries;
+			}
+		};
+	}
+
+	/**
+	 * Looks the Resource requested up. If it is cached but stale,
+	 * the validators are added to the HTTP request.
+	 * @param httpRequest			The HTTP request about to be sent.
+	 * @param authenticationMethod	The authentication method of the request, or null.
+	 * @return	The result of the lookup, whether a Resource is cached or not,
+	 * 			or null if the request cannot use the cache.
+	 */
+	Lookup lookup(final HttpRequestBase httpRequest, final AuthenticationMethod authenticationMethod) {
+		Key key = keyOf(httpRequest, authenticationMethod);
+		if (key == null)
+			return null;
+
+		Entry entry;
+		lock.lock();
+		try {
+			entry = entries.get(key);
+		} finally {
+			lock.unlock();
+		}
+		if (entry == null)
+			return new Lookup(key, null, false);
+
+		Lookup lookup = new Lookup(key, entry, System.nanoTime() - entry.expiresAt < 0);
+		if (!lookup.fresh) {
+			if (entry.etag != null)
+				httpRequest.setHeader("If-None-Match", entry.etag);
+			if (entry.lastModified != null)
+				httpRequest.setHeader("If-Modified-Since", entry.lastModified);
+		}
+
+		return lookup;
+	}
+
+	/**
+	 * Updates the freshness of the cached Resource revalidated
+	 * by a 304 (Not Modified) response.
+	 * @param lookup		The lookup that found a stale Resource.
+	 * @param httpResponse	The 304 response.
+	 * @return	The cached Resource.
+	 */
+	Resource revalidated(final Lookup lookup, final HttpResponse httpResponse) {
+		Entry entry = lookup.entry;
+		String etag = getHeader(httpResponse, "ETag");
+		String lastModified = getHeader(httpResponse, "Last-Modified");
+		put(lookup.key, new Entry(entry.resource,
+			etag != null ? etag : entry.etag,
+			lastModified != null ? lastModified : entry.lastModified,
+			getExpirationTime(httpResponse)));
+
+		return entry.resource;
+	}
+
+	/**
+	 * Caches the Resource returned by a successful GET request
+	 * if the response allows it or, for the other methods,
+	 * evicts the Resources cached for the URL of the request.
+	 * @param httpRequest	The HTTP request sent.
+	 * @param lookup		The lookup made before sending the request, or null.
+	 * @param httpResponse	The 2xx response.
+	 * @param resource		The Resource parsed from the response.
+	 */
+	void store(final HttpRequestBase httpRequest, final Lookup lookup,
+			final HttpResponse httpResponse, final Resource resource) {
+		if (!Method.GET.name().equals(httpRequest.getMethod())) {
+			evict(httpRequest.getURI().toString());
+			return;
+		}
+
+		if (lookup == null)
+			return;
+
+		Key key = lookup.key;
+
+		String etag = getHeader(httpResponse, "ETag");
+		String lastModified = getHeader(httpResponse, "Last-Modified");
+		long expiresAt = getExpirationTime(httpResponse);
+		if (!isStorable(httpResponse) ||
+			(etag == null && lastModified == null && System.nanoTime() - expiresAt >= 0)) {
+			lock.lock();
+			try {
+				entries.remove(key);
+			} finally {
+				lock.unlock();
+			}
+			return;
+		}
+
+		put(key, new Entry(resource, etag, lastModified, expiresAt));
+	}
+
+	/**
+	 * Removes all the Resources from the cache.
+	 */
+	void clear() {
+		lock.lock();
+		try {
+			entries.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void put(final Key key, final Entry entry) {
+		lock.lock();
+		try {
+			entries.put(key, entry);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param url	The URL whose Resources are removed, whatever
+	 * 				their Accept header and authentication method.
+	 */
+	private void evict(final String url) {
+		lock.lock();
+		try {
+			Iterator<Key> keys = entries.keySet().iterator();
+			while (keys.hasNext())
+				if (keys.next().url.equals(url))
+					keys.remove();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Only the GET requests without any conditional or
+	 * Cache-Control header of their own can use the cache.
+	 * <p>
+	 * The key must be computed before the request is authorized:
+	 * its Authorization header is then the one set by the caller.
+	 * @param httpRequest			The HTTP request.
+	 * @param authenticationMethod	The authentication method of the request, or null.
+	 * @return	The cache key or null if the request cannot use the cache.
+	 */
+	static Key keyOf(final HttpRequestBase httpRequest, final AuthenticationMethod authenticationMethod) {
+		if (!Method.GET.name().equals(httpRequest.getMethod()) ||
+			httpRequest.containsHeader("Cache-Control") ||
+			httpRequest.containsHeader("If-None-Match") ||
+			httpRequest.containsHeader("If-Modified-Since"))
+			return null;
+
+		return new Key(httpRequest.getURI().toString(), getHeader(httpRequest, "Accept"),
+			authenticationMethod, getHeader(httpRequest, "Authorization"));
+	}
+
+	/**
+	 * The cache is private: only no-store forbids caching
+	 * and the Vary header may only list the request headers
+	 * already part of the cache key.
+	 * @param httpResponse	The HTTP response.
+	 * @return	Whether the response may be cached.
+	 */
+	private static boolean isStorable(final HttpResponse httpResponse) {
+		for (Header header : httpResponse.getHeaders("Cache-Control"))
+			for (HeaderElement directive : header.getElements())
+				if ("no-store".equalsIgnoreCase(directive.getName()))
+					return false;
+
+		for (Header header : httpResponse.getHeaders("Vary"))
+			for (HeaderElement element : header.getElements()) {
+				String name = element.getName();
+				if (!"Accept".equalsIgnoreCase(name) &&
+					!"Accept-Encoding".equalsIgnoreCase(name) &&
+					!"Authorization".equalsIgnoreCase(name))
+					return false;
+			}
+
+		return true;
+	}
+
+	/**
+	 * The freshness lifetime is given by the max-age directive
+	 * (minus the Age header) or else by the Expires header
+	 * (minus the Date header). no-cache makes the response stale at once.
+	 * @param httpResponse	The HTTP response.
+	 * @return	The System.nanoTime() at which the response becomes stale.
+	 */
+	private static long getExpirationTime(final HttpResponse httpResponse) {
+		long now = System.nanoTime();
+		Long maxAge = null;
+		for (Header header : httpResponse.getHeaders("Cache-Control"))
+			for (HeaderElement directive : header.getElements()) {
+				if ("no-cache".equalsIgnoreCase(directive.getName()))
+					return now;
+				if ("max-age".equalsIgnoreCase(directive.getName()))
+					maxAge = parseSeconds(directive.getValue());
+			}
+
+		long lifetime;
+		if (maxAge != null) {
+			Long age = parseSeconds(getHeader(httpResponse, "Age"));
+			lifetime = TimeUnit.SECONDS.toNanos(maxAge - (age != null ? age : 0));
+		} else {
+			String expires = getHeader(httpResponse, "Expires");
+			if (expires == null)
+				return now;
+
+			Date expirationDate = DateUtils.parseDate(expires);
+			if (expirationDate == null)
+				return now;
+
+			String date = getHeader(httpResponse, "Date");
+			Date responseDate = date != null ? DateUtils.parseDate(date) : null;
+			long from = responseDate != null ? responseDate.getTime() : new Date().getTime();
+			lifetime = TimeUnit.MILLISECONDS.toNanos(expirationDate.getTime() - from);
+		}
+
+		return lifetime > 0 ? now + lifetime : now;
+	}
+
+	private static Long parseSeconds(final String value) {
+		if (value == null)
+			return null;
+
+		try {
+			return Long.valueOf(value.trim());
+		} catch (NumberFormatException ignored) {
+			return null;
+		}
+	}
+
+	private static String getHeader(final HttpMessage message, final String name) {
+		Header header = message.getFirstHeader(name);
+		return header != null ? header.getValue() : null;
+	}
+
+	/**
+	 * The Resource found in the cache if any and whether
+	 * it can be returned without revalidating it.
+	 */
+	static final class Lookup {
+		private final Key key;
+		private final Entry entry;
+		private final boolean fresh;
+
+		private Lookup(Key key, Entry entry, boolean fresh) {
+			this.key = key;
+			this.entry = entry;
+			this.fresh = fresh;
+		}
+
+		/**
+		 * @return	Whether the Resource can be returned without revalidating it.
+		 */
+		boolean isFresh() {
+			return fresh;
+		}
+
+		/**
+		 * @return	Whether a Resource, fresh or stale, is cached.
+		 */
+		boolean isHit() {
+			return entry != null;
+		}
+
+		/**
+		 * @return	The cached Resource.
+		 */
+		Resource getResource() {
+			return entry.resource;
+		}
+	}
+
+	/**
+	 * An immutable cached Resource with its validators.
+	 */
+	private static final class Entry {
+		private final Resource resource;
+		private final String etag;
+		private final String lastModified;
+		private final long expiresAt;
+
+		private Entry(Resource resource, String etag, String lastModified, long expiresAt) {
+			this.resource = resource;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	/**
+	 * The URL, the Accept header, the authentication method
+	 * and the Authorization header set by the caller of a GET request.
+	 * @see RequestCoalescer
+	 */
+	static final class Key {
+		private final String url;
+		private final String accept;
+		private final AuthenticationMethod authenticationMethod;
+		private final String authorization;
+		private final int hash;
+
+		private Key(String url, String accept, AuthenticationMethod authenticationMethod, String authorization) {
+			this.url = url;
+			this.accept = accept;
+			this.authenticationMethod = authenticationMethod;
+			this.authorization = authorization;
+
+			int hash = url.hashCode();
+			hash = 31 * hash + (accept != null ? accept.hashCode() : 0);
+			hash = 31 * hash + (authenticationMethod != null ? authenticationMethod.hashCode() : 0);
+			hash = 31 * hash + (authorization != null ? authorization.hashCode() : 0);
+			this.hash = hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+
+			Key other = (Key) obj;
+			return hash == other.hash &&
+				url.equals(other.url) &&
+				(accept == null ? other.accept == null : accept.equals(other.accept)) &&
+				(authenticationMethod == null ? other.authenticationMethod == null :
+					authenticationMethod.equals(other.authenticationMethod)) &&
+				(authorization == null ? other.authorization == null : authorization.equals(other.authorization));
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+}
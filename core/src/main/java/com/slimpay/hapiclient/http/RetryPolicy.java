@@ -0,0 +1,300 @@
+package com.slimpay.hapiclient.http;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.client.utils.DateUtils;
+
+/**
+ * When and how often a request is sent again after a transient I/O error
+ * (a connect or socket timeout, a connection reset or no response at all)
+ * or a transient error status code (by default 429, 502, 503 and 504).
+ * The other I/O errors, such as an unknown host, an SSL failure or an
+ * aborted request, would fail the same way again: they are never retried.
+ * <p>
+ * Only the requests that can safely be sent twice are retried:
+ * <ul>
+ * <li>GET, PUT and DELETE requests, which are idempotent,</li>
+ * <li>POST and PATCH requests carrying an idempotency key header
+ * (<code>Idempotency-Key</code> by default), so that the server
+ * can tell a retry from a new request.</li>
+ * </ul>
+ * A request whose message body cannot be sent twice is never retried.
+ * <p>
+ * The delay before each retry grows exponentially with a full jitter
+ * (a random delay between 0 and <code>base * 2^(retry - 1)</code>, capped
+ * at the maximum backoff) so that the clients don't retry all at once.
+ * A longer <code>Retry-After</code> header sent by the server is honored,
+ * and the request is not retried if it asks to wait longer than the maximum backoff.
+ * <p>
+ * The retries are capped by a budget so that they don't amplify an outage:
+ * each request adds <code>ratio</code> tokens to the budget (up to <code>burst</code> tokens)
+ * and each retry takes one, so that at most <code>ratio</code> retries per
+ * request are sent once the <code>burst</code> retries are spent.
+ * A budget of 0 tokens never allows any retry.
+ * The budget is shared by the clients built with the same RetryPolicy.
+ * @see HapiClient.Builder#setRetryPolicy(RetryPolicy)
+ */
+public final class RetryPolicy {
+	/**
+	 * The budget tokens are counted in thousandths.
+	 */
+	private static final long TOKEN = 1000;
+
+	private final int maxAttempts;
+	private final long baseBackoffMillis;
+	private final long maxBackoffMillis;
+	private final int[] retryableStatusCodes;
+	private final String idempotencyKeyHeader;
+	private final long depositPerRequest;
+	private final long maxBalance;
+	private final AtomicLong balance;
+
+	private RetryPolicy(Builder builder) {
+		this.maxAttempts = builder.maxAttempts;
+		this.baseBackoffMillis = builder.baseBackoffMillis;
+		this.maxBackoffMillis = builder.maxBackoffMillis;
+		this.retryableStatusCodes = builder.retryableStatusCodes.clone();
+		Arrays.sort(this.retryableStatusCodes);
+		this.idempotencyKeyHeader = builder.idempotencyKeyHeader;
+		this.depositPerRequest = Math.round(builder.budgetRatio * TOKEN);
+		this.maxBalance = builder.budgetBurst * TOKEN;
+		this.balance = new AtomicLong(builder.budgetBurst * TOKEN);
+	}
+
+	/**
+	 * @return	The maximum number of times a request is sent, first attempt included.
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * @return	The name of the header making a POST or PATCH request retryable.
+	 */
+	public String getIdempotencyKeyHeader() {
+		return idempotencyKeyHeader;
+	}
+
+	/**
+	 * @param httpRequest	The HTTP request about to be sent.
+	 * @return	Whether the request can be sent again if it fails.
+	 */
+	boolean isRetryable(HttpUriRequest httpRequest) {
+		switch (httpRequest.getMethod()) {
+			case "GET":
+			case "PUT":
+			case "DELETE":
+				break;
+			case "POST":
+			case "PATCH":
+				if (httpRequest.getFirstHeader(idempotencyKeyHeader) == null)
+					return false;
+				break;
+			default:
+				return false;
+		}
+
+		if (httpRequest instanceof HttpEntityEnclosingRequest) {
+			HttpEntity entity = ((HttpEntityEnclosingRequest) httpRequest).getEntity();
+			return entity == null || entity.isRepeatable();
+		}
+
+		return true;
+	}
+
+	/**
+	 * @param failure	The I/O error of an attempt.
+	 * @return	Whether the next attempt may succeed: a timeout,
+	 * 			a connection reset or a connection closed without any response.
+	 */
+	static boolean isTransient(IOException failure) {
+		if (failure instanceof ConnectTimeoutException ||
+			failure instanceof SocketTimeoutException ||
+			failure instanceof NoHttpResponseException)
+			return true;
+
+		return failure instanceof SocketException && failure.getMessage() != null &&
+			failure.getMessage().startsWith("Connection reset");
+	}
+
+	/**
+	 * Adds the share of a retry earned by a request to the budget.
+	 * Called once per request, whether it is retryable or not.
+	 */
+	void recordRequest() {
+		long current;
+		do {
+			current = balance.get();
+			if (current >= maxBalance)
+				return;
+		} while (!balance.compareAndSet(current, Math.min(maxBalance, current + depositPerRequest)));
+	}
+
+	/**
+	 * Decides whether a retryable request is sent again and takes
+	 * the retry from the budget if it is.
+	 * @param attempt		The number of times the request has been sent.
+	 * @param httpResponse	The response received, or null after a {@link #isTransient(IOException) transient} I/O error.
+	 * @return	The delay before sending it again in milliseconds,
+	 * 			or -1 if it must not be sent again.
+	 */
+	long getRetryDelay(int attempt, HttpResponse httpResponse) {
+		if (attempt >= maxAttempts)
+			return -1;
+
+		if (httpResponse != null &&
+			Arrays.binarySearch(retryableStatusCodes, httpResponse.getStatusLine().getStatusCode()) < 0)
+			return -1;
+
+		// Full jitter
+		long backoff = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 30));
+		long delay = ThreadLocalRandom.current().nextLong(backoff + 1);
+
+		long retryAfter = httpResponse != null ? getRetryAfter(httpResponse) : -1;
+		if (retryAfter > maxBackoffMillis)
+			return -1;
+		delay = Math.max(delay, retryAfter);
+
+		return withdraw() ? delay : -1;
+	}
+
+	/**
+	 * Takes a retry from the budget.
+	 * @return	false if the budget is spent.
+	 */
+	private boolean withdraw() {
+		long current;
+		do {
+			current = balance.get();
+			if (current < TOKEN)
+				return false;
+		} while (!balance.compareAndSet(current, current - TOKEN));
+
+		return true;
+	}
+
+	/**
+	 * @param httpResponse	The HTTP response.
+	 * @return	The delay in milliseconds of the Retry-After header
+	 * 			(seconds or HTTP date), or -1 if there is none.
+	 */
+	private static long getRetryAfter(HttpResponse httpResponse) {
+		Header retryAfter = httpResponse.getFirstHeader("Retry-After");
+		if (retryAfter == null)
+			return -1;
+
+		String value = retryAfter.getValue().trim();
+		try {
+			return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+		} catch (NumberFormatException e) {
+			Date date = DateUtils.parseDate(value);
+			return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
+		}
+	}
+
+	public static class Builder {
+		private int maxAttempts = 3;
+		private long baseBackoffMillis = 100;
+		private long maxBackoffMillis = 5000;
+		private int[] retryableStatusCodes = { 429, 502, 503, 504 };
+		private String idempotencyKeyHeader = "Idempotency-Key";
+		private double budgetRatio = 0.1;
+		private int budgetBurst = 10;
+
+		/**
+		 * Optional.
+		 * @param maxAttempts	The maximum number of times a request is sent,
+		 * 						first attempt included (3 by default).
+		 * @return 	The builder.
+		 */
+		public Builder setMaxAttempts(int maxAttempts) {
+			if (maxAttempts < 1)
+				throw new IllegalArgumentException("The maximum number of attempts must be positive.");
+
+			this.maxAttempts = maxAttempts;
+			return this;
+		}
+
+		/**
+		 * Optional.
+		 * @param base	The maximum delay before the first retry (100 ms by default),
+		 * 				doubled for each next retry.
+		 * @param max	The maximum delay before any retry (5 s by default).
+		 * @param unit	The unit of the delays.
+		 * @return 	The builder.
+		 */
+		public Builder setBackoff(long base, long max, TimeUnit unit) {
+			if (base < 0 || max < base)
+				throw new IllegalArgumentException("The backoff delays must be positive and the base cannot exceed the max.");
+
+			this.baseBackoffMillis = unit.toMillis(base);
+			this.maxBackoffMillis = unit.toMillis(max);
+			return this;
+		}
+
+		/**
+		 * Optional.
+		 * @param retryableStatusCodes	The status codes of the responses to retry
+		 * 								(429, 502, 503 and 504 by default).
+		 * @return 	The builder.
+		 */
+		public Builder setRetryableStatusCodes(int... retryableStatusCodes) {
+			this.retryableStatusCodes = retryableStatusCodes.clone();
+			return this;
+		}
+
+		/**
+		 * Optional.
+		 * @param idempotencyKeyHeader	The name of the header making a POST or PATCH
+		 * 								request retryable (Idempotency-Key by default).
+		 * @return 	The builder.
+		 */
+		public Builder setIdempotencyKeyHeader(String idempotencyKeyHeader) {
+			if (idempotencyKeyHeader == null || idempotencyKeyHeader.isEmpty())
+				throw new IllegalArgumentException("The idempotency key header is mandatory.");
+
+			this.idempotencyKeyHeader = idempotencyKeyHeader;
+			return this;
+		}
+
+		/**
+		 * Optional.
+		 * @param ratio	The number of retries earned by each request (0.1 by default).
+		 * @param burst	The maximum number of retries that can be sent
+		 * 				beyond the ratio, e.g. right after the start (10 by default).
+		 * 				It is also the capacity of the budget: 0 disables the retries.
+		 * @return 	The builder.
+		 */
+		public Builder setRetryBudget(double ratio, int burst) {
+			if (ratio < 0 || burst < 0)
+				throw new IllegalArgumentException("The retry budget cannot be negative.");
+
+			this.budgetRatio = ratio;
+			this.budgetBurst = burst;
+			return this;
+		}
+
+		/**
+		 * Instantiates the RetryPolicy.
+		 * @return	The instantiated RetryPolicy.
+		 */
+		public RetryPolicy build() {
+			return new RetryPolicy(this);
+		}
+	}
+
+}
@@ -0,0 +1,232 @@
+package com.slimpay.hapiclient.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.slimpay.hapiclient.exception.HttpException;
+import com.slimpay.hapiclient.exception.RelNotFoundException;
+import com.slimpay.hapiclient.hal.Resource;
+
+/**
+ * One or more consecutive links to follow from the entry point Resource,
+ * prepared once with {@link HapiClient#prepare(List)} and sent as many
+ * times as needed with different URL variables.
+ * <p>
+ * As with {@link HapiClient#send(List)}, each link is looked up in the
+ * Resource returned by the previous link. But the plan remembers the
+ * URL of each link found after stable links only: GET requests without
+ * message body whose URL doesn't use any of the URL variables given
+ * to {@link #send(Map)}. The next times, the stable links are not requested
+ * again and the first link depending on the URL variables is sent straight.
+ * For instance, with the links <code>get-creditors</code> (reference=democreditor)
+ * and <code>search-mandates</code> (page given to <code>send</code>),
+ * only the mandates are requested once the plan has been sent the first time.
+ * <p>
+ * As the entry point Resource, the stable Resources are assumed to keep
+ * their links. The URLs remembered are forgotten when a request sent
+ * to one of them fails, and when the entry point Resource changes
+ * (see {@link HapiClient.Builder#setEntryPointTtl(long, java.util.concurrent.TimeUnit)}).
+ * <p>
+ * A TraversalPlan is thread-safe.
+ */
+public final class TraversalPlan {
+	private final HapiClient client;
+	private final List<Follow> follows;
+	/**
+	 * The URL of each link, once found after stable links.
+	 */
+	private final AtomicReferenceArray<String> urls;
+	/**
+	 * The entry point Resource the URLs were found from.
+	 */
+	private volatile Resource entryPoint;
+
+	/**
+	 * @see HapiClient#prepare(List)
+	 */
+	TraversalPlan(final HapiClient client, final List<Follow> follow) {
+		if (follow.size() == 0)
+			throw new IllegalArgumentException("The follow list is empty.");
+
+		this.client = client;
+		this.follows = Collections.unmodifiableList(new ArrayList<Follow>(follow));
+		this.urls = new AtomicReferenceArray<String>(follows.size());
+	}
+
+	/**
+	 * @return	The Follow objects of the plan (Read-Only).
+	 */
+	public List<Follow> getFollows() {
+		return follows;
+	}
+
+	/**
+	 * Follows the links of the plan with the URL variables
+	 * of the Follow objects only.
+	 * @return The Resource returned by the server for the last link.
+	 * @throws HttpException if a request fails.
+	 * @throws RelNotFoundException if a Relation Name is inexistant in a Resource.
+	 * @see #send(Map)
+	 */
+	public Resource send()
+			throws HttpException, RelNotFoundException {
+		return send(null);
+	}
+
+	/**
+	 * Follows the links of the plan, but the stable ones already followed.
+	 * @param urlVariables	The values of the URL variables, added to the ones
+	 * 						of the Follow objects (and overriding them).
+	 * @return The Resource returned by the server for the last link.
+	 * @throws HttpException if a request fails.
+	 * @throws RelNotFoundException if a Relation Name is inexistant in a Resource.
+	 */
+	public Resource send(final Map<String, Object> urlVariables)
+			throws HttpException, RelNotFoundException {
+		Resource entryPoint = client.getEntryPointResource();
+		Traversal traversal = new Traversal(entryPoint, urlVariables);
+		Resource resource = traversal.startUrl == null ? entryPoint : null;
+		for (int i = traversal.start; i < follows.size(); i++) {
+			Object next = traversal.next(i, resource);
+			try {
+				resource = next instanceof Request ? client.send((Request) next) : (Resource) next;
+			} catch (HttpException | RuntimeException e) {
+				if (resource == null)
+					forget();
+				throw e;
+			}
+		}
+
+		return resource;
+	}
+
+	/**
+	 * Asynchronous version of {@link #send()}.
+	 * @return The future Resource returned by the server for the last link.
+	 * @see HapiClient#sendAsync(Request)
+	 */
+	public CompletableFuture<Resource> sendAsync() {
+		return sendAsync(null);
+	}
+
+	/**
+	 * Asynchronous version of {@link #send(Map)}.
+	 * Each link is only followed once the previous one completed.
+	 * @param urlVariables	The values of the URL variables, added to the ones
+	 * 						of the Follow objects (and overriding them).
+	 * @return The future Resource returned by the server for the last link.
+	 * @see HapiClient#sendAsync(Request)
+	 */
+	public CompletableFuture<Resource> sendAsync(final Map<String, Object> urlVariables) {
+		return client.getEntryPointResourceAsync().thenCompose(entryPoint -> {
+			Traversal traversal = new Traversal(entryPoint, urlVariables);
+			CompletableFuture<Resource> resource = CompletableFuture.completedFuture(
+				traversal.startUrl == null ? entryPoint : null);
+			for (int i = traversal.start; i < follows.size(); i++) {
+				final int index = i;
+				resource = resource.thenCompose(previous -> {
+					Object next = traversal.next(index, previous);
+					if (!(next instanceof Request))
+						return CompletableFuture.completedFuture((Resource) next);
+
+					return client.sendAsync((Request) next).whenComplete((result, failure) -> {
+						if (failure != null && previous == null)
+							forget();
+					});
+				});
+			}
+
+			return resource;
+		});
+	}
+
+	/**
+	 * Forgets the URLs of the links found so far.
+	 */
+	public void forget() {
+		for (int i = 0; i < urls.length(); i++)
+			urls.set(i, null);
+	}
+
+	/**
+	 * @return	Whether the link of the Follow doesn't depend on the URL variables.
+	 */
+	private static boolean isStable(Follow follow, String url, Map<String, Object> urlVariables) {
+		return follow.getMethod() == Method.GET && follow.getMessageBody() == null &&
+			(urlVariables.isEmpty() || url.indexOf('{') == -1 ||
+				!CompiledUriTemplate.valueOf(url).hasAnyVariable(urlVariables.keySet()));
+	}
+
+	/**
+	 * One sending of the plan.
+	 */
+	private final class Traversal {
+		private final Map<String, Object> urlVariables;
+		/**
+		 * The first link to follow, the previous ones being stable and remembered.
+		 */
+		private final int start;
+		/**
+		 * The URL of the first link to follow, or null if it has to be
+		 * found in the entry point Resource.
+		 */
+		private final String startUrl;
+		/**
+		 * Whether the links followed so far are stable.
+		 */
+		private boolean stable = true;
+
+		private Traversal(Resource entryPoint, Map<String, Object> urlVariables) {
+			if (entryPoint != TraversalPlan.this.entryPoint) {
+				forget();
+				TraversalPlan.this.entryPoint = entryPoint;
+			}
+			this.urlVariables = urlVariables != null ? urlVariables : Collections.<String, Object>emptyMap();
+
+			int start = 0;
+			String url = urls.get(0);
+			String nextUrl;
+			while (url != null && start < follows.size() - 1 && (nextUrl = urls.get(start + 1)) != null &&
+					isStable(follows.get(start), url, this.urlVariables)) {
+				url = nextUrl;
+				start++;
+			}
+			this.start = start;
+			this.startUrl = url;
+		}
+
+		/**
+		 * @param index		The index of the link to follow.
+		 * @param resource	The Resource returned by the previous link,
+		 * 					or null if the URL of the link is remembered.
+		 * @return	The Request to send, or the embedded Resource.
+		 * @throws RelNotFoundException if the Relation Name is inexistant in the Resource.
+		 */
+		private Object next(int index, Resource resource) {
+			Follow follow = follows.get(index);
+			String url;
+			if (resource == null) {
+				url = startUrl;
+			} else {
+				// The hypertext cache pattern, as HapiClient#send(Follow, Resource)
+				Resource embeddedResource = resource.findEmbeddedResource(follow.getRel());
+				if (embeddedResource != null) {
+					stable = false;
+					return embeddedResource;
+				}
+
+				url = follow.getUrl(resource);
+				if (stable)
+					urls.set(index, url);
+			}
+
+			stable = stable && isStable(follow, url, urlVariables);
+			return HapiClient.toRequest(follow, url, urlVariables);
+		}
+	}
+
+}
@@ -13,4 +13,18 @@ public interface AuthenticationMethod {
 	 * @throws HttpException if the Authentication request fails
 	 */
 	public void authorizeRequest(final HapiClient hapiClient, final HttpUriRequest httpRequest) throws HttpException;
+	
+	/**
+	 * This is called when the server answered 401 (Unauthorized) to a request
+	 * authorized by {@link #authorizeRequest(HapiClient, HttpUriRequest)},
+	 * right before sending it again.
+	 * <p>
+	 * By default, the request is just authorized again.
+	 * @param hapiClient	The client used to send the request.
+	 * @param httpRequest	The HTTP request rejected by the server.
+	 * @throws HttpException if the Authentication request fails
+	 */
+	public default void reauthorizeRequest(final HapiClient hapiClient, final HttpUriRequest httpRequest) throws HttpException {
+		authorizeRequest(hapiClient, httpRequest);
+	}
 }
@@ -1,6 +1,8 @@
 package com.slimpay.hapiclient.http.auth;
 
-
+/**
+ * An immutable access token and its expiration time.
+ */
 public final class ExpirableToken {
 	private final String value;
 	private final Long expirationTime;
@@ -0,0 +1,116 @@
+package com.slimpay.hapiclient.http.auth;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.Properties;
+
+/**
+ * A {@link TokenStore} keeping the token in a properties file.
+ * <p>
+ * The file is replaced atomically (when the file system allows it)
+ * so that concurrent processes never read a partially written token,
+ * and it is only readable by its owner on POSIX file systems.
+ * <p>
+ * <strong>IMPORTANT:</strong> use one file per userid and scope.
+ */
+public final class FileTokenStore implements TokenStore {
+	private static final String VALUE = "value";
+	private static final String EXPIRATION_TIME = "expirationTime";
+	
+	private final Path file;
+	
+	/**
+	 * @param file	The file containing the token.
+	 * 				It does not need to exist yet.
+	 */
+	public FileTokenStore(Path file) {
+		if (file == null)
+			throw new IllegalArgumentException("The file is mandatory.");
+		
+		this.file = file.toAbsolutePath();
+	}
+	
+	/**
+	 * @return	The file containing the token.
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * @return	The stored token or null if the file
+	 * 			does not exist or can't be read.
+	 */
+	public ExpirableToken load() {
+		if (!Files.isRegularFile(file))
+			return null;
+		
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(file)) {
+			properties.load(in);
+			
+			String value = properties.getProperty(VALUE);
+			String expirationTime = properties.getProperty(EXPIRATION_TIME);
+			if (value == null || expirationTime == null)
+				return null;
+			
+			return new ExpirableToken(value, Long.valueOf(expirationTime));
+		} catch (IOException | IllegalArgumentException ignored) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param token	The token replacing the stored one.
+	 * @throws UncheckedIOException if the file can't be written.
+	 */
+	public void save(ExpirableToken token) {
+		Properties properties = new Properties();
+		properties.setProperty(VALUE, token.getValue());
+		properties.setProperty(EXPIRATION_TIME, String.valueOf(token.getExpirationTime()));
+		
+		Path temporaryFile = null;
+		try {
+			Path directory = file.getParent();
+			Files.createDirectories(directory);
+			temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+			restrictToOwner(temporaryFile);
+			
+			try (OutputStream out = Files.newOutputStream(temporaryFile)) {
+				properties.store(out, null);
+			}
+			
+			try {
+				Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Couldn't store the token in " + file + ".", e);
+		} finally {
+			if (temporaryFile != null)
+				try {
+					Files.deleteIfExists(temporaryFile);
+				} catch (IOException ignored) { }
+		}
+	}
+	
+	/**
+	 * Makes the file only readable and writable by its owner
+	 * if the file system supports POSIX permissions.
+	 */
+	private static void restrictToOwner(Path file) throws IOException {
+		try {
+			Files.setPosixFilePermissions(file, EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+		} catch (UnsupportedOperationException ignored) { }
+	}
+
+}
@@ -0,0 +1,488 @@
+package com.slimpay.hapiclient.http.auth;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+import com.slimpay.hapiclient.exception.HttpException;
+import com.slimpay.hapiclient.http.HapiClient;
+
+/**
+ * The {@link Oauth2BasicAuthentication} of many tenants (e.g. creditors)
+ * sharing the same token end point.
+ * <p>
+ * Each tenant gets its own access token, cached in a bounded
+ * concurrent map keyed by its userid, password and scope.
+ * The tenants that have not sent any request for a while are evicted
+ * in the background by the {@link Builder#setEvictionScheduler(ScheduledExecutorService)
+ * eviction scheduler} and, when the map is full, the tenants whose token
+ * has expired then the least recently used ones are evicted first.
+ * <p>
+ * {@link #forTenant(String, String)} returns the authentication method
+ * of a tenant, to be set on a
+ * {@link com.slimpay.hapiclient.http.Request.Builder#setAuthenticationMethod(AuthenticationMethod) request}
+ * (or a {@link com.slimpay.hapiclient.http.Follow.Builder#setAuthenticationMethod(AuthenticationMethod) follow})
+ * so that a single HapiClient, and its connection pool, serves all the tenants:
+ * <pre>
+ * MultiTenantOauth2Authentication tenants = new MultiTenantOauth2Authentication.Builder()
+ *     .setTokenEndPointUrl("/oauth/token")
+ *     .build();
+ *
+ * Resource creditor = hapiClient.send(new Follow.Builder(rel)
+ *     .setAuthenticationMethod(tenants.forTenant(userid, password))
+ *     .build());
+ * </pre>
+ * Note: the entry point Resource is shared by all the tenants
+ * and requested with the authentication method of the HapiClient.
+ */
+public final class MultiTenantOauth2Authentication {
+	private final String tokenEndPointUrl;
+	private final String grantType;
+	private final String scope;
+	private final int maximumTenants;
+	private final long idleTimeout;
+	private final ScheduledExecutorService evictionScheduler;
+
+	private final ConcurrentMap<TenantKey, TenantEntry> tenants = new ConcurrentHashMap<TenantKey, TenantEntry>();
+	private final Lock evictionLock = new ReentrantLock();
+	/**
+	 * Whether the eviction of the idle tenants is scheduled.
+	 */
+	private final AtomicBoolean idleEvictionScheduled = new AtomicBoolean();
+
+	/**
+	 * @see Builder
+	 */
+	private MultiTenantOauth2Authentication(String tokenEndPointUrl, String grantType, String scope,
+			int maximumTenants, long idleTimeout, ScheduledExecutorService evictionScheduler) {
+		this.tokenEndPointUrl = tokenEndPointUrl;
+		this.grantType = grantType;
+		this.scope = scope;
+		this.maximumTenants = maximumTenants;
+		this.idleTimeout = idleTimeout;
+		this.evictionScheduler = evictionScheduler != null ? evictionScheduler : EvictionScheduler.INSTANCE;
+	}
+
+	/**
+	 * @return	The server access token end point URL
+	 */
+	public String getTokenEndPointUrl() {
+		return tokenEndPointUrl;
+	}
+
+	/**
+	 * @return	The grant_type parameter
+	 */
+	public String getGrantType() {
+		return grantType;
+	}
+
+	/**
+	 * @return	The default scope parameter
+	 */
+	public String getScope() {
+		return scope;
+	}
+
+	/**
+	 * @return	The number of tenants currently cached.
+	 */
+	public int size() {
+		return tenants.size();
+	}
+
+	/**
+	 * @param userid	The first part of the Basic authentication of the tenant
+	 * @param password	The second part of the Basic authentication of the tenant
+	 * @return	The authentication method of the tenant, using the default scope.
+	 */
+	public AuthenticationMethod forTenant(String userid, String password) {
+		return forTenant(userid, password, scope);
+	}
+
+	/**
+	 * The returned authentication methods are equal as long as
+	 * the credentials and the scope are: they can be created
+	 * for each request or kept by the caller.
+	 * @param userid	The first part of the Basic authentication of the tenant
+	 * @param password	The second part of the Basic authentication of the tenant
+	 * @param scope		The scope parameter
+	 * @return	The authentication method of the tenant.
+	 */
+	public AuthenticationMethod forTenant(String userid, String password, String scope) {
+		return new Tenant(new TenantKey(userid, password, scope));
+	}
+
+	/**
+	 * Removes the token of the tenant from the cache,
+	 * e.g. when its credentials are revoked.
+	 * @param userid	The first part of the Basic authentication of the tenant
+	 * @param password	The second part of the Basic authentication of the tenant
+	 * @param scope		The scope parameter
+	 */
+	public void evict(String userid, String password, String scope) {
+		tenants.remove(new TenantKey(userid, password, scope));
+	}
+
+	/**
+	 * Removes all the tokens from the cache.
+	 */
+	public void evictAll() {
+		tenants.clear();
+	}
+
+	/**
+	 * @param key	The tenant key.
+	 * @return	The Oauth2 authentication of the tenant,
+	 * 			created (without requesting any token yet) if not cached.
+	 */
+	private Oauth2BasicAuthentication getAuthentication(TenantKey key) {
+		long now = System.nanoTime();
+		TenantEntry entry = tenants.get(key);
+		if (entry == null) {
+			entry = new TenantEntry(new Oauth2BasicAuthentication.Builder()
+				.setTokenEndPointUrl(tokenEndPointUrl)
+				.setUserid(key.userid)
+				.setPassword(key.password)
+				.setGrantType(grantType)
+				.setScope(key.scope)
+				.build(), now);
+
+			TenantEntry cached = tenants.putIfAbsent(key, entry);
+			if (cached == null) {
+				evictExcess();
+				scheduleIdleEviction();
+				return entry.authentication;
+			}
+			entry = cached;
+		}
+
+		entry.lastAccess = now;
+		return entry.authentication;
+	}
+
+	/**
+	 * If the cache is full, evicts the tenants whose token expired
+	 * then the least recently used ones until a tenth of
+	 * the cache is free again.
+	 * <p>
+	 * This is called by each thread adding a tenant, which waits for
+	 * the thread evicting if any: the cache only exceeds its bound
+	 * by the tenants being added at the same time.
+	 */
+	private void evictExcess() {
+		if (tenants.size() <= maximumTenants)
+			return;
+
+		evictionLock.lock();
+		try {
+			int excess = tenants.size() - maximumTenants;
+			if (excess <= 0)
+				return;
+			excess += maximumTenants / 10;
+
+			final Long time = TimeUnit.MILLISECONDS.toSeconds(new Date().getTime());
+			List<Map.Entry<TenantKey, TenantEntry>> candidates =
+					new ArrayList<Map.Entry<TenantKey, TenantEntry>>(tenants.entrySet());
+			for (Map.Entry<TenantKey, TenantEntry> candidate : candidates)
+				candidate.getValue().snapshot(time);
+			Collections.sort(candidates, EVICTION_ORDER);
+
+			for (int i = 0; i < excess && i < candidates.size(); i++)
+				tenants.remove(candidates.get(i).getKey(), candidates.get(i).getValue());
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Schedules the eviction of the idle tenants, if it is not already,
+	 * once per idle timeout as long as some tenants are cached.
+	 * If the eviction scheduler is shut down, only the least
+	 * recently used tenants are evicted, when the cache is full.
+	 */
+	private void scheduleIdleEviction() {
+		if (!idleEvictionScheduled.compareAndSet(false, true))
+			return;
+
+		try {
+			evictionScheduler.schedule(this::evictIdleTenants, idleTimeout, TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException e) {
+			idleEvictionScheduled.set(false);
+		}
+	}
+
+	/**
+	 * Evicts the tenants that have not sent any request during the idle timeout,
+	 * from the eviction scheduler.
+	 */
+	private void evictIdleTenants() {
+		long now = System.nanoTime();
+		for (Map.Entry<TenantKey, TenantEntry> tenant : tenants.entrySet()) {
+			if (now - tenant.getValue().lastAccess >= idleTimeout)
+				tenants.remove(tenant.getKey(), tenant.getValue());
+		}
+
+		idleEvictionScheduled.set(false);
+		// Until the cache is empty, so that the scheduler doesn't keep this instance
+		if (!tenants.isEmpty())
+			scheduleIdleEviction();
+	}
+
+	/**
+	 * The tenants whose token expired first, then the least recently used ones.
+	 */
+	private static final Comparator<Map.Entry<TenantKey, TenantEntry>> EVICTION_ORDER =
+			new Comparator<Map.Entry<TenantKey, TenantEntry>>() {
+		public int compare(Map.Entry<TenantKey, TenantEntry> a, Map.Entry<TenantKey, TenantEntry> b) {
+			if (a.getValue().expired != b.getValue().expired)
+				return a.getValue().expired ? -1 : 1;
+			return Long.compare(a.getValue().sortedAccess, b.getValue().sortedAccess);
+		}
+	};
+
+	/**
+	 * The cache key: the credentials and the scope of a tenant.
+	 */
+	private static final class TenantKey {
+		private final String userid;
+		private final String password;
+		private final String scope;
+		private final int hash;
+
+		private TenantKey(String userid, String password, String scope) {
+			this.userid = userid;
+			this.password = password;
+			this.scope = scope;
+
+			int hash = userid != null ? userid.hashCode() : 0;
+			hash = 31 * hash + (password != null ? password.hashCode() : 0);
+			hash = 31 * hash + (scope != null ? scope.hashCode() : 0);
+			this.hash = hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof TenantKey))
+				return false;
+
+			TenantKey other = (TenantKey) obj;
+			return hash == other.hash &&
+				equal(userid, other.userid) &&
+				equal(password, other.password) &&
+				equal(scope, other.scope);
+		}
+
+		private static boolean equal(String a, String b) {
+			return a == null ? b == null : a.equals(b);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public String toString() {
+			// Never print the password
+			return userid + " (" + scope + ")";
+		}
+	}
+
+	/**
+	 * A cached tenant.
+	 */
+	private static final class TenantEntry {
+		private final Oauth2BasicAuthentication authentication;
+		private volatile long lastAccess;
+
+		// Snapshots taken before sorting the entries to evict
+		private boolean expired;
+		private long sortedAccess;
+
+		private TenantEntry(Oauth2BasicAuthentication authentication, long lastAccess) {
+			this.authentication = authentication;
+			this.lastAccess = lastAccess;
+		}
+
+		private void snapshot(Long time) {
+			ExpirableToken token = authentication.getToken();
+			// A tenant just added has no token yet
+			expired = token != null && !token.isValidUntil(time);
+			sortedAccess = lastAccess;
+		}
+	}
+
+	/**
+	 * The authentication method of a tenant,
+	 * looking its token up in the cache for each request.
+	 */
+	private final class Tenant implements AuthenticationMethod {
+		private final TenantKey key;
+
+		private Tenant(TenantKey key) {
+			this.key = key;
+		}
+
+		public void authorizeRequest(HapiClient hapiClient, HttpUriRequest httpRequest) throws HttpException {
+			getAuthentication(key).authorizeRequest(hapiClient, httpRequest);
+		}
+
+		@Override
+		public void reauthorizeRequest(HapiClient hapiClient, HttpUriRequest httpRequest) throws HttpException {
+			getAuthentication(key).reauthorizeRequest(hapiClient, httpRequest);
+		}
+
+		private MultiTenantOauth2Authentication getOwner() {
+			return MultiTenantOauth2Authentication.this;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Tenant))
+				return false;
+
+			Tenant other = (Tenant) obj;
+			return getOwner() == other.getOwner() && key.equals(other.key);
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "Tenant " + key;
+		}
+	}
+
+	/**
+	 * The daemon thread evicting the idle tenants by default,
+	 * shared by all the instances and only started when first needed.
+	 */
+	private static final class EvictionScheduler {
+		private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "hapiclient-tenant-eviction");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * The {@link MultiTenantOauth2Authentication} builder
+	 */
+	public static class Builder {
+		private String tokenEndPointUrl;
+		private String grantType;
+		private String scope;
+		private int maximumTenants;
+		private long idleTimeout;
+		private ScheduledExecutorService evictionScheduler;
+
+		/**
+		 * The Oauth2 authentication method of many tenants.
+		 * <p>
+		 * The default grant_type parameter is "client_credentials",
+		 * the default scope is "api", at most 10000 tenants are cached
+		 * and they are evicted after 1 hour without any request.
+		 */
+		public Builder() {
+			grantType = "client_credentials";
+			scope = "api";
+			maximumTenants = 10000;
+			idleTimeout = TimeUnit.HOURS.toNanos(1);
+		}
+
+		/**
+		 * @param tokenEndPointUrl	The server access token end point URL
+		 * 							(absolute or relative to the client API URL)
+		 * @return	The builder.
+		 */
+		public Builder setTokenEndPointUrl(String tokenEndPointUrl) {
+			this.tokenEndPointUrl = tokenEndPointUrl;
+			return this;
+		}
+
+		/**
+		 * @param grantType		The grant_type parameter
+		 * @return	The builder.
+		 */
+		public Builder setGrantType(String grantType) {
+			this.grantType = grantType;
+			return this;
+		}
+
+		/**
+		 * @param scope		The scope parameter used by {@link MultiTenantOauth2Authentication#forTenant(String, String)}
+		 * @return	The builder.
+		 */
+		public Builder setScope(String scope) {
+			this.scope = scope;
+			return this;
+		}
+
+		/**
+		 * @param maximumTenants	The maximum number of tenants cached.
+		 * @return	The builder.
+		 */
+		public Builder setMaximumTenants(int maximumTenants) {
+			if (maximumTenants < 1)
+				throw new IllegalArgumentException("The maximum number of tenants must be positive.");
+
+			this.maximumTenants = maximumTenants;
+			return this;
+		}
+
+		/**
+		 * @param idleTimeout	How long a tenant is cached without any request.
+		 * @param unit			The unit of the idle timeout.
+		 * @return	The builder.
+		 */
+		public Builder setIdleTimeout(long idleTimeout, TimeUnit unit) {
+			this.idleTimeout = unit.toNanos(idleTimeout);
+			return this;
+		}
+
+		/**
+		 * Optional.
+		 * Evicts the idle tenants with the given scheduler rather than with
+		 * a daemon thread shared by all the {@link MultiTenantOauth2Authentication}s.
+		 * <p>
+		 * The scheduler is not shut down by this authentication method.
+		 * @param evictionScheduler	The scheduler evicting the idle tenants.
+		 * @return	The builder.
+		 */
+		public Builder setEvictionScheduler(ScheduledExecutorService evictionScheduler) {
+			this.evictionScheduler = evictionScheduler;
+			return this;
+		}
+
+		/**
+		 * @return {@link MultiTenantOauth2Authentication}
+		 */
+		public MultiTenantOauth2Authentication build() {
+			return new MultiTenantOauth2Authentication(tokenEndPointUrl, grantType, scope,
+				maximumTenants, idleTimeout, evictionScheduler);
+		}
+	}
+
+}
@@ -1,7 +1,13 @@
 package com.slimpay.hapiclient.http.auth;
 
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.json.JsonObject;
 
@@ -20,6 +26,24 @@ import com.slimpay.hapiclient.http.UrlEncodedBody;
  * The <a href="https://tools.ietf.org/html/rfc6749">Oauth2 authentication</a> using a
  * <a href="https://tools.ietf.org/html/rfc2617#section-2">Basic authentication</a>
  * to get the access token.
+ * <p>
+ * Authorizing a request only reads the current (immutable) token:
+ * no lock is involved as long as the token is valid. When it is not,
+ * the first caller requests a new one and the concurrent callers wait
+ * for that same request instead of sending their own.
+ * <p>
+ * The same goes for the requests rejected with a 401 (Unauthorized):
+ * the token they were authorized with is only replaced once, and
+ * the requests authorized with any other Bearer token (e.g. one that
+ * has already been replaced) are just authorized again with the current one.
+ * <p>
+ * With a {@link Builder#setRefreshScheduler(ScheduledExecutorService) refresh scheduler},
+ * the token is also refreshed in the background a little before it expires
+ * so that the requests do not have to wait for the token end point.
+ * <p>
+ * With a {@link Builder#setTokenStore(TokenStore) token store}, a token
+ * obtained by another process (or before a restart) is reused as long as
+ * it is valid.
  */
 public final class Oauth2BasicAuthentication implements AuthenticationMethod {
 	private final String tokenEndPointUrl;
@@ -27,18 +51,44 @@ public final class Oauth2BasicAuthentication implements AuthenticationMethod {
 	private final String password;
 	private final String grantType;
 	private final String scope;
+	private final ScheduledExecutorService refreshScheduler;
+	private final long refreshLeadTime;
+	private final long refreshJitter;
+	private final TokenStore tokenStore;
 	
-	private ExpirableToken token;
+	private volatile ExpirableToken token;
+	/**
+	 * The last client the requests were authorized for, used by the refresh
+	 * of a token which was not requested with a client (set or stored).
+	 */
+	private volatile HapiClient lastClient;
+	private final AtomicReference<CompletableFuture<ExpirableToken>> tokenRequest =
+			new AtomicReference<CompletableFuture<ExpirableToken>>();
 	
 	/**
 	 * @see Builder#Builder()
 	 */
-	private Oauth2BasicAuthentication(String tokenEndPointUrl, String userid, String password, String grantType, String scope, ExpirableToken token) {
+	private Oauth2BasicAuthentication(String tokenEndPointUrl, String userid, String password, String grantType, String scope, ExpirableToken token,
+			ScheduledExecutorService refreshScheduler, long refreshLeadTime, long refreshJitter, TokenStore tokenStore) {
 		this.tokenEndPointUrl = tokenEndPointUrl;
 		this.userid = userid;
 		this.password = password;
 		this.grantType = grantType;
 		this.scope = scope;
+		this.refreshScheduler = refreshScheduler;
+		this.refreshLeadTime = refreshLeadTime;
+		this.refreshJitter = refreshJitter;
+		this.tokenStore = tokenStore;
+		
+		// The stored token may have been refreshed by another process
+		if (!isStillValid(token))
+			token = loadStoredToken();
+		
+		this.token = token;
+		
+		// A token set or stored is refreshed before it expires as well
+		if (isStillValid(token))
+			scheduleRefresh(null, token);
 	}
 
 	/**
@@ -79,7 +129,7 @@ public final class Oauth2BasicAuthentication implements AuthenticationMethod {
 	/**
 	 * @return	The last token used.
 	 */
-	public synchronized ExpirableToken getToken() {
+	public ExpirableToken getToken() {
 		return token;
 	}
 
@@ -90,19 +140,69 @@ public final class Oauth2BasicAuthentication implements AuthenticationMethod {
 	 * @param httpRequest		The HTTP request before it is sent.
 	 * @throws HttpException if the Authentication request fails
 	 */
-	public synchronized void authorizeRequest(final HapiClient hapiClient, final HttpUriRequest httpRequest) throws HttpException {
+	public void authorizeRequest(final HapiClient hapiClient, final HttpUriRequest httpRequest) throws HttpException {
+		if (refreshScheduler != null && lastClient != hapiClient)
+			lastClient = hapiClient;
+		
 		if (isRequestAuthorized(httpRequest))
 			return;
 		
 		// Request a new access token if needed
-		if (!isTokenStillValid())
-			getAccessToken(hapiClient);
+		ExpirableToken token = this.token;
+		if (!isStillValid(token))
+			token = refreshToken(hapiClient, token);
 		
 		// We have a valid token (make sure to clean the Authorization header)
 		httpRequest.removeHeaders("Authorization");
 		httpRequest.addHeader("Authorization", "Bearer " + token.getValue());
 	}
 	
+	/**
+	 * Replaces the token the request was rejected with, unless it has
+	 * already been replaced, and authorizes the request with the new token.
+	 * <p>
+	 * A request authorized with any other Bearer token (an older token,
+	 * or one set by the caller) is authorized with the current token,
+	 * which is only requested if it is not valid anymore.
+	 * Requests authorized with another scheme (e.g. a Basic Authorization)
+	 * are left untouched.
+	 * @param hapiClient		The client used to send the request.
+	 * @param httpRequest		The HTTP request rejected by the server.
+	 * @throws HttpException if the Authentication request fails
+	 */
+	@Override
+	public void reauthorizeRequest(final HapiClient hapiClient, final HttpUriRequest httpRequest) throws HttpException {
+		Header authorization = httpRequest.getFirstHeader("Authorization");
+		if (authorization == null) {
+			authorizeRequest(hapiClient, httpRequest);
+			return;
+		}
+		
+		if (!authorization.getValue().startsWith("Bearer "))
+			return;
+		
+		ExpirableToken token = this.token;
+		if (isAuthorizedWith(authorization, token)) {
+			// The current token has been rejected
+			token = refreshToken(hapiClient, token);
+		} else if (!isStillValid(token)) {
+			// The request was authorized with a stale token
+			token = refreshToken(hapiClient, token);
+		}
+		
+		httpRequest.removeHeaders("Authorization");
+		httpRequest.addHeader("Authorization", "Bearer " + token.getValue());
+	}
+	
+	/**
+	 * @param authorization	The Authorization header of a request.
+	 * @param token			A token (may be null).
+	 * @return true if the request is authorized with the given token
+	 */
+	private static boolean isAuthorizedWith(final Header authorization, final ExpirableToken token) {
+		return token != null && authorization.getValue().equals("Bearer " + token.getValue());
+	}
+	
 	/**
 	 * Checks if the request contains a Basic or Bearer Authorization.
 	 * @param httpRequest	The HTTP request before it is sent.
@@ -116,11 +216,176 @@ public final class Oauth2BasicAuthentication implements AuthenticationMethod {
 			return authorization.getValue().startsWith("Basic") || authorization.getValue().startsWith("Bearer");
 	}
 
+	/**
+	 * Returns a valid token replacing the given one, requesting a new one
+	 * if no other thread is already doing so, or waiting for the request
+	 * sent by that other thread otherwise.
+	 * @param hapiClient	The client used to send the request.
+	 * @param staleToken	The token to replace (may be null).
+	 * @return	The valid token.
+	 * @throws HttpException if the Authentication request fails
+	 */
+	private ExpirableToken refreshToken(final HapiClient hapiClient, final ExpirableToken staleToken) throws HttpException {
+		while (true) {
+			// Another thread may just have refreshed it
+			ExpirableToken token = this.token;
+			if (token != staleToken && isStillValid(token))
+				return token;
+			
+			CompletableFuture<ExpirableToken> pendingRequest = tokenRequest.get();
+			if (pendingRequest != null)
+				return await(pendingRequest);
+			
+			CompletableFuture<ExpirableToken> request = new CompletableFuture<ExpirableToken>();
+			if (!tokenRequest.compareAndSet(null, request))
+				continue;
+			
+			try {
+				// The previous request may have completed right before this one started
+				token = this.token;
+				if (token == staleToken || !isStillValid(token)) {
+					token = fetchToken(hapiClient, staleToken);
+					this.token = token;
+					scheduleRefresh(hapiClient, token);
+				}
+				
+				request.complete(token);
+				return token;
+			} catch (Throwable e) {
+				request.completeExceptionally(e);
+				throw e;
+			} finally {
+				tokenRequest.compareAndSet(request, null);
+			}
+		}
+	}
+	
+	/**
+	 * Gets a new token from the token store if another process
+	 * stored one, or from the token end point otherwise.
+	 * @param hapiClient	The client used to send the request.
+	 * @param staleToken	The token to replace (may be null).
+	 * @return	The new token.
+	 * @throws HttpException if the Authentication request fails
+	 */
+	private ExpirableToken fetchToken(final HapiClient hapiClient, final ExpirableToken staleToken) throws HttpException {
+		ExpirableToken token = loadStoredToken();
+		if (isStillValid(token) && (staleToken == null || !token.getValue().equals(staleToken.getValue())))
+			return token;
+		
+		token = getAccessToken(hapiClient);
+		saveToken(token);
+		return token;
+	}
+	
+	/**
+	 * @return	The token of the token store or null
+	 * 			if there is no token store.
+	 */
+	private ExpirableToken loadStoredToken() {
+		return tokenStore != null ? tokenStore.load() : null;
+	}
+	
+	/**
+	 * Saves the token in the token store if there is one.
+	 * Failing to do so only means another process will have
+	 * to request a new token.
+	 * @param token	The new token.
+	 */
+	private void saveToken(ExpirableToken token) {
+		if (tokenStore == null)
+			return;
+		
+		try {
+			tokenStore.save(token);
+		} catch (RuntimeException ignored) { }
+	}
+	
+	/**
+	 * Schedules the refresh of the token before it expires
+	 * if a refresh scheduler is set.
+	 * <p>
+	 * The token is never refreshed before half of its remaining lifetime,
+	 * so that a token living less than the lead time and the jitter
+	 * is not refreshed as soon as it is received, again and again.
+	 * @param hapiClient	The client used to send the request, or null
+	 * 						to use the last client a request was authorized for.
+	 * @param token			The token to refresh.
+	 */
+	private void scheduleRefresh(final HapiClient hapiClient, final ExpirableToken token) {
+		if (refreshScheduler == null || token.getExpirationTime() == null)
+			return;
+		
+		// Spread the refreshes of the clients sharing the same credentials
+		long jitter = refreshJitter > 0 ? ThreadLocalRandom.current().nextLong(refreshJitter) : 0;
+		long lifetime = TimeUnit.SECONDS.toMillis(token.getExpirationTime()) - System.currentTimeMillis();
+		long delay = lifetime - refreshLeadTime - jitter;
+		
+		scheduleRefresh(hapiClient, token, Math.max(delay, Math.max(lifetime / 2, 0)));
+	}
+	
+	/**
+	 * Schedules the refresh of the token after the given delay.
+	 * <p>
+	 * The refresh is skipped if the token has been replaced in the meantime.
+	 * If it fails while the token is still valid, it is tried again
+	 * after a quarter of the lead time.
+	 * The refresh of a token which was not requested with a client waits
+	 * the same way for a request to be authorized.
+	 * @param hapiClient	The client used to send the request, or null
+	 * 						to use the last client a request was authorized for.
+	 * @param token			The token to refresh.
+	 * @param delay			The delay in milliseconds.
+	 */
+	private void scheduleRefresh(final HapiClient hapiClient, final ExpirableToken token, long delay) {
+		try {
+			refreshScheduler.schedule(() -> {
+				if (this.token != token)
+					return;
+				
+				HapiClient client = hapiClient != null ? hapiClient : lastClient;
+				try {
+					if (client == null)
+						throw new IllegalStateException("No request has been authorized yet.");
+					refreshToken(client, token);
+				} catch (Exception e) {
+					long retryDelay = Math.max(refreshLeadTime / 4, TimeUnit.SECONDS.toMillis(1));
+					if (token.isValidUntil(getTime() + TimeUnit.MILLISECONDS.toSeconds(retryDelay)))
+						scheduleRefresh(hapiClient, token, retryDelay);
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException ignored) {
+			// The scheduler is shut down: tokens are refreshed when they expire.
+		}
+	}
+	
+	/**
+	 * Waits for the token requested by another thread.
+	 * @param request	The pending token request.
+	 * @return	The new token.
+	 * @throws HttpException if the Authentication request failed
+	 */
+	private static ExpirableToken await(final CompletableFuture<ExpirableToken> request) throws HttpException {
+		try {
+			return request.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof HttpException)
+				throw (HttpException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw e;
+		}
+	}
+
 	/**
 	 * Sends a request for an access token.
 	 * @param hapiClient	The client used to send the request.
+	 * @return	The new token.
 	 */
-	private synchronized void getAccessToken(final HapiClient hapiClient) throws HttpException {
+	private ExpirableToken getAccessToken(final HapiClient hapiClient) throws HttpException {
 		String basic = new String(Base64.encodeBase64((userid + ":" + password).getBytes()));
 		Header acceptHeader = new BasicHeader("Accept", "application/json");
 		Header authorizationHeader = new BasicHeader("Authorization", "Basic " + basic);
@@ -143,16 +408,16 @@ public final class Oauth2BasicAuthentication implements AuthenticationMethod {
 		if (state == null || !state.containsKey("access_token") || !state.containsKey("expires_in"))
 			throw new RuntimeException("The authentication was a success but the response did not contain the token or its validity limit.");
 		
-		// We update the token
-		token = new ExpirableToken(state.getString("access_token"), getTime() + Long.valueOf(state.getInt("expires_in")));
+		return new ExpirableToken(state.getString("access_token"), getTime() + Long.valueOf(state.getInt("expires_in")));
 	}
 	
 	/**
 	 * Checks if the token is still valid at the time
 	 * this method is called.
+	 * @param token	The token to check.
 	 * @return boolean
 	 */
-	private synchronized boolean isTokenStillValid() {
+	private boolean isStillValid(ExpirableToken token) {
 		return token != null && token.isValidUntil(getTime());
 	}
 	
@@ -175,6 +440,10 @@ public final class Oauth2BasicAuthentication implements AuthenticationMethod {
 		private String grantType;
 		private String scope;
 		private ExpirableToken token;
+		private ScheduledExecutorService refreshScheduler;
+		private long refreshLeadTime;
+		private long refreshJitter;
+		private TokenStore tokenStore;
 		
 		/**
 		 * The Oauth2 authentication method using the
@@ -187,6 +456,8 @@ public final class Oauth2BasicAuthentication implements AuthenticationMethod {
 		public Builder() {
 			grantType = "client_credentials";
 			scope = "api";
+			refreshLeadTime = TimeUnit.SECONDS.toMillis(60);
+			refreshJitter = TimeUnit.SECONDS.toMillis(30);
 		}
 		
 		/**
@@ -247,11 +518,72 @@ public final class Oauth2BasicAuthentication implements AuthenticationMethod {
 			return this;
 		}
 
+		/**
+		 * Optional.
+		 * Refreshes the token in the background, using the given scheduler,
+		 * a little before it expires (see {@link #setRefreshLeadTime(long, TimeUnit)})
+		 * instead of when a request finds it expired. A token {@link #setToken(ExpirableToken) set}
+		 * or read from the {@link #setTokenStore(TokenStore) token store} is refreshed as well,
+		 * with the client of the last request authorized.
+		 * <p>
+		 * The scheduler is not shut down by this authentication method.
+		 * @param refreshScheduler	The scheduler running the refreshes.
+		 * @return	The builder.
+		 */
+		public Builder setRefreshScheduler(ScheduledExecutorService refreshScheduler) {
+			this.refreshScheduler = refreshScheduler;
+			return this;
+		}
+
+		/**
+		 * Overrides the default lead time (60 seconds):
+		 * how long before its expiration the token is refreshed
+		 * by the {@link #setRefreshScheduler(ScheduledExecutorService) refresh scheduler}.
+		 * A token living less than twice the lead time and the jitter
+		 * is refreshed at half of its lifetime instead.
+		 * @param refreshLeadTime	The lead time.
+		 * @param unit				The unit of the lead time.
+		 * @return	The builder.
+		 */
+		public Builder setRefreshLeadTime(long refreshLeadTime, TimeUnit unit) {
+			this.refreshLeadTime = unit.toMillis(refreshLeadTime);
+			return this;
+		}
+
+		/**
+		 * Overrides the default jitter (30 seconds):
+		 * the maximum random time added to the lead time so that
+		 * clients sharing the same credentials do not all refresh
+		 * their token at the same time.
+		 * @param refreshJitter	The maximum jitter.
+		 * @param unit			The unit of the jitter.
+		 * @return	The builder.
+		 */
+		public Builder setRefreshJitter(long refreshJitter, TimeUnit unit) {
+			this.refreshJitter = unit.toMillis(refreshJitter);
+			return this;
+		}
+
+		/**
+		 * Optional.
+		 * Reads the token from the given store when the authentication
+		 * method is built (unless a valid token is {@link #setToken(ExpirableToken) set})
+		 * or before requesting a new one, and writes the new tokens to it.
+		 * @param tokenStore	The token store.
+		 * @return	The builder.
+		 * @see FileTokenStore
+		 */
+		public Builder setTokenStore(TokenStore tokenStore) {
+			this.tokenStore = tokenStore;
+			return this;
+		}
+
 		/**
 		 * @return {@link Oauth2BasicAuthentication}
 		 */
 		public Oauth2BasicAuthentication build() {
-			return new Oauth2BasicAuthentication(tokenEndPointUrl, userid, password, grantType, scope, token);
+			return new Oauth2BasicAuthentication(tokenEndPointUrl, userid, password, grantType, scope, token,
+				refreshScheduler, refreshLeadTime, refreshJitter, tokenStore);
 		}
 	}
 
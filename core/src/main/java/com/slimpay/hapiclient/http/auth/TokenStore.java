@@ -0,0 +1,25 @@
+package com.slimpay.hapiclient.http.auth;
+
+/**
+ * Keeps the access token of an {@link Oauth2BasicAuthentication}
+ * outside of the process so that other processes using the same
+ * credentials (or the same process after a restart) can reuse it
+ * instead of requesting a new one.
+ * @see FileTokenStore
+ */
+public interface TokenStore {
+	/**
+	 * This is called when the authentication method is built and
+	 * before it requests a new token.
+	 * @return	The stored token or null if there is none.
+	 * 			The token may not be valid anymore.
+	 */
+	public ExpirableToken load();
+	
+	/**
+	 * This is called each time the authentication method gets a new token.
+	 * Failing to store it only means another process will request its own.
+	 * @param token	The token replacing the stored one.
+	 */
+	public void save(ExpirableToken token);
+}
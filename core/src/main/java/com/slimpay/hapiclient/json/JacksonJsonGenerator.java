@@ -0,0 +1,259 @@
+package com.slimpay.hapiclient.json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.stream.JsonGenerationException;
+import javax.json.stream.JsonGenerator;
+
+/**
+ * A javax.json JsonGenerator writing through a Jackson generator.
+ */
+final class JacksonJsonGenerator implements JsonGenerator {
+	private final com.fasterxml.jackson.core.JsonGenerator generator;
+
+	/**
+	 * @param generator	The Jackson generator.
+	 */
+	JacksonJsonGenerator(com.fasterxml.jackson.core.JsonGenerator generator) {
+		this.generator = generator;
+	}
+
+	@Override
+	public JsonGenerator writeStartObject() {
+		try {
+			generator.writeStartObject();
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public JsonGenerator writeStartObject(String name) {
+		return writeName(name).writeStartObject();
+	}
+
+	@Override
+	public JsonGenerator writeStartArray() {
+		try {
+			generator.writeStartArray();
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public JsonGenerator writeStartArray(String name) {
+		return writeName(name).writeStartArray();
+	}
+
+	@Override
+	public JsonGenerator write(String name, JsonValue value) {
+		return writeName(name).write(value);
+	}
+
+	@Override
+	public JsonGenerator write(String name, String value) {
+		return writeName(name).write(value);
+	}
+
+	@Override
+	public JsonGenerator write(String name, BigInteger value) {
+		return writeName(name).write(value);
+	}
+
+	@Override
+	public JsonGenerator write(String name, BigDecimal value) {
+		return writeName(name).write(value);
+	}
+
+	@Override
+	public JsonGenerator write(String name, int value) {
+		return writeName(name).write(value);
+	}
+
+	@Override
+	public JsonGenerator write(String name, long value) {
+		return writeName(name).write(value);
+	}
+
+	@Override
+	public JsonGenerator write(String name, double value) {
+		return writeName(name).write(value);
+	}
+
+	@Override
+	public JsonGenerator write(String name, boolean value) {
+		return writeName(name).write(value);
+	}
+
+	@Override
+	public JsonGenerator writeNull(String name) {
+		return writeName(name).writeNull();
+	}
+
+	@Override
+	public JsonGenerator writeEnd() {
+		try {
+			if (generator.getOutputContext().inObject())
+				generator.writeEndObject();
+			else
+				generator.writeEndArray();
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public JsonGenerator write(JsonValue value) {
+		switch (value.getValueType()) {
+			case OBJECT:
+				writeStartObject();
+				for (Map.Entry<String, JsonValue> entry : ((JsonObject) value).entrySet())
+					write(entry.getKey(), entry.getValue());
+				return writeEnd();
+			case ARRAY:
+				writeStartArray();
+				for (JsonValue element : (JsonArray) value)
+					write(element);
+				return writeEnd();
+			case STRING:	return write(((JsonString) value).getString());
+			case NUMBER:	return write(((JsonNumber) value).bigDecimalValue());
+			case TRUE:		return write(true);
+			case FALSE:		return write(false);
+			default:		return writeNull();
+		}
+	}
+
+	@Override
+	public JsonGenerator write(String value) {
+		try {
+			generator.writeString(value);
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public JsonGenerator write(BigDecimal value) {
+		try {
+			generator.writeNumber(value);
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public JsonGenerator write(BigInteger value) {
+		try {
+			generator.writeNumber(value);
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public JsonGenerator write(int value) {
+		try {
+			generator.writeNumber(value);
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public JsonGenerator write(long value) {
+		try {
+			generator.writeNumber(value);
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public JsonGenerator write(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value))
+			throw new NumberFormatException("Not a JSON number: " + value);
+
+		try {
+			generator.writeNumber(value);
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public JsonGenerator write(boolean value) {
+		try {
+			generator.writeBoolean(value);
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public JsonGenerator writeNull() {
+		try {
+			generator.writeNull();
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public void flush() {
+		try {
+			generator.flush();
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (!generator.getOutputContext().inRoot())
+			throw new JsonGenerationException("Incomplete JSON: " + generator.getOutputContext().typeDesc() + " not ended.");
+
+		try {
+			generator.close();
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+	}
+
+	private JacksonJsonGenerator writeName(String name) {
+		try {
+			generator.writeFieldName(name);
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+		return this;
+	}
+
+	private static JsonException toJsonException(IOException e) {
+		if (e instanceof com.fasterxml.jackson.core.JsonGenerationException)
+			return new JsonGenerationException(e.getMessage(), e);
+
+		return new JsonException("Couldn't write the JSON representation.", e);
+	}
+
+}
@@ -0,0 +1,190 @@
+package com.slimpay.hapiclient.json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.NoSuchElementException;
+
+import javax.json.JsonException;
+import javax.json.stream.JsonLocation;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParsingException;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * A javax.json JsonParser reading the tokens of a Jackson parser.
+ */
+final class JacksonJsonParser implements JsonParser {
+	private final com.fasterxml.jackson.core.JsonParser parser;
+	private JsonToken current;
+	private JsonToken peeked;
+
+	/**
+	 * @param parser	The Jackson parser, positioned before the first token.
+	 */
+	JacksonJsonParser(com.fasterxml.jackson.core.JsonParser parser) {
+		this.parser = parser;
+	}
+
+	/**
+	 * Inside a structure there is always a next event (or a parsing error):
+	 * the next token is only read ahead at the root level, when no value
+	 * can be asked for any more.
+	 */
+	@Override
+	public boolean hasNext() {
+		if (peeked != null)
+			return true;
+		if (!parser.getParsingContext().inRoot())
+			return true;
+
+		peeked = nextToken();
+		return peeked != null;
+	}
+
+	@Override
+	public Event next() {
+		JsonToken token = peeked != null ? peeked : nextToken();
+		peeked = null;
+		if (token == null)
+			throw new NoSuchElementException("No more JSON events.");
+
+		current = token;
+		switch (token) {
+			case START_OBJECT:		return Event.START_OBJECT;
+			case END_OBJECT:		return Event.END_OBJECT;
+			case START_ARRAY:		return Event.START_ARRAY;
+			case END_ARRAY:			return Event.END_ARRAY;
+			case FIELD_NAME:		return Event.KEY_NAME;
+			case VALUE_STRING:		return Event.VALUE_STRING;
+			case VALUE_NUMBER_INT:
+			case VALUE_NUMBER_FLOAT:	return Event.VALUE_NUMBER;
+			case VALUE_TRUE:		return Event.VALUE_TRUE;
+			case VALUE_FALSE:		return Event.VALUE_FALSE;
+			case VALUE_NULL:		return Event.VALUE_NULL;
+			default: throw new JsonParsingException("Unexpected " + token + ".", getLocation());
+		}
+	}
+
+	@Override
+	public String getString() {
+		if (current != JsonToken.FIELD_NAME && current != JsonToken.VALUE_STRING && !isNumber())
+			throw new IllegalStateException("No string at " + current + ".");
+
+		try {
+			return parser.getText();
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+	}
+
+	@Override
+	public boolean isIntegralNumber() {
+		checkNumber();
+		return current == JsonToken.VALUE_NUMBER_INT || getBigDecimal().scale() == 0;
+	}
+
+	@Override
+	public int getInt() {
+		checkNumber();
+		try {
+			if (parser.getNumberType() == com.fasterxml.jackson.core.JsonParser.NumberType.INT)
+				return parser.getIntValue();
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+
+		return getBigDecimal().intValue();
+	}
+
+	@Override
+	public long getLong() {
+		checkNumber();
+		try {
+			com.fasterxml.jackson.core.JsonParser.NumberType type = parser.getNumberType();
+			if (type == com.fasterxml.jackson.core.JsonParser.NumberType.INT ||
+				type == com.fasterxml.jackson.core.JsonParser.NumberType.LONG)
+				return parser.getLongValue();
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+
+		return getBigDecimal().longValue();
+	}
+
+	@Override
+	public BigDecimal getBigDecimal() {
+		checkNumber();
+		try {
+			return parser.getDecimalValue();
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+	}
+
+	@Override
+	public JsonLocation getLocation() {
+		return toJsonLocation(parser.getCurrentLocation());
+	}
+
+	@Override
+	public void close() {
+		try {
+			parser.close();
+		} catch (IOException e) {
+			throw new JsonException("Couldn't close the JSON parser.", e);
+		}
+	}
+
+	private JsonToken nextToken() {
+		try {
+			return parser.nextToken();
+		} catch (IOException e) {
+			throw toJsonException(e);
+		}
+	}
+
+	private boolean isNumber() {
+		return current == JsonToken.VALUE_NUMBER_INT || current == JsonToken.VALUE_NUMBER_FLOAT;
+	}
+
+	private void checkNumber() {
+		if (!isNumber())
+			throw new IllegalStateException("No number at " + current + ".");
+	}
+
+	private static JsonException toJsonException(IOException e) {
+		if (e instanceof JsonParseException) {
+			JsonParseException parseException = (JsonParseException) e;
+			return new JsonParsingException(parseException.getOriginalMessage(), e,
+				toJsonLocation(parseException.getLocation()));
+		}
+
+		return new JsonException("Couldn't read the JSON representation.", e);
+	}
+
+	private static JsonLocation toJsonLocation(final com.fasterxml.jackson.core.JsonLocation location) {
+		return new JsonLocation() {
+			@Override
+			public long getLineNumber() {
+				return location != null ? location.getLineNr() : -1;
+			}
+
+			@Override
+			public long getColumnNumber() {
+				return location != null ? location.getColumnNr() : -1;
+			}
+
+			@Override
+			public long getStreamOffset() {
+				if (location == null)
+					return -1;
+
+				long offset = location.getCharOffset();
+				return offset != -1 ? offset : location.getByteOffset();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,425 @@
+package com.slimpay.hapiclient.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonReaderFactory;
+import javax.json.JsonStructure;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParserFactory;
+import javax.json.stream.JsonParsingException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+
+/**
+ * A JsonProvider whose parsers and generators are backed by
+ * <a href="https://github.com/FasterXML/jackson-core">Jackson</a>'s
+ * streaming API: the bytes of a response are decoded and tokenized
+ * by Jackson (which also canonicalizes the property names) and the
+ * message bodies are written by it.
+ * <p>
+ * The JSON values themselves (JsonObject, JsonArray and their builders)
+ * are still those of the delegate provider, so that the Resources
+ * and the JsonBodies behave the same whatever the provider.
+ * <p>
+ * It is not registered as a service: it is only used once
+ * {@link JsonProviders#setProvider(JsonProvider) set}, and it requires
+ * <code>com.fasterxml.jackson.core:jackson-core</code> on the classpath.
+ * It is thread-safe.
+ */
+public final class JacksonJsonProvider extends JsonProvider {
+	private final JsonFactory jsonFactory;
+	private final JsonProvider delegate;
+
+	/**
+	 * Uses a default JsonFactory and the default JsonProvider for the JSON values.
+	 */
+	public JacksonJsonProvider() {
+		this(new JsonFactory(), JsonProvider.provider());
+	}
+
+	/**
+	 * @param jsonFactory	The Jackson factory of the parsers and generators.
+	 * 						It must not be reconfigured afterwards.
+	 * @param delegate		The provider of the JSON values and their builders.
+	 * @throws IllegalArgumentException if the delegate is a JacksonJsonProvider.
+	 */
+	public JacksonJsonProvider(JsonFactory jsonFactory, JsonProvider delegate) {
+		if (jsonFactory == null || delegate == null)
+			throw new NullPointerException();
+		if (delegate instanceof JacksonJsonProvider)
+			throw new IllegalArgumentException("The delegate can't be a JacksonJsonProvider.");
+
+		this.jsonFactory = jsonFactory;
+		this.delegate = delegate;
+	}
+
+	@Override
+	public JsonParser createParser(Reader reader) {
+		try {
+			return new JacksonJsonParser(jsonFactory.createParser(reader));
+		} catch (IOException e) {
+			throw new JsonException("Couldn't create the JSON parser.", e);
+		}
+	}
+
+	/**
+	 * The character encoding (UTF-8, UTF-16 or UTF-32) is detected.
+	 */
+	@Override
+	public JsonParser createParser(InputStream in) {
+		try {
+			return new JacksonJsonParser(jsonFactory.createParser(in));
+		} catch (IOException e) {
+			throw new JsonException("Couldn't create the JSON parser.", e);
+		}
+	}
+
+	@Override
+	public JsonParserFactory createParserFactory(final Map<String, ?> config) {
+		return new JsonParserFactory() {
+			@Override
+			public JsonParser createParser(Reader reader) {
+				return JacksonJsonProvider.this.createParser(reader);
+			}
+
+			@Override
+			public JsonParser createParser(InputStream in) {
+				return JacksonJsonProvider.this.createParser(in);
+			}
+
+			@Override
+			public JsonParser createParser(InputStream in, Charset charset) {
+				return JacksonJsonProvider.this.createParser(new InputStreamReader(in, charset));
+			}
+
+			@Override
+			public JsonParser createParser(JsonObject obj) {
+				return delegate.createParserFactory(config).createParser(obj);
+			}
+
+			@Override
+			public JsonParser createParser(JsonArray array) {
+				return delegate.createParserFactory(config).createParser(array);
+			}
+
+			@Override
+			public Map<String, ?> getConfigInUse() {
+				return Collections.emptyMap();
+			}
+		};
+	}
+
+	@Override
+	public JsonGenerator createGenerator(Writer writer) {
+		return createGenerator(writer, false);
+	}
+
+	@Override
+	public JsonGenerator createGenerator(OutputStream out) {
+		return createGenerator(out, StandardCharsets.UTF_8, false);
+	}
+
+	@Override
+	public JsonGeneratorFactory createGeneratorFactory(Map<String, ?> config) {
+		final boolean prettyPrinting = config != null && config.containsKey(JsonGenerator.PRETTY_PRINTING);
+		final Map<String, ?> configInUse = prettyPrinting ?
+				Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true) :
+				Collections.<String, Object>emptyMap();
+
+		return new JsonGeneratorFactory() {
+			@Override
+			public JsonGenerator createGenerator(Writer writer) {
+				return JacksonJsonProvider.this.createGenerator(writer, prettyPrinting);
+			}
+
+			@Override
+			public JsonGenerator createGenerator(OutputStream out) {
+				return JacksonJsonProvider.this.createGenerator(out, StandardCharsets.UTF_8, prettyPrinting);
+			}
+
+			@Override
+			public JsonGenerator createGenerator(OutputStream out, Charset charset) {
+				return JacksonJsonProvider.this.createGenerator(out, charset, prettyPrinting);
+			}
+
+			@Override
+			public Map<String, ?> getConfigInUse() {
+				return configInUse;
+			}
+		};
+	}
+
+	@Override
+	public JsonReader createReader(Reader reader) {
+		return new StructureReader(createParser(reader));
+	}
+
+	@Override
+	public JsonReader createReader(InputStream in) {
+		return new StructureReader(createParser(in));
+	}
+
+	@Override
+	public JsonWriter createWriter(Writer writer) {
+		return new StructureWriter(createGenerator(writer));
+	}
+
+	@Override
+	public JsonWriter createWriter(OutputStream out) {
+		return new StructureWriter(createGenerator(out));
+	}
+
+	@Override
+	public JsonWriterFactory createWriterFactory(Map<String, ?> config) {
+		final JsonGeneratorFactory generatorFactory = createGeneratorFactory(config);
+		return new JsonWriterFactory() {
+			@Override
+			public JsonWriter createWriter(Writer writer) {
+				return new StructureWriter(generatorFactory.createGenerator(writer));
+			}
+
+			@Override
+			public JsonWriter createWriter(OutputStream out) {
+				return new StructureWriter(generatorFactory.createGenerator(out));
+			}
+
+			@Override
+			public JsonWriter createWriter(OutputStream out, Charset charset) {
+				return new StructureWriter(generatorFactory.createGenerator(out, charset));
+			}
+
+			@Override
+			public Map<String, ?> getConfigInUse() {
+				return generatorFactory.getConfigInUse();
+			}
+		};
+	}
+
+	@Override
+	public JsonReaderFactory createReaderFactory(Map<String, ?> config) {
+		return new JsonReaderFactory() {
+			@Override
+			public JsonReader createReader(Reader reader) {
+				return JacksonJsonProvider.this.createReader(reader);
+			}
+
+			@Override
+			public JsonReader createReader(InputStream in) {
+				return JacksonJsonProvider.this.createReader(in);
+			}
+
+			@Override
+			public JsonReader createReader(InputStream in, Charset charset) {
+				return JacksonJsonProvider.this.createReader(new InputStreamReader(in, charset));
+			}
+
+			@Override
+			public Map<String, ?> getConfigInUse() {
+				return Collections.emptyMap();
+			}
+		};
+	}
+
+	@Override
+	public JsonObjectBuilder createObjectBuilder() {
+		return delegate.createObjectBuilder();
+	}
+
+	@Override
+	public JsonArrayBuilder createArrayBuilder() {
+		return delegate.createArrayBuilder();
+	}
+
+	@Override
+	public JsonBuilderFactory createBuilderFactory(Map<String, ?> config) {
+		return delegate.createBuilderFactory(config);
+	}
+
+	private JsonGenerator createGenerator(Writer writer, boolean prettyPrinting) {
+		try {
+			return configure(jsonFactory.createGenerator(writer), prettyPrinting);
+		} catch (IOException e) {
+			throw new JsonException("Couldn't create the JSON generator.", e);
+		}
+	}
+
+	private JsonGenerator createGenerator(OutputStream out, Charset charset, boolean prettyPrinting) {
+		JsonEncoding encoding = null;
+		for (JsonEncoding jsonEncoding : JsonEncoding.values())
+			if (jsonEncoding.getJavaName().equals(charset.name()))
+				encoding = jsonEncoding;
+
+		if (encoding == null)
+			return createGenerator(new OutputStreamWriter(out, charset), prettyPrinting);
+
+		try {
+			return configure(jsonFactory.createGenerator(out, encoding), prettyPrinting);
+		} catch (IOException e) {
+			throw new JsonException("Couldn't create the JSON generator.", e);
+		}
+	}
+
+	private static JsonGenerator configure(com.fasterxml.jackson.core.JsonGenerator generator, boolean prettyPrinting) {
+		if (prettyPrinting)
+			generator.useDefaultPrettyPrinter();
+
+		return new JacksonJsonGenerator(generator);
+	}
+
+	/**
+	 * Reads a whole JSON object or array with a parser
+	 * and builds it with the builders of the delegate.
+	 */
+	private final class StructureReader implements JsonReader {
+		private final JsonParser parser;
+		private boolean read;
+
+		private StructureReader(JsonParser parser) {
+			this.parser = parser;
+		}
+
+		@Override
+		public JsonStructure read() {
+			checkNotRead();
+			Event event = parser.hasNext() ? parser.next() : null;
+			if (event == Event.START_OBJECT)
+				return readObject(parser).build();
+			if (event == Event.START_ARRAY)
+				return readArray(parser).build();
+
+			throw new JsonParsingException("Expected a JSON object or array but got " + event + ".", parser.getLocation());
+		}
+
+		@Override
+		public JsonObject readObject() {
+			JsonStructure structure = read();
+			if (!(structure instanceof JsonObject))
+				throw new JsonParsingException("Expected a JSON object but got an array.", parser.getLocation());
+
+			return (JsonObject) structure;
+		}
+
+		@Override
+		public JsonArray readArray() {
+			JsonStructure structure = read();
+			if (!(structure instanceof JsonArray))
+				throw new JsonParsingException("Expected a JSON array but got an object.", parser.getLocation());
+
+			return (JsonArray) structure;
+		}
+
+		@Override
+		public void close() {
+			parser.close();
+		}
+
+		private void checkNotRead() {
+			if (read)
+				throw new IllegalStateException("The JSON structure has already been read.");
+			read = true;
+		}
+
+		private JsonObjectBuilder readObject(JsonParser parser) {
+			JsonObjectBuilder object = createObjectBuilder();
+
+			Event event;
+			while ((event = parser.next()) == Event.KEY_NAME) {
+				String key = parser.getString();
+				switch (event = parser.next()) {
+					case START_OBJECT:	object.add(key, readObject(parser)); break;
+					case START_ARRAY:	object.add(key, readArray(parser)); break;
+					case VALUE_STRING:	object.add(key, parser.getString()); break;
+					case VALUE_NUMBER:	object.add(key, parser.getBigDecimal()); break;
+					case VALUE_TRUE:	object.add(key, true); break;
+					case VALUE_FALSE:	object.add(key, false); break;
+					case VALUE_NULL:	object.addNull(key); break;
+					default: throw new JsonParsingException("Unexpected " + event + ".", parser.getLocation());
+				}
+			}
+
+			return object;
+		}
+
+		private JsonArrayBuilder readArray(JsonParser parser) {
+			JsonArrayBuilder array = createArrayBuilder();
+
+			Event event;
+			while ((event = parser.next()) != Event.END_ARRAY) {
+				switch (event) {
+					case START_OBJECT:	array.add(readObject(parser)); break;
+					case START_ARRAY:	array.add(readArray(parser)); break;
+					case VALUE_STRING:	array.add(parser.getString()); break;
+					case VALUE_NUMBER:	array.add(parser.getBigDecimal()); break;
+					case VALUE_TRUE:	array.add(true); break;
+					case VALUE_FALSE:	array.add(false); break;
+					case VALUE_NULL:	array.addNull(); break;
+					default: throw new JsonParsingException("Unexpected " + event + ".", parser.getLocation());
+				}
+			}
+
+			return array;
+		}
+	}
+
+	/**
+	 * Writes a whole JSON object or array with a generator.
+	 */
+	private static final class StructureWriter implements JsonWriter {
+		private final JsonGenerator generator;
+		private boolean written;
+
+		private StructureWriter(JsonGenerator generator) {
+			this.generator = generator;
+		}
+
+		@Override
+		public void writeArray(JsonArray array) {
+			write(array);
+		}
+
+		@Override
+		public void writeObject(JsonObject object) {
+			write(object);
+		}
+
+		@Override
+		public void write(JsonStructure value) {
+			if (written)
+				throw new IllegalStateException("The JSON structure has already been written.");
+			written = true;
+
+			generator.write(value);
+			generator.flush();
+		}
+
+		@Override
+		public void close() {
+			generator.close();
+		}
+	}
+
+}
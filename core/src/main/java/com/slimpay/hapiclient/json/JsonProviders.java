@@ -0,0 +1,44 @@
+package com.slimpay.hapiclient.json;
+
+import javax.json.spi.JsonProvider;
+
+/**
+ * The JsonProvider used to parse the HAL representations
+ * and to serialize the JSON message bodies.
+ * <p>
+ * Each call to <code>Json.createParser(...)</code>, <code>Json.createObjectBuilder()</code>
+ * and the like looks the provider up again with a ServiceLoader. The provider is
+ * rather looked up once and the same instance is used for every response.
+ * <p>
+ * By default it is the one returned by <code>JsonProvider.provider()</code>
+ * (the javax.json reference implementation). A faster one, like the
+ * {@link JacksonJsonProvider}, can be set once at startup:
+ * <p>
+ * <code>JsonProviders.setProvider(new JacksonJsonProvider());</code>
+ */
+public final class JsonProviders {
+	private static volatile JsonProvider provider;
+
+	private JsonProviders() { }
+
+	/**
+	 * @return	The JsonProvider in use.
+	 * @throws javax.json.JsonException if no provider was set and none can be found.
+	 */
+	public static JsonProvider getProvider() {
+		JsonProvider provider = JsonProviders.provider;
+		if (provider == null)
+			JsonProviders.provider = provider = JsonProvider.provider();
+
+		return provider;
+	}
+
+	/**
+	 * @param provider	The JsonProvider to use from now on,
+	 * 					or null to go back to the default one.
+	 */
+	public static void setProvider(JsonProvider provider) {
+		JsonProviders.provider = provider;
+	}
+
+}
@@ -1,12 +1,14 @@
 package com.slimpay.hapiclient.util;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import javax.json.JsonObject;
+import javax.json.JsonWriter;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.NameValuePair;
@@ -18,6 +20,8 @@ import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.CharsetUtils;
 import org.apache.http.util.EntityUtils;
 
+import com.slimpay.hapiclient.json.JsonProviders;
+
 public class EntityConverter {
 	private static final String UTF8 = "UTF-8";
 	private static final String APPLICATION_JSON = "application/json";
@@ -41,11 +45,20 @@ public class EntityConverter {
 	
 	/**
 	 * Converts a JsonObject to a StringEntity with "application/json" as content type.
+	 * The JsonObject is written by the {@link JsonProviders#getProvider() JsonProvider in use}.
 	 * @param jsonObject JsonObject to convert. Not {@code null}.
 	 * @return StringEntity
 	 */
 	public static StringEntity jsonToStringEntity(JsonObject jsonObject) {
-		return new StringEntity(jsonObject.toString(), ContentType.create(APPLICATION_JSON, UTF8));
+		StringWriter json = new StringWriter();
+		JsonWriter jsonWriter = JsonProviders.getProvider().createWriter(json);
+		try {
+			jsonWriter.writeObject(jsonObject);
+		} finally {
+			jsonWriter.close();
+		}
+		
+		return new StringEntity(json.toString(), ContentType.create(APPLICATION_JSON, UTF8));
 	}
 	
 	/**
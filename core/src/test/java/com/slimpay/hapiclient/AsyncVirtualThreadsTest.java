@@ -0,0 +1,108 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.Request;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+public class AsyncVirtualThreadsTest {
+	private static final boolean SUPPORTED = isSupported();
+
+	private HalStubServer server;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder()
+			.setLatency(100, TimeUnit.MILLISECONDS)
+			.build();
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		server.close();
+	}
+
+	@Test
+	public void unsupportedBeforeJava21() {
+		assumeFalse(SUPPORTED);
+		try {
+			newClientBuilder().setAsyncVirtualThreads(true).build();
+			fail("Virtual threads require Java 21 or higher.");
+		} catch (UnsupportedOperationException expected) { }
+	}
+
+	@Test
+	public void asyncRequestsRunOnVirtualThreads() throws Exception {
+		assumeTrue(SUPPORTED);
+		HapiClient hapiClient = newClientBuilder().setAsyncVirtualThreads(true).build();
+		Thread thread;
+		try {
+			// Completed by the thread sending the request
+			thread = hapiClient.sendAsync(new Request.Builder("/mandates/1").build())
+				.thenApply(mandate -> Thread.currentThread())
+				.get(5, TimeUnit.SECONDS);
+		} finally {
+			hapiClient.close();
+		}
+		assertTrue(thread + " is not virtual", (Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+
+		// The executor is shut down with the client
+		try {
+			hapiClient.sendAsync(new Request.Builder("/mandates/1").build()).get(5, TimeUnit.SECONDS);
+			fail("The client is closed.");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+	}
+
+	@Test
+	public void executorSetByTheCallerIsNotShutDown() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			try (HapiClient hapiClient = newClientBuilder().setExecutor(executor).build()) {
+				Resource mandate = hapiClient.sendAsync(new Request.Builder("/mandates/1").build()).get(5, TimeUnit.SECONDS);
+				assertEquals("1", mandate.getState().getString("id"));
+			}
+			assertFalse(executor.isShutdown());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private HapiClient.Builder newClientBuilder() {
+		return new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(new Oauth2BasicAuthentication.Builder()
+				.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+				.setUserid("democreditor01")
+				.setPassword("demosecret01")
+				.build());
+	}
+
+	private static boolean isSupported() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,157 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.slimpay.hapiclient.exception.HttpClientErrorException;
+import com.slimpay.hapiclient.hal.CustomRel;
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.CollectionIterator;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.Request;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+public class CollectionIteratorTest {
+	private static final CustomRel MANDATES = new CustomRel(HalStubServer.REL_NS + "mandates");
+	private static final long LATENCY_MILLIS = 800;
+
+	private HalStubServer server;
+	private HapiClient hapiClient;
+	private RecordingAuthentication authentication;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder()
+			.setPagination(5, 5)
+			.setResource("/broken", "{\"_links\":{"
+				+ "\"next\":{\"href\":\"/mandates?page=99\"}"
+				+ "},\"_embedded\":{\"" + MANDATES.getName() + "\":[{\"id\":\"0\"}]}}")
+			.build();
+		authentication = new RecordingAuthentication(newAuthentication());
+		hapiClient = new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(authentication)
+			.build();
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		hapiClient.close();
+		server.close();
+	}
+
+	@Test
+	public void allPagesAreIterated() throws Exception {
+		CollectionIterator iterator = hapiClient.iterate(getPage(0), MANDATES);
+		List<String> ids = new ArrayList<String>();
+		while (iterator.hasNext())
+			ids.add(iterator.next().getState().getString("id"));
+
+		assertEquals(25, ids.size());
+		for (int i = 0; i < ids.size(); i++)
+			assertEquals(String.valueOf(i), ids.get(i));
+		assertFalse(iterator.hasNext());
+		assertFalse(authentication.authorizedOnIoThread());
+	}
+
+	@Test
+	public void pagesAreRequestedOnlyWhenNeeded() throws Exception {
+		Resource firstPage = getPage(0);
+		long requestCount = server.getRequestCount();
+		List<Resource> mandates;
+		try (Stream<Resource> stream = hapiClient.stream(firstPage, MANDATES, 0)) {
+			mandates = stream.limit(7).collect(Collectors.toList());
+		}
+
+		assertEquals(7, mandates.size());
+		assertEquals("6", mandates.get(6).getState().getString("id"));
+		assertEquals(requestCount + 1, server.getRequestCount());
+	}
+
+	@Test
+	public void pagesAreRequestedAhead() throws Exception {
+		Resource firstPage = getPage(0);
+		long requestCount = server.getRequestCount();
+		try (CollectionIterator iterator = hapiClient.iterate(firstPage, MANDATES, 2)) {
+			assertEquals("0", iterator.next().getState().getString("id"));
+
+			for (int i = 0; i < 500 && server.getRequestCount() < requestCount + 2; i++)
+				Thread.sleep(10);
+			Thread.sleep(50);
+			assertEquals(requestCount + 2, server.getRequestCount());
+		}
+	}
+
+	@Test
+	public void closeAbortsThePageRequests() throws Exception {
+		// A single asynchronous connection and slow responses
+		hapiClient.close();
+		server.close();
+		server = new HalStubServer.Builder()
+			.setPagination(5, 5)
+			.setLatency(LATENCY_MILLIS, TimeUnit.MILLISECONDS)
+			.build();
+		hapiClient = new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(newAuthentication())
+			.setAsyncClientBuilder(HttpAsyncClients.custom().setMaxConnPerRoute(1))
+			.build();
+
+		Resource firstPage = getPage(0);
+		long requestCount = server.getRequestCount();
+		CollectionIterator iterator = hapiClient.iterate(firstPage, MANDATES, 1);
+		assertEquals("0", iterator.next().getState().getString("id"));
+		// Closed while the server is answering the next page
+		for (int i = 0; i < 500 && server.getRequestCount() == requestCount; i++)
+			Thread.sleep(10);
+		iterator.close();
+
+		// The connection of the next page is released at once
+		long start = System.nanoTime();
+		hapiClient.sendAsync(new Request.Builder("/mandates/1").build()).get(5, TimeUnit.SECONDS);
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 2 * LATENCY_MILLIS - LATENCY_MILLIS / 4);
+	}
+
+	@Test
+	public void failedPageRequest() throws Exception {
+		CollectionIterator iterator = hapiClient.iterate(hapiClient.send(new Request.Builder("/broken").build()), MANDATES);
+		assertEquals("0", iterator.next().getState().getString("id"));
+		try {
+			iterator.hasNext();
+			fail("The next page doesn't exist.");
+		} catch (CompletionException e) {
+			assertTrue(e.getCause() instanceof HttpClientErrorException);
+		}
+		assertFalse(iterator.hasNext());
+	}
+
+	private static Oauth2BasicAuthentication newAuthentication() {
+		return new Oauth2BasicAuthentication.Builder()
+			.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+			.setUserid("democreditor01")
+			.setPassword("demosecret01")
+			.build();
+	}
+
+	private Resource getPage(int page) throws Exception {
+		return hapiClient.send(new Request.Builder("/mandates{?page}")
+			.setUrlVariable("page", page)
+			.build());
+	}
+
+}
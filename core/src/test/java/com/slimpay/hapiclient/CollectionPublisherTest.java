@@ -0,0 +1,191 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.slimpay.hapiclient.exception.HttpClientErrorException;
+import com.slimpay.hapiclient.hal.CustomRel;
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.Request;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+import reactor.core.publisher.Flux;
+
+public class CollectionPublisherTest {
+	private static final CustomRel MANDATES = new CustomRel(HalStubServer.REL_NS + "mandates");
+
+	private HalStubServer server;
+	private HapiClient hapiClient;
+	private RecordingAuthentication authentication;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder()
+			.setPagination(5, 5)
+			.setResource("/broken", "{\"_links\":{"
+				+ "\"next\":{\"href\":\"/mandates?page=99\"}"
+				+ "},\"_embedded\":{\"" + MANDATES.getName() + "\":[{\"id\":\"0\"}]}}")
+			.build();
+		authentication = new RecordingAuthentication(new Oauth2BasicAuthentication.Builder()
+			.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+			.setUserid("democreditor01")
+			.setPassword("demosecret01")
+			.build());
+		hapiClient = new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(authentication)
+			.build();
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		hapiClient.close();
+		server.close();
+	}
+
+	@Test
+	public void allPagesArePublished() throws Exception {
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		hapiClient.publish(getPage("/mandates?page=0"), MANDATES, 10).subscribe(subscriber);
+		subscriber.subscription.request(Long.MAX_VALUE);
+
+		assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+		assertNull(subscriber.failure);
+		assertEquals(25, subscriber.resources.size());
+		for (int i = 0; i < 25; i++)
+			assertEquals(String.valueOf(i), subscriber.resources.get(i).getState().getString("id"));
+		assertFalse(authentication.authorizedOnIoThread());
+	}
+
+	@Test
+	public void reactiveStreamsLibrariesCanSubscribe() throws Exception {
+		Resource firstPage = getPage("/mandates?page=0");
+		long requestCount = server.getRequestCount();
+
+		List<String> ids = Flux.from(hapiClient.publish(firstPage, MANDATES, 5))
+			.take(7)
+			.map(mandate -> mandate.getState().getString("id"))
+			.collectList()
+			.block();
+		assertEquals("0,1,2,3,4,5,6", ids.stream().collect(Collectors.joining(",")));
+		assertEquals(requestCount + 1, server.getRequestCount());
+
+		assertEquals(25L, (long) Flux.from(hapiClient.publish(firstPage, MANDATES, 5)).count().block());
+	}
+
+	@Test
+	public void pagesAreRequestedOnDemand() throws Exception {
+		Resource firstPage = getPage("/mandates?page=0");
+		long requestCount = server.getRequestCount();
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		hapiClient.publish(firstPage, MANDATES, 5).subscribe(subscriber);
+
+		subscriber.subscription.request(3);
+		assertEquals(3, subscriber.resources.size());
+		Thread.sleep(50);
+		assertEquals(requestCount, server.getRequestCount());
+
+		// The 2 buffered Resources, then the first one of the second page
+		subscriber.subscription.request(3);
+		for (int i = 0; i < 500 && subscriber.resources.size() < 6; i++)
+			Thread.sleep(10);
+		assertEquals(6, subscriber.resources.size());
+		assertEquals("5", subscriber.resources.get(5).getState().getString("id"));
+		Thread.sleep(50);
+		assertEquals(requestCount + 1, server.getRequestCount());
+		assertEquals(1, subscriber.terminated.getCount());
+	}
+
+	@Test
+	public void cancelledSubscription() throws Exception {
+		RecordingSubscriber subscriber = new RecordingSubscriber() {
+			@Override
+			public void onNext(Resource resource) {
+				super.onNext(resource);
+				if (resources.size() == 2)
+					subscription.cancel();
+			}
+		};
+		Resource firstPage = getPage("/mandates?page=0");
+		long requestCount = server.getRequestCount();
+		hapiClient.publish(firstPage, MANDATES, 10).subscribe(subscriber);
+		subscriber.subscription.request(Long.MAX_VALUE);
+
+		Thread.sleep(50);
+		assertEquals(2, subscriber.resources.size());
+		assertEquals(1, subscriber.terminated.getCount());
+		assertEquals(requestCount, server.getRequestCount());
+	}
+
+	@Test
+	public void failedPageRequest() throws Exception {
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		hapiClient.publish(getPage("/broken"), MANDATES, 10).subscribe(subscriber);
+		subscriber.subscription.request(10);
+
+		assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+		assertEquals(1, subscriber.resources.size());
+		assertTrue(subscriber.failure instanceof HttpClientErrorException);
+	}
+
+	@Test
+	public void invalidRequest() throws Exception {
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		hapiClient.publish(getPage("/mandates?page=0"), MANDATES, 10).subscribe(subscriber);
+		subscriber.subscription.request(0);
+
+		assertEquals(0, subscriber.terminated.getCount());
+		assertTrue(subscriber.failure instanceof IllegalArgumentException);
+		assertFalse(subscriber.completed);
+	}
+
+	private Resource getPage(String url) throws Exception {
+		return hapiClient.send(new Request.Builder(url).build());
+	}
+
+	private static class RecordingSubscriber implements Subscriber<Resource> {
+		final List<Resource> resources = new CopyOnWriteArrayList<Resource>();
+		final CountDownLatch terminated = new CountDownLatch(1);
+		volatile Subscription subscription;
+		volatile Throwable failure;
+		volatile boolean completed;
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(Resource resource) {
+			resources.add(resource);
+		}
+
+		@Override
+		public void onError(Throwable failure) {
+			this.failure = failure;
+			terminated.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+			terminated.countDown();
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.slimpay.hapiclient.hal.CustomRel;
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.Follow;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+public class EntryPointSnapshotTest {
+	private static final CustomRel GET_ORDERS = new CustomRel(HalStubServer.REL_NS + "get-orders");
+
+	private HalStubServer server;
+	private HapiClient hapiClient;
+	private byte[] snapshot;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder()
+			.setPagination(5, 5)
+			.build();
+
+		HapiClient exporter = newClientBuilder().build();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exporter.writeEntryPointSnapshot(out);
+		exporter.close();
+		snapshot = out.toByteArray();
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		if (hapiClient != null)
+			hapiClient.close();
+		server.close();
+	}
+
+	@Test
+	public void firstFollowGoesStraightToTheTarget() throws Exception {
+		hapiClient = newClientBuilder()
+			.setEntryPointSnapshot(new ByteArrayInputStream(snapshot))
+			.build();
+		long requestCount = server.getRequestCount();
+		Resource entryPoint = hapiClient.getEntryPointResource();
+		Resource creditor = hapiClient.sendAsync(new Follow.Builder(new CustomRel(HalStubServer.REL_NS + "get-creditors"))
+			.setUrlVariable("reference", "democreditor")
+			.build()).get();
+		assertEquals("democreditor", creditor.getState().getString("reference"));
+
+		// The validation of the snapshot (token request included) and the creditor
+		awaitRequestCount(requestCount + 3);
+		// The server returned an equal entry point
+		assertSame(entryPoint, hapiClient.getEntryPointResource());
+		requestCount = server.getRequestCount();
+		hapiClient.getEntryPointResource();
+		assertEquals(requestCount, server.getRequestCount());
+	}
+
+	@Test
+	public void outdatedSnapshotIsReplaced() throws Exception {
+		server.setResource("/", "{\"_links\":{"
+			+ "\"self\":{\"href\":\"/\"},"
+			+ "\"" + HalStubServer.REL_NS + "get-orders\":{\"href\":\"/orders\"}"
+			+ "}}");
+		hapiClient = newClientBuilder()
+			.setEntryPointSnapshot(new ByteArrayInputStream(snapshot))
+			.build();
+
+		Resource entryPoint = hapiClient.getEntryPointResource();
+		assertNull(entryPoint.findLink(GET_ORDERS));
+		for (int i = 0; i < 500 && hapiClient.getEntryPointResource() == entryPoint; i++)
+			Thread.sleep(10);
+		assertNotNull(hapiClient.getEntryPointResource().findLink(GET_ORDERS));
+	}
+
+	private HapiClient.Builder newClientBuilder() {
+		return new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(new Oauth2BasicAuthentication.Builder()
+				.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+				.setUserid("democreditor01")
+				.setPassword("demosecret01")
+				.build());
+	}
+
+	private void awaitRequestCount(long requestCount) throws Exception {
+		for (int i = 0; i < 500 && server.getRequestCount() < requestCount; i++)
+			Thread.sleep(10);
+		// Let the validation complete
+		Thread.sleep(20);
+	}
+
+}
@@ -0,0 +1,147 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.slimpay.hapiclient.hal.CustomRel;
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.Follow;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.Request;
+import com.slimpay.hapiclient.http.TraversalPlan;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+public class EntryPointTtlTest {
+	private static final long TTL_MILLIS = 100;
+	private static final CustomRel GET_ORDERS = new CustomRel(HalStubServer.REL_NS + "get-orders");
+
+	private HalStubServer server;
+	private HapiClient hapiClient;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder()
+			.setPagination(5, 5)
+			.build();
+		hapiClient = new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(new Oauth2BasicAuthentication.Builder()
+				.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+				.setUserid("democreditor01")
+				.setPassword("demosecret01")
+				.build())
+			.setEntryPointTtl(TTL_MILLIS, TimeUnit.MILLISECONDS)
+			.build();
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		hapiClient.close();
+		server.close();
+	}
+
+	@Test
+	public void notModifiedEntryPointIsKept() throws Exception {
+		Resource entryPoint = hapiClient.getEntryPointResource();
+		long requestCount = server.getRequestCount();
+		assertSame(entryPoint, hapiClient.getEntryPointResource());
+		assertEquals(requestCount, server.getRequestCount());
+
+		Thread.sleep(TTL_MILLIS);
+		assertSame(entryPoint, hapiClient.getEntryPointResource());
+		awaitRequestCount(requestCount + 1);
+		assertSame(entryPoint, hapiClient.getEntryPointResource());
+		assertEquals(requestCount + 1, server.getRequestCount());
+	}
+
+	@Test
+	public void concurrentCallersShareTheEntryPointRequest() throws Exception {
+		// Authenticated beforehand
+		hapiClient.send(new Request.Builder("/mandates/1").build());
+		long requestCount = server.getRequestCount();
+
+		Follow follow = new Follow.Builder(new CustomRel(HalStubServer.REL_NS + "get-mandates"))
+			.setUrlVariable("id", 1)
+			.build();
+		List<CompletableFuture<Resource>> mandates = new ArrayList<CompletableFuture<Resource>>();
+		for (int i = 0; i < 10; i++)
+			mandates.add(hapiClient.sendAsync(follow));
+		for (CompletableFuture<Resource> mandate : mandates)
+			assertEquals("1", mandate.get(5, TimeUnit.SECONDS).getState().getString("id"));
+
+		// A single entry point request, then the follows
+		assertEquals(requestCount + 1 + mandates.size(), server.getRequestCount());
+	}
+
+	@Test
+	public void modifiedEntryPointIsPickedUp() throws Exception {
+		Resource entryPoint = hapiClient.getEntryPointResource();
+		assertNull(entryPoint.findLink(GET_ORDERS));
+
+		server.setResource("/", "{\"_links\":{"
+			+ "\"self\":{\"href\":\"/\"},"
+			+ "\"" + HalStubServer.REL_NS + "search-mandates\":{\"href\":\"/mandates{?page}\",\"templated\":true},"
+			+ "\"" + HalStubServer.REL_NS + "get-orders\":{\"href\":\"/orders\"}"
+			+ "}}");
+		Thread.sleep(TTL_MILLIS);
+
+		// The stale entry point is returned while it is revalidated
+		assertSame(entryPoint, hapiClient.getEntryPointResource());
+		Resource revalidated = awaitNewEntryPoint(entryPoint);
+		assertEquals("/orders", revalidated.getLink(GET_ORDERS).getHref());
+	}
+
+	@Test
+	public void traversalPlanFollowsTheNewEntryPoint() throws Exception {
+		TraversalPlan plan = hapiClient.prepare(Arrays.asList(
+			new Follow.Builder(new CustomRel(HalStubServer.REL_NS + "search-mandates"))
+				.setUrlVariable("page", 1)
+				.build()));
+		assertEquals(1, getPage(plan.send()));
+
+		server.setResource("/", "{\"_links\":{"
+			+ "\"self\":{\"href\":\"/\"},"
+			+ "\"" + HalStubServer.REL_NS + "search-mandates\":{\"href\":\"/mandates?page=2\"}"
+			+ "}}");
+		Thread.sleep(TTL_MILLIS);
+		awaitNewEntryPoint(hapiClient.getEntryPointResource());
+
+		assertEquals(2, getPage(plan.send()));
+	}
+
+	private Resource awaitNewEntryPoint(Resource stale) throws Exception {
+		for (int i = 0; i < 500; i++) {
+			Resource entryPoint = hapiClient.getEntryPointResource();
+			if (entryPoint != stale)
+				return entryPoint;
+			Thread.sleep(10);
+		}
+
+		assertNotSame("The entry point has not been revalidated.", stale, hapiClient.getEntryPointResource());
+		return null;
+	}
+
+	private void awaitRequestCount(long requestCount) throws Exception {
+		for (int i = 0; i < 500 && server.getRequestCount() < requestCount; i++)
+			Thread.sleep(10);
+		// Let the revalidation complete
+		Thread.sleep(20);
+	}
+
+	private static int getPage(Resource resource) {
+		return resource.getState().getJsonObject("page").getInt("number");
+	}
+
+}
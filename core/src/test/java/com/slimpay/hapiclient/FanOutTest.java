@@ -0,0 +1,144 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.slimpay.hapiclient.exception.HttpClientErrorException;
+import com.slimpay.hapiclient.hal.CustomRel;
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.FanOutResult;
+import com.slimpay.hapiclient.http.Follow;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.Request;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+public class FanOutTest {
+	private static final long LATENCY_MILLIS = 100;
+	private static final CustomRel GET_MANDATES = new CustomRel(HalStubServer.REL_NS + "get-mandates");
+
+	private HalStubServer server;
+	private HapiClient hapiClient;
+	private RecordingAuthentication authentication;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder()
+			.setLatency(LATENCY_MILLIS, TimeUnit.MILLISECONDS)
+			.setResource("/issues", links("/mandates/", 20, null))
+			.setResource("/broken-issues", links("/mandates/", 5, "/unknown"))
+			.setResource("/embedded-issues", "{\"_embedded\":{\"" + GET_MANDATES.getName() + "\":[{\"id\":\"0\"},{\"id\":\"1\"}]}}")
+			.build();
+		authentication = new RecordingAuthentication(new Oauth2BasicAuthentication.Builder()
+			.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+			.setUserid("democreditor01")
+			.setPassword("demosecret01")
+			.build());
+		hapiClient = new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(authentication)
+			.setAsyncClientBuilder(HttpAsyncClients.custom()
+				.setMaxConnTotal(20)
+				.setMaxConnPerRoute(20))
+			.build();
+		// Authenticated and connected beforehand
+		hapiClient.sendAsync(new Request.Builder("/mandates/0").build()).get();
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		hapiClient.close();
+		server.close();
+	}
+
+	@Test
+	public void linksAreFollowedConcurrently() throws Exception {
+		Resource issues = hapiClient.send(new Request.Builder("/issues").build());
+
+		long start = System.nanoTime();
+		FanOutResult result = hapiClient.sendAll(new Follow.Builder(GET_MANDATES).build(), issues, 20, true);
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertFalse(result.hasFailures());
+		assertEquals(20, result.getResources().size());
+		for (int i = 0; i < 20; i++)
+			assertEquals(String.valueOf(i), result.getResources().get(i).getState().getString("id"));
+		assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 10 * LATENCY_MILLIS);
+	}
+
+	@Test
+	public void concurrencyIsCapped() throws Exception {
+		Resource issues = hapiClient.send(new Request.Builder("/issues").build());
+
+		long start = System.nanoTime();
+		FanOutResult result = hapiClient.sendAllAsync(new Follow.Builder(GET_MANDATES).build(), issues, 5, true).get();
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertEquals(20, result.getResources().size());
+		assertEquals("19", result.getResources().get(19).getState().getString("id"));
+		// 4 rounds of 5 requests
+		assertTrue("Took " + elapsedMillis + " ms", elapsedMillis >= 4 * LATENCY_MILLIS);
+		// The next rounds are not sent from the I/O dispatcher threads
+		assertFalse(authentication.authorizedOnIoThread());
+	}
+
+	@Test
+	public void failuresAreCollected() throws Exception {
+		Resource issues = hapiClient.send(new Request.Builder("/broken-issues").build());
+		FanOutResult result = hapiClient.sendAll(new Follow.Builder(GET_MANDATES).build(), issues, 3, false);
+
+		assertTrue(result.hasFailures());
+		assertEquals(6, result.getResources().size());
+		assertNull(result.getResources().get(5));
+		assertEquals(404, ((HttpClientErrorException) result.getFailures().get(5)).getStatusCode());
+		for (int i = 0; i < 5; i++) {
+			assertEquals(String.valueOf(i), result.getResources().get(i).getState().getString("id"));
+			assertNull(result.getFailures().get(i));
+		}
+	}
+
+	@Test
+	public void firstFailureIsThrown() throws Exception {
+		Resource issues = hapiClient.send(new Request.Builder("/broken-issues").build());
+		try {
+			hapiClient.sendAll(new Follow.Builder(GET_MANDATES).build(), issues, 6, true);
+			fail("A link is broken.");
+		} catch (HttpClientErrorException e) {
+			assertEquals(404, e.getStatusCode());
+		}
+	}
+
+	@Test
+	public void embeddedResources() throws Exception {
+		Resource issues = hapiClient.send(new Request.Builder("/embedded-issues").build());
+		long requestCount = server.getRequestCount();
+		FanOutResult result = hapiClient.sendAll(new Follow.Builder(GET_MANDATES).build(), issues, 2, true);
+
+		assertEquals(2, result.getResources().size());
+		assertEquals("1", result.getResources().get(1).getState().getString("id"));
+		assertEquals(requestCount, server.getRequestCount());
+	}
+
+	/**
+	 * @return	A resource linking to count mandates, and to the extra URL if any.
+	 */
+	private static String links(String prefix, int count, String extraUrl) {
+		StringBuilder json = new StringBuilder("{\"_links\":{\"").append(GET_MANDATES.getName()).append("\":[");
+		for (int i = 0; i < count; i++)
+			json.append(i > 0 ? "," : "").append("{\"href\":\"").append(prefix).append(i).append("\"}");
+		if (extraUrl != null)
+			json.append(",{\"href\":\"").append(extraUrl).append("\"}");
+
+		return json.append("]}}").toString();
+	}
+
+}
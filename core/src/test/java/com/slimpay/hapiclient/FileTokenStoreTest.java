@@ -0,0 +1,95 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.Request;
+import com.slimpay.hapiclient.http.auth.ExpirableToken;
+import com.slimpay.hapiclient.http.auth.FileTokenStore;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+public class FileTokenStoreTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private HalStubServer server;
+	private Path file;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder().build();
+		file = folder.getRoot().toPath().resolve("tokens").resolve("democreditor01.token");
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		server.close();
+	}
+
+	@Test
+	public void tokenIsReadBack() {
+		FileTokenStore tokenStore = new FileTokenStore(file);
+		assertNull(tokenStore.load());
+
+		tokenStore.save(new ExpirableToken("token-1", 1500000000L));
+		tokenStore.save(new ExpirableToken("token-2", 1500003600L));
+
+		ExpirableToken token = new FileTokenStore(file).load();
+		assertEquals("token-2", token.getValue());
+		assertEquals(Long.valueOf(1500003600L), token.getExpirationTime());
+	}
+
+	@Test
+	public void fileIsOnlyReadableByItsOwner() throws Exception {
+		assumeTrue(Files.getFileAttributeView(folder.getRoot().toPath(), PosixFileAttributeView.class) != null);
+
+		new FileTokenStore(file).save(new ExpirableToken("token-1", 1500000000L));
+
+		assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE),
+			Files.getPosixFilePermissions(file));
+	}
+
+	@Test
+	public void storedTokenIsReused() throws Exception {
+		try (HapiClient hapiClient = newClient()) {
+			hapiClient.send(new Request.Builder("/mandates/1").build());
+		}
+		// Another process, or the same one after a restart
+		try (HapiClient hapiClient = newClient()) {
+			assertEquals("2", hapiClient.send(new Request.Builder("/mandates/2").build()).getState().getString("id"));
+		}
+
+		assertEquals(1, server.getTokenCount());
+		long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+		assertTrue(new FileTokenStore(file).load().isValidUntil(now));
+	}
+
+	private HapiClient newClient() {
+		return new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(new Oauth2BasicAuthentication.Builder()
+				.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+				.setUserid("democreditor01")
+				.setPassword("demosecret01")
+				.setTokenStore(new FileTokenStore(file))
+				.build())
+			.build();
+	}
+
+}
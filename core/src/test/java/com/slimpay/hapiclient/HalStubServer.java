@@ -0,0 +1,417 @@
+package com.slimpay.hapiclient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process HAL server listening on localhost, shaped like the
+ * SlimPay API, so that the client can be tested and loaded without
+ * any network access:
+ * <ul>
+ * <li><strong>/</strong>: the entry point, linking to the relations below,</li>
+ * <li><strong>/oauth/token</strong>: the OAuth2 token end point (any credentials),</li>
+ * <li><strong>/creditors?reference=</strong>: a creditor,</li>
+ * <li><strong>/mandates?page=</strong>: a paginated collection of mandates
+ * (self, first, prev, next and last links),</li>
+ * <li><strong>/mandates/{id}</strong>: a mandate,</li>
+ * <li>any other resource set with {@link Builder#setResource(String, String)}
+ * or {@link #setResource(String, String)}.</li>
+ * </ul>
+ * Every request but the token ones must carry one of the tokens issued.
+ * The resources are sent with an ETag (and the Cache-Control header set, if any),
+ * and a 304 (Not Modified) is sent instead when the request carries
+ * the same ETag in If-None-Match.
+ * Responses can be delayed (without holding a server thread) and a
+ * share of them, or the next ones, replaced with an error.
+ */
+final class HalStubServer implements Closeable {
+	static final String REL_NS = "https://api.slimpay.net/alps#";
+	static final String TOKEN_END_POINT_URL = "/oauth/token";
+
+	static {
+		// By default the JDK server closes the idle connections beyond 200,
+		// which would break the connections kept alive by the client pools.
+		System.setProperty("sun.net.httpserver.maxIdleConnections", "100000");
+		// The headers and the body are written separately: without TCP_NODELAY,
+		// each response would wait for the delayed ACK of the client (about 40 ms).
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final HttpServer server;
+	private final ExecutorService handlers;
+	private final ScheduledExecutorService delayer;
+	private final long latencyNanos;
+	private final double errorRate;
+	private final int errorStatus;
+	private final int pageSize;
+	private final int pages;
+	private final int tokenExpiresIn;
+	private final Map<String, byte[]> resources;
+	private final Set<String> tokens = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger tokenCount = new AtomicInteger();
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicInteger failuresLeft = new AtomicInteger();
+	private volatile int failureStatus;
+	private volatile String failureRetryAfter;
+	private volatile String cacheControl;
+
+	private HalStubServer(Builder builder) throws IOException {
+		this.latencyNanos = builder.latencyNanos;
+		this.errorRate = builder.errorRate;
+		this.errorStatus = builder.errorStatus;
+		this.pageSize = builder.pageSize;
+		this.pages = builder.pages;
+		this.tokenExpiresIn = builder.tokenExpiresIn;
+		this.resources = new ConcurrentHashMap<String, byte[]>(builder.resources);
+		this.handlers = Executors.newFixedThreadPool(builder.handlerThreads);
+		this.delayer = Executors.newScheduledThreadPool(builder.handlerThreads);
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), builder.backlog);
+		this.server.setExecutor(handlers);
+		this.server.createContext("/", this::handle);
+		this.server.start();
+	}
+
+	/**
+	 * @return	The URL of the server (to use as the API URL).
+	 */
+	String getUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	/**
+	 * @return	The number of requests received, token requests included.
+	 */
+	long getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * @return	The number of tokens issued.
+	 */
+	int getTokenCount() {
+		return tokenCount.get();
+	}
+
+	/**
+	 * Serves (or overrides) a resource while the server is running.
+	 * @param path	The path of the resource.
+	 * @param json	Its HAL representation.
+	 */
+	void setResource(String path, String json) {
+		resources.put(path, json(json));
+	}
+
+	/**
+	 * Answers the next requests (but the token ones) with an error.
+	 * @param count			The number of requests to fail.
+	 * @param status		The status code of the errors.
+	 * @param retryAfter	The Retry-After header of the errors, or null.
+	 */
+	void failNextRequests(int count, int status, String retryAfter) {
+		failureStatus = status;
+		failureRetryAfter = retryAfter;
+		failuresLeft.set(count);
+	}
+
+	/**
+	 * Sends the resources with a Cache-Control header.
+	 * @param cacheControl	The Cache-Control header, or null for none.
+	 */
+	void setCacheControl(String cacheControl) {
+		this.cacheControl = cacheControl;
+	}
+
+	/**
+	 * Revokes all the tokens issued: the next requests get a 401 (Unauthorized).
+	 */
+	void revokeTokens() {
+		tokens.clear();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		delayer.shutdownNow();
+		handlers.shutdownNow();
+	}
+
+	private void handle(final HttpExchange exchange) throws IOException {
+		requestCount.incrementAndGet();
+		drain(exchange.getRequestBody());
+
+		int status;
+		byte[] body;
+		String path = exchange.getRequestURI().getPath();
+		if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+			status = errorStatus;
+			body = error(errorStatus, "Injected error.");
+		} else if (!TOKEN_END_POINT_URL.equals(path) && failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+			status = failureStatus;
+			body = error(failureStatus, "Injected error.");
+			if (failureRetryAfter != null)
+				exchange.getResponseHeaders().set("Retry-After", failureRetryAfter);
+		} else if (TOKEN_END_POINT_URL.equals(path)) {
+			String token = "token-" + tokenCount.incrementAndGet();
+			tokens.add(token);
+			status = 200;
+			body = json("{\"access_token\":\"" + token + "\",\"token_type\":\"bearer\","
+				+ "\"expires_in\":" + tokenExpiresIn + ",\"scope\":\"api\"}");
+		} else if (!isAuthorized(exchange)) {
+			status = 401;
+			body = error(401, "Invalid token.");
+		} else {
+			byte[] resource = getResource(path, parseQuery(exchange.getRequestURI().getRawQuery()));
+			status = resource != null ? 200 : 404;
+			body = resource != null ? resource : error(404, "Not found.");
+			if (resource != null) {
+				String etag = "\"" + Integer.toHexString(Arrays.hashCode(resource)) + "\"";
+				exchange.getResponseHeaders().set("ETag", etag);
+				if (cacheControl != null)
+					exchange.getResponseHeaders().set("Cache-Control", cacheControl);
+				if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+					status = 304;
+					body = null;
+				}
+			}
+		}
+
+		final int responseStatus = status;
+		final byte[] responseBody = body;
+		if (latencyNanos > 0)
+			delayer.schedule(() -> respond(exchange, responseStatus, responseBody), latencyNanos, TimeUnit.NANOSECONDS);
+		else
+			respond(exchange, responseStatus, responseBody);
+	}
+
+	private boolean isAuthorized(HttpExchange exchange) {
+		String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+		return authorization != null && authorization.startsWith("Bearer ") &&
+			tokens.contains(authorization.substring("Bearer ".length()));
+	}
+
+	private byte[] getResource(String path, Map<String, String> query) {
+		byte[] resource = resources.get(path);
+		if (resource != null)
+			return resource;
+
+		if ("/".equals(path))
+			return json("{\"_links\":{"
+				+ "\"self\":{\"href\":\"/\"},"
+				+ "\"profile\":{\"href\":\"https://api.slimpay.net/alps/v1\"},"
+				+ "\"" + REL_NS + "get-creditors\":{\"href\":\"/creditors{?reference}\",\"templated\":true},"
+				+ "\"" + REL_NS + "search-mandates\":{\"href\":\"/mandates{?page}\",\"templated\":true},"
+				+ "\"" + REL_NS + "get-mandates\":{\"href\":\"/mandates/{id}\",\"templated\":true}"
+				+ "}}");
+
+		if ("/creditors".equals(path) && query.containsKey("reference"))
+			return json("{\"_links\":{"
+				+ "\"self\":{\"href\":\"/creditors?reference=" + query.get("reference") + "\"},"
+				+ "\"" + REL_NS + "search-mandates\":{\"href\":\"/mandates{?page}\",\"templated\":true}"
+				+ "},\"reference\":\"" + query.get("reference") + "\",\"name\":\"The Demo Creditor\"}");
+
+		if ("/mandates".equals(path)) {
+			int page;
+			try {
+				page = query.containsKey("page") ? Integer.parseInt(query.get("page")) : 0;
+			} catch (NumberFormatException e) {
+				return null;
+			}
+			return page >= 0 && page < pages ? json(mandates(page)) : null;
+		}
+
+		if (path.startsWith("/mandates/")) {
+			try {
+				return json(mandate(new StringBuilder(), Integer.parseInt(path.substring("/mandates/".length()))).toString());
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		return null;
+	}
+
+	private String mandates(int page) {
+		StringBuilder json = new StringBuilder(pageSize * 600 + 512)
+			.append("{\"_links\":{")
+			.append("\"self\":{\"href\":\"/mandates?page=").append(page).append("\"},")
+			.append("\"first\":{\"href\":\"/mandates?page=0\"},");
+		if (page > 0)
+			json.append("\"prev\":{\"href\":\"/mandates?page=").append(page - 1).append("\"},");
+		if (page < pages - 1)
+			json.append("\"next\":{\"href\":\"/mandates?page=").append(page + 1).append("\"},");
+		json.append("\"last\":{\"href\":\"/mandates?page=").append(pages - 1).append("\"}")
+			.append("},\"_embedded\":{\"").append(REL_NS).append("mandates\":[");
+
+		for (int i = 0; i < pageSize; i++) {
+			if (i > 0)
+				json.append(',');
+			mandate(json, page * pageSize + i);
+		}
+
+		return json.append("]},\"page\":{\"size\":").append(pageSize)
+			.append(",\"totalElements\":").append(pageSize * pages)
+			.append(",\"totalPages\":").append(pages)
+			.append(",\"number\":").append(page).append("}}").toString();
+	}
+
+	private static StringBuilder mandate(StringBuilder json, int id) {
+		return json.append("{\"_links\":{")
+			.append("\"self\":{\"href\":\"/mandates/").append(id).append("\"},")
+			.append("\"").append(REL_NS).append("get-creditor\":{\"href\":\"/creditors?reference=democreditor\"},")
+			.append("\"").append(REL_NS).append("revoke-mandate\":{\"href\":\"/mandates/").append(id).append("/revocation\"}")
+			.append("},\"id\":\"").append(id)
+			.append("\",\"reference\":\"SLMP").append(1000000 + id)
+			.append("\",\"standard\":\"SEPA\",\"state\":\"active\"")
+			.append(",\"dateCreated\":\"2017-03-14T10:21:07.000+0000\"}");
+	}
+
+	private static byte[] error(int status, String message) {
+		return json("{\"code\":" + status + ",\"message\":\"" + message + "\"}");
+	}
+
+	private static byte[] json(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+		Map<String, String> parameters = new HashMap<String, String>();
+		if (query == null)
+			return parameters;
+
+		for (String parameter : query.split("&")) {
+			int equals = parameter.indexOf('=');
+			if (equals > 0)
+				parameters.put(URLDecoder.decode(parameter.substring(0, equals), "UTF-8"),
+					URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+		}
+
+		return parameters;
+	}
+
+	private static void drain(InputStream requestBody) throws IOException {
+		byte[] buffer = new byte[1024];
+		while (requestBody.read(buffer) != -1);
+		requestBody.close();
+	}
+
+	private static void respond(HttpExchange exchange, int status, byte[] body) {
+		try {
+			if (body == null) {
+				exchange.sendResponseHeaders(status, -1);
+				return;
+			}
+
+			exchange.getResponseHeaders().set("Content-Type",
+				status == 200 ? "application/hal+json" : "application/json");
+			exchange.sendResponseHeaders(status, body.length);
+			exchange.getResponseBody().write(body);
+		} catch (IOException ignored) {
+		} finally {
+			exchange.close();
+		}
+	}
+
+	static final class Builder {
+		private long latencyNanos;
+		private double errorRate;
+		private int errorStatus = 503;
+		private int pageSize = 20;
+		private int pages = 10;
+		private int tokenExpiresIn = 3600;
+		private int handlerThreads = 4;
+		private int backlog = 1000;
+		private final Map<String, byte[]> resources = new HashMap<String, byte[]>();
+
+		/**
+		 * @param latency	The delay before each response is sent.
+		 * @param unit		The unit of the latency.
+		 * @return	The builder.
+		 */
+		Builder setLatency(long latency, TimeUnit unit) {
+			this.latencyNanos = unit.toNanos(latency);
+			return this;
+		}
+
+		/**
+		 * @param errorRate		The share of the requests (between 0 and 1)
+		 * 						answered with an error, whatever the resource.
+		 * @param errorStatus	The status code of the errors.
+		 * @return	The builder.
+		 */
+		Builder setErrorRate(double errorRate, int errorStatus) {
+			this.errorRate = errorRate;
+			this.errorStatus = errorStatus;
+			return this;
+		}
+
+		/**
+		 * @param pageSize	The number of mandates per page (20 by default).
+		 * @param pages		The number of pages (10 by default).
+		 * @return	The builder.
+		 */
+		Builder setPagination(int pageSize, int pages) {
+			this.pageSize = pageSize;
+			this.pages = pages;
+			return this;
+		}
+
+		/**
+		 * @param tokenExpiresIn	The lifetime of the tokens issued, in seconds.
+		 * @return	The builder.
+		 */
+		Builder setTokenExpiresIn(int tokenExpiresIn) {
+			this.tokenExpiresIn = tokenExpiresIn;
+			return this;
+		}
+
+		/**
+		 * @param handlerThreads	The number of threads handling the requests
+		 * 							and sending the delayed responses.
+		 * @return	The builder.
+		 */
+		Builder setHandlerThreads(int handlerThreads) {
+			this.handlerThreads = handlerThreads;
+			return this;
+		}
+
+		/**
+		 * Serves (or overrides) a resource, e.g. another entry point.
+		 * @param path	The path of the resource.
+		 * @param json	Its HAL representation.
+		 * @return	The builder.
+		 */
+		Builder setResource(String path, String json) {
+			this.resources.put(path, json(json));
+			return this;
+		}
+
+		/**
+		 * @return	The started server.
+		 * @throws IOException if the server could not be started.
+		 */
+		HalStubServer build() throws IOException {
+			return new HalStubServer(this);
+		}
+	}
+
+}
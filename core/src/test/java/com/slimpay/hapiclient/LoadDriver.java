@@ -0,0 +1,247 @@
+package com.slimpay.hapiclient;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Calls an operation from many threads for a while and measures the
+ * throughput (requests per second), the latency percentiles and the
+ * memory allocated by the calling threads.
+ * <p>
+ * The allocations are those of the threads sending the requests (read
+ * from <code>com.sun.management.ThreadMXBean</code> when available):
+ * with the blocking client they include the whole request and response
+ * processing, but not the work of the in-process server.
+ */
+final class LoadDriver {
+	private final int threads;
+	private final long warmupNanos;
+	private final long durationNanos;
+
+	/**
+	 * An operation to load, typically a <code>send</code> call.
+	 */
+	interface Operation {
+		void run() throws Exception;
+	}
+
+	/**
+	 * @param threads	The number of calling threads.
+	 * @param warmup	The time spent calling the operation before measuring.
+	 * @param duration	The time spent measuring.
+	 * @param unit		The unit of the times.
+	 */
+	LoadDriver(int threads, long warmup, long duration, TimeUnit unit) {
+		this.threads = threads;
+		this.warmupNanos = unit.toNanos(warmup);
+		this.durationNanos = unit.toNanos(duration);
+	}
+
+	/**
+	 * @param name		The name of the scenario, for the report.
+	 * @param operation	The operation to load.
+	 * @return	The report of the measurement.
+	 * @throws InterruptedException if interrupted while waiting for the threads.
+	 */
+	Report run(String name, final Operation operation) throws InterruptedException {
+		final CountDownLatch done = new CountDownLatch(threads);
+		final long start = System.nanoTime();
+		final long measureFrom = start + warmupNanos;
+		final long measureUntil = measureFrom + durationNanos;
+		final List<Worker> workers = new ArrayList<Worker>(threads);
+
+		for (int i = 0; i < threads; i++) {
+			Worker worker = new Worker(operation, measureFrom, measureUntil, done);
+			workers.add(worker);
+			Thread thread = new Thread(worker, "load-" + name + "-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		done.await();
+
+		int count = 0;
+		long errors = 0, allocatedBytes = 0;
+		Throwable firstError = null;
+		for (Worker worker : workers) {
+			count += worker.count;
+			errors += worker.errors;
+			allocatedBytes += worker.allocatedBytes;
+			if (firstError == null)
+				firstError = worker.firstError.get();
+		}
+
+		long[] latencies = new long[count];
+		int offset = 0;
+		for (Worker worker : workers) {
+			System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+			offset += worker.count;
+		}
+		Arrays.sort(latencies);
+
+		return new Report(name, threads, durationNanos, latencies, errors,
+			allocatedBytes < 0 ? -1 : allocatedBytes, firstError);
+	}
+
+	private static final class Worker implements Runnable {
+		private final Operation operation;
+		private final long measureFrom;
+		private final long measureUntil;
+		private final CountDownLatch done;
+		private final AtomicReference<Throwable> firstError = new AtomicReference<Throwable>();
+		private long[] latencies = new long[4096];
+		private int count;
+		private long errors;
+		private long allocatedBytes;
+
+		private Worker(Operation operation, long measureFrom, long measureUntil, CountDownLatch done) {
+			this.operation = operation;
+			this.measureFrom = measureFrom;
+			this.measureUntil = measureUntil;
+			this.done = done;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (System.nanoTime() < measureFrom)
+					call(false);
+
+				long allocatedBefore = getAllocatedBytes();
+				long now;
+				while ((now = System.nanoTime()) < measureUntil) {
+					long latency = call(true) - now;
+					if (count == latencies.length)
+						latencies = Arrays.copyOf(latencies, count * 2);
+					latencies[count++] = latency;
+				}
+				long allocatedAfter = getAllocatedBytes();
+				allocatedBytes = allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore;
+			} finally {
+				done.countDown();
+			}
+		}
+
+		/**
+		 * @return	The System.nanoTime() at the end of the call.
+		 */
+		private long call(boolean measured) {
+			try {
+				operation.run();
+			} catch (Throwable e) {
+				if (measured)
+					errors++;
+				firstError.compareAndSet(null, e);
+			}
+
+			return System.nanoTime();
+		}
+	}
+
+	/**
+	 * @return	The bytes allocated by the current thread so far, or -1 if unknown.
+	 */
+	private static long getAllocatedBytes() {
+		java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+
+		return -1;
+	}
+
+	/**
+	 * The result of a measurement. The requests counted are the
+	 * successful and the failed ones, the latencies those of both.
+	 */
+	static final class Report {
+		private final String name;
+		private final int threads;
+		private final long durationNanos;
+		private final long[] latencies;
+		private final long errors;
+		private final long allocatedBytes;
+		private final Throwable firstError;
+
+		private Report(String name, int threads, long durationNanos, long[] latencies, long errors,
+				long allocatedBytes, Throwable firstError) {
+			this.name = name;
+			this.threads = threads;
+			this.durationNanos = durationNanos;
+			this.latencies = latencies;
+			this.errors = errors;
+			this.allocatedBytes = allocatedBytes;
+			this.firstError = firstError;
+		}
+
+		long getRequests() {
+			return latencies.length;
+		}
+
+		long getErrors() {
+			return errors;
+		}
+
+		/**
+		 * @return	The first error thrown, warmup included, or null.
+		 */
+		Throwable getFirstError() {
+			return firstError;
+		}
+
+		double getRequestsPerSecond() {
+			return latencies.length * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos;
+		}
+
+		/**
+		 * @param percentile	The percentile, between 0 and 100.
+		 * @param unit			The unit of the latency returned.
+		 * @return	The latency, or 0 if no request was measured.
+		 */
+		double getLatency(double percentile, TimeUnit unit) {
+			if (latencies.length == 0)
+				return 0;
+
+			int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+			long nanos = latencies[Math.max(0, Math.min(index, latencies.length - 1))];
+			return nanos / (double) unit.toNanos(1);
+		}
+
+		/**
+		 * @return	The bytes allocated per request, or -1 if unknown.
+		 */
+		long getAllocatedBytesPerRequest() {
+			if (allocatedBytes < 0 || latencies.length == 0)
+				return -1;
+
+			return allocatedBytes / latencies.length;
+		}
+
+		/**
+		 * @return	The allocation rate in MB per second, or -1 if unknown.
+		 */
+		double getAllocationRate() {
+			if (allocatedBytes < 0)
+				return -1;
+
+			return allocatedBytes / (1024d * 1024d) * TimeUnit.SECONDS.toNanos(1) / durationNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ENGLISH,
+				"%-16s %3d threads %9.0f req/s  p50 %7.3f ms  p90 %7.3f ms  p99 %7.3f ms  p99.9 %7.3f ms  max %8.3f ms"
+				+ "  %8d B/req  %8.1f MB/s  %d errors",
+				name, threads, getRequestsPerSecond(),
+				getLatency(50, TimeUnit.MILLISECONDS), getLatency(90, TimeUnit.MILLISECONDS),
+				getLatency(99, TimeUnit.MILLISECONDS), getLatency(99.9, TimeUnit.MILLISECONDS),
+				getLatency(100, TimeUnit.MILLISECONDS),
+				getAllocatedBytesPerRequest(), getAllocationRate(), errors);
+		}
+	}
+
+}
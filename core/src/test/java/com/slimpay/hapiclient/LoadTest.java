@@ -0,0 +1,170 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.slimpay.hapiclient.exception.HttpServerErrorException;
+import com.slimpay.hapiclient.hal.CustomRel;
+import com.slimpay.hapiclient.hal.RegisteredRel;
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.Follow;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.Request;
+import com.slimpay.hapiclient.http.TraversalPlan;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+/**
+ * Loads the client against the {@link HalStubServer}, on localhost only.
+ * <p>
+ * By default, only a short smoke check of a single request is run.
+ * The whole load, whose reports are logged, is run with e.g.:
+ * <p>
+ * <code>mvn test -Dtest=LoadTest -Dhapiclient.load=true -Dhapiclient.load.threads=64 -Dhapiclient.load.seconds=30</code>
+ */
+public class LoadTest {
+	private static final Logger LOGGER = Logger.getLogger(LoadTest.class.getName());
+	private static final boolean LOAD = Boolean.getBoolean("hapiclient.load");
+	private static final int THREADS = Integer.getInteger("hapiclient.load.threads", 8);
+	private static final int SECONDS = Integer.getInteger("hapiclient.load.seconds", 1);
+	private static final long LATENCY_MILLIS = Long.getLong("hapiclient.load.latencyMillis", 0);
+
+	private HalStubServer server;
+	private HapiClient hapiClient;
+	private LoadDriver loadDriver;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder()
+			.setLatency(LATENCY_MILLIS, TimeUnit.MILLISECONDS)
+			.setPagination(20, 5)
+			.build();
+		hapiClient = newClient(server);
+		loadDriver = LOAD
+			? new LoadDriver(THREADS, SECONDS, SECONDS, TimeUnit.SECONDS)
+			: new LoadDriver(2, 0, 200, TimeUnit.MILLISECONDS);
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		hapiClient.close();
+		server.close();
+	}
+
+	@Test
+	public void sendRequest() throws Exception {
+		final Request request = new Request.Builder("/mandates/{id}")
+			.setUrlVariable("id", 42)
+			.build();
+
+		LoadDriver.Report report = loadDriver.run("send(Request)", () -> hapiClient.send(request));
+		assertSuccessful(report);
+		assertEquals(1, server.getTokenCount());
+	}
+
+	@Test
+	public void sendFollow() throws Exception {
+		assumeTrue(LOAD);
+		final Follow follow = new Follow.Builder(new CustomRel(HalStubServer.REL_NS + "get-creditors"))
+			.setUrlVariable("reference", "democreditor")
+			.build();
+
+		LoadDriver.Report report = loadDriver.run("send(Follow)", () -> hapiClient.send(follow));
+		assertSuccessful(report);
+	}
+
+	@Test
+	public void sendFollows() throws Exception {
+		assumeTrue(LOAD);
+		final List<Follow> follows = Arrays.asList(
+			new Follow.Builder(new CustomRel(HalStubServer.REL_NS + "get-creditors"))
+				.setUrlVariable("reference", "democreditor")
+				.build(),
+			new Follow.Builder(new CustomRel(HalStubServer.REL_NS + "search-mandates"))
+				.build(),
+			new Follow.Builder(RegisteredRel.NEXT)
+				.build());
+
+		Resource page = hapiClient.send(follows);
+		assertEquals(1, page.getState().getJsonObject("page").getInt("number"));
+
+		LoadDriver.Report report = loadDriver.run("send(List<Follow>)", () -> hapiClient.send(follows));
+		assertSuccessful(report);
+	}
+
+	@Test
+	public void sendTraversalPlan() throws Exception {
+		assumeTrue(LOAD);
+		final TraversalPlan plan = hapiClient.prepare(Arrays.asList(
+			new Follow.Builder(new CustomRel(HalStubServer.REL_NS + "get-creditors"))
+				.setUrlVariable("reference", "democreditor")
+				.build(),
+			new Follow.Builder(new CustomRel(HalStubServer.REL_NS + "search-mandates"))
+				.build()));
+		final Map<String, Object> urlVariables = Collections.<String, Object>singletonMap("page", 1);
+
+		LoadDriver.Report report = loadDriver.run("TraversalPlan", () -> plan.send(urlVariables));
+		assertSuccessful(report);
+	}
+
+	@Test
+	public void injectedErrors() throws Exception {
+		assumeTrue(LOAD);
+		HalStubServer failingServer = new HalStubServer.Builder()
+			.setErrorRate(0.5, 503)
+			.build();
+		HapiClient failingClient = newClient(failingServer);
+		try {
+			final Request request = new Request.Builder("/").build();
+			LoadDriver.Report report = new LoadDriver(2, 0, 200, TimeUnit.MILLISECONDS)
+				.run("errors", () -> failingClient.send(request));
+			LOGGER.info(report.toString());
+
+			assertTrue(report.getErrors() > 0);
+			assertTrue(report.getErrors() < report.getRequests());
+			assertTrue(report.getFirstError() instanceof HttpServerErrorException);
+		} finally {
+			failingClient.close();
+			failingServer.close();
+		}
+	}
+
+	private static HapiClient newClient(HalStubServer server) {
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(THREADS);
+		connectionManager.setDefaultMaxPerRoute(THREADS);
+
+		return new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setConnectionManager(connectionManager)
+			.setAuthenticationMethod(new Oauth2BasicAuthentication.Builder()
+				.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+				.setUserid("democreditor01")
+				.setPassword("demosecret01")
+				.build())
+			.build();
+	}
+
+	private static void assertSuccessful(LoadDriver.Report report) {
+		if (LOAD)
+			LOGGER.info(report.toString());
+		if (report.getFirstError() != null)
+			throw new AssertionError("The load failed.", report.getFirstError());
+
+		assertEquals(0, report.getErrors());
+		assertTrue(report.getRequests() > 0);
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.slimpay.hapiclient.exception.HttpException;
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.Request;
+import com.slimpay.hapiclient.http.auth.MultiTenantOauth2Authentication;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+public class MultiTenantOauth2AuthenticationTest {
+	private static final int THREADS = 8;
+
+	private HalStubServer server;
+	private HapiClient hapiClient;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder().build();
+		hapiClient = new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(new Oauth2BasicAuthentication.Builder()
+				.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+				.setUserid("democreditor01")
+				.setPassword("demosecret01")
+				.build())
+			.build();
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		hapiClient.close();
+		server.close();
+	}
+
+	@Test
+	public void eachTenantGetsItsToken() throws Exception {
+		MultiTenantOauth2Authentication tenants = newTenantsBuilder().build();
+
+		for (int i = 0; i < 3; i++) {
+			send(tenants, "creditor1");
+			send(tenants, "creditor2");
+		}
+
+		assertEquals(2, tenants.size());
+		assertEquals(2, server.getTokenCount());
+	}
+
+	@Test
+	public void idleTenantsAreEvicted() throws Exception {
+		MultiTenantOauth2Authentication tenants = newTenantsBuilder()
+			.setIdleTimeout(200, TimeUnit.MILLISECONDS)
+			.build();
+		send(tenants, "creditor1");
+		send(tenants, "creditor2");
+		assertEquals(2, tenants.size());
+
+		// Only the first tenant keeps sending requests
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (tenants.size() > 1 && System.nanoTime() - deadline < 0) {
+			Thread.sleep(50);
+			send(tenants, "creditor1");
+		}
+
+		assertEquals(1, tenants.size());
+		assertEquals(2, server.getTokenCount());
+	}
+
+	@Test
+	public void leastRecentlyUsedTenantsAreEvicted() throws Exception {
+		MultiTenantOauth2Authentication tenants = newTenantsBuilder()
+			.setMaximumTenants(2)
+			.build();
+		send(tenants, "creditor1");
+		send(tenants, "creditor2");
+		send(tenants, "creditor1");
+		send(tenants, "creditor3");
+		assertEquals(2, tenants.size());
+
+		// The first tenant is still cached, the second one gets a new token
+		send(tenants, "creditor1");
+		assertEquals(3, server.getTokenCount());
+		send(tenants, "creditor2");
+		assertEquals(4, server.getTokenCount());
+	}
+
+	@Test
+	public void concurrentTenantsDoNotExceedTheBound() throws Exception {
+		final MultiTenantOauth2Authentication tenants = newTenantsBuilder()
+			.setMaximumTenants(10)
+			.build();
+		final AtomicInteger maximumSize = new AtomicInteger();
+		ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> results = new ArrayList<Future<?>>();
+			for (int i = 0; i < THREADS; i++) {
+				final int thread = i;
+				results.add(threads.submit(() -> {
+					for (int j = 0; j < 10; j++) {
+						send(tenants, "creditor" + thread + "-" + j);
+						maximumSize.accumulateAndGet(tenants.size(), Math::max);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> result : results)
+				result.get(10, TimeUnit.SECONDS);
+		} finally {
+			threads.shutdownNow();
+		}
+
+		// Exceeded at most by the tenants added at the same time
+		assertTrue(maximumSize.get() + " tenants", maximumSize.get() <= 10 + THREADS);
+		assertTrue(tenants.size() <= 10);
+	}
+
+	private MultiTenantOauth2Authentication.Builder newTenantsBuilder() {
+		return new MultiTenantOauth2Authentication.Builder()
+			.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL);
+	}
+
+	private Resource send(MultiTenantOauth2Authentication tenants, String userid) throws HttpException {
+		return hapiClient.send(new Request.Builder("/mandates/1")
+			.setAuthenticationMethod(tenants.forTenant(userid, "secret"))
+			.build());
+	}
+
+}
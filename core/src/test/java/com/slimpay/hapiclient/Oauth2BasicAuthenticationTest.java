@@ -0,0 +1,195 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.message.BasicHeader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.Request;
+import com.slimpay.hapiclient.http.auth.ExpirableToken;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+public class Oauth2BasicAuthenticationTest {
+	private static final int THREADS = 8;
+	private static final int TOKEN_EXPIRES_IN = 4;
+
+	private HalStubServer server;
+	private HapiClient hapiClient;
+	private ExecutorService threads;
+	private ScheduledExecutorService refreshScheduler;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder()
+			.setLatency(100, TimeUnit.MILLISECONDS)
+			.setTokenExpiresIn(TOKEN_EXPIRES_IN)
+			.build();
+		hapiClient = newClient(newAuthenticationBuilder().build());
+		threads = Executors.newFixedThreadPool(THREADS);
+		refreshScheduler = Executors.newSingleThreadScheduledExecutor();
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		refreshScheduler.shutdownNow();
+		threads.shutdownNow();
+		hapiClient.close();
+		server.close();
+	}
+
+	@Test
+	public void concurrentRequestsShareTheTokenRequest() throws Exception {
+		for (Future<Resource> mandate : sendAtOnce(new Request.Builder("/mandates/1").build()))
+			assertEquals("1", mandate.get(5, TimeUnit.SECONDS).getState().getString("id"));
+
+		assertEquals(1, server.getTokenCount());
+	}
+
+	@Test
+	public void validTokenIsReused() throws Exception {
+		hapiClient.send(new Request.Builder("/mandates/1").build());
+		for (Future<Resource> mandate : sendAtOnce(new Request.Builder("/mandates/2").build()))
+			mandate.get(5, TimeUnit.SECONDS);
+
+		assertEquals(1, server.getTokenCount());
+	}
+
+	@Test
+	public void concurrentRejectionsShareTheTokenRequest() throws Exception {
+		hapiClient.send(new Request.Builder("/mandates/1").build());
+		server.revokeTokens();
+
+		for (Future<Resource> mandate : sendAtOnce(new Request.Builder("/mandates/2").build()))
+			assertEquals("2", mandate.get(5, TimeUnit.SECONDS).getState().getString("id"));
+
+		assertEquals(2, server.getTokenCount());
+	}
+
+	@Test
+	public void staleBearerIsReplaced() throws Exception {
+		hapiClient.send(new Request.Builder("/mandates/1").build());
+
+		Resource mandate = hapiClient.send(new Request.Builder("/mandates/2")
+			.addHeader(new BasicHeader("Authorization", "Bearer expired"))
+			.build());
+		assertEquals("2", mandate.getState().getString("id"));
+		assertEquals(1, server.getTokenCount());
+	}
+
+	@Test
+	public void tokenIsRefreshedBeforeItExpires() throws Exception {
+		Oauth2BasicAuthentication authentication = newRefreshingAuthenticationBuilder().build();
+		hapiClient.close();
+		hapiClient = newClient(authentication);
+		long start = System.nanoTime();
+		hapiClient.send(new Request.Builder("/mandates/1").build());
+		assertEquals(1, server.getTokenCount());
+
+		// Without any request
+		awaitRefresh(authentication, authentication.getToken(), start);
+		assertEquals(2, server.getTokenCount());
+	}
+
+	@Test
+	public void presetTokenIsRefreshedBeforeItExpires() throws Exception {
+		Oauth2BasicAuthentication issuer = newAuthenticationBuilder().build();
+		try (HapiClient issuerClient = newClient(issuer)) {
+			issuerClient.send(new Request.Builder("/mandates/1").build());
+		}
+		long start = System.nanoTime();
+		ExpirableToken presetToken = issuer.getToken();
+
+		Oauth2BasicAuthentication authentication = newRefreshingAuthenticationBuilder()
+			.setToken(presetToken)
+			.build();
+		hapiClient.close();
+		hapiClient = newClient(authentication);
+		hapiClient.send(new Request.Builder("/mandates/2").build());
+		assertEquals(1, server.getTokenCount());
+
+		awaitRefresh(authentication, presetToken, start);
+		assertEquals(2, server.getTokenCount());
+	}
+
+	@Test
+	public void shortLivedTokenIsNotRefreshedAtOnce() throws Exception {
+		// The default lead time and jitter are longer than the token lifetime
+		Oauth2BasicAuthentication authentication = newAuthenticationBuilder()
+			.setRefreshScheduler(refreshScheduler)
+			.build();
+		hapiClient.close();
+		hapiClient = newClient(authentication);
+		hapiClient.send(new Request.Builder("/mandates/1").build());
+
+		Thread.sleep(TimeUnit.SECONDS.toMillis(TOKEN_EXPIRES_IN) - 500);
+		// Refreshed at half of its lifetime, not in a loop
+		int tokenCount = server.getTokenCount();
+		assertTrue(tokenCount + " token requests", tokenCount >= 2 && tokenCount <= 3);
+		assertTrue(authentication.getToken().isValidUntil(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())));
+	}
+
+	/**
+	 * Waits for the token to be replaced, which must happen before it expires.
+	 */
+	private static void awaitRefresh(Oauth2BasicAuthentication authentication, ExpirableToken token, long start)
+			throws InterruptedException {
+		long deadline = start + TimeUnit.SECONDS.toNanos(TOKEN_EXPIRES_IN) - TimeUnit.MILLISECONDS.toNanos(500);
+		while (authentication.getToken() == token && System.nanoTime() - deadline < 0)
+			Thread.sleep(20);
+		assertNotSame(token, authentication.getToken());
+		assertTrue(authentication.getToken().isValidUntil(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())));
+	}
+
+	private Oauth2BasicAuthentication.Builder newRefreshingAuthenticationBuilder() {
+		return newAuthenticationBuilder()
+			.setRefreshScheduler(refreshScheduler)
+			.setRefreshLeadTime(TOKEN_EXPIRES_IN - 2, TimeUnit.SECONDS)
+			.setRefreshJitter(0, TimeUnit.SECONDS);
+	}
+
+	private Oauth2BasicAuthentication.Builder newAuthenticationBuilder() {
+		return new Oauth2BasicAuthentication.Builder()
+			.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+			.setUserid("democreditor01")
+			.setPassword("demosecret01");
+	}
+
+	private HapiClient newClient(Oauth2BasicAuthentication authentication) {
+		return new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(authentication)
+			.build();
+	}
+
+	/**
+	 * Sends the request from all the threads at once.
+	 */
+	private List<Future<Resource>> sendAtOnce(final Request request) {
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Future<Resource>> resources = new ArrayList<Future<Resource>>();
+		for (int i = 0; i < THREADS; i++)
+			resources.add(threads.submit(() -> {
+				start.await();
+				return hapiClient.send(request);
+			}));
+		start.countDown();
+
+		return resources;
+	}
+
+}
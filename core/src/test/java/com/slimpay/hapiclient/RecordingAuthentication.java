@@ -0,0 +1,47 @@
+package com.slimpay.hapiclient;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+import com.slimpay.hapiclient.exception.HttpException;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.auth.AuthenticationMethod;
+
+/**
+ * Records the threads authorizing the requests,
+ * which must never be the I/O dispatcher threads.
+ */
+final class RecordingAuthentication implements AuthenticationMethod {
+	private final AuthenticationMethod delegate;
+	final Set<String> authorizationThreads = ConcurrentHashMap.newKeySet();
+	volatile String reauthorizationThread;
+
+	RecordingAuthentication(AuthenticationMethod delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void authorizeRequest(HapiClient hapiClient, HttpUriRequest httpRequest) throws HttpException {
+		authorizationThreads.add(Thread.currentThread().getName());
+		delegate.authorizeRequest(hapiClient, httpRequest);
+	}
+
+	@Override
+	public void reauthorizeRequest(HapiClient hapiClient, HttpUriRequest httpRequest) throws HttpException {
+		reauthorizationThread = Thread.currentThread().getName();
+		delegate.reauthorizeRequest(hapiClient, httpRequest);
+	}
+
+	/**
+	 * @return	Whether a request was authorized from an I/O dispatcher thread.
+	 */
+	boolean authorizedOnIoThread() {
+		for (String thread : authorizationThreads)
+			if (thread.startsWith("I/O dispatcher"))
+				return true;
+
+		return false;
+	}
+}
@@ -0,0 +1,167 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.message.BasicHeader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.slimpay.hapiclient.exception.HttpClientErrorException;
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.Request;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+public class RequestCoalescingTest {
+	private static final int THREADS = 8;
+
+	private HalStubServer server;
+	private HapiClient hapiClient;
+	private ExecutorService threads;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder()
+			.setLatency(200, TimeUnit.MILLISECONDS)
+			.build();
+		hapiClient = new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(newAuthentication())
+			.setRequestCoalescing(true)
+			.build();
+		threads = Executors.newFixedThreadPool(THREADS);
+		// Authenticated beforehand
+		hapiClient.send(new Request.Builder("/mandates/0").build());
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		threads.shutdownNow();
+		hapiClient.close();
+		server.close();
+	}
+
+	@Test
+	public void identicalRequestsShareTheExchange() throws Exception {
+		final Request request = new Request.Builder("/mandates/{id}")
+			.setUrlVariable("id", 42)
+			.build();
+		long requestCount = server.getRequestCount();
+
+		List<Future<Resource>> resources = sendAtOnce(request);
+		CompletableFuture<Resource> asyncResource = hapiClient.sendAsync(request);
+
+		for (Future<Resource> resource : resources)
+			assertSame(resources.get(0).get(), resource.get());
+		assertSame(resources.get(0).get(), asyncResource.get());
+		assertEquals("42", asyncResource.get().getState().getString("id"));
+		assertEquals(requestCount + 1, server.getRequestCount());
+
+		// Sent again once the exchange is over
+		hapiClient.send(request);
+		assertEquals(requestCount + 2, server.getRequestCount());
+	}
+
+	@Test
+	public void differentRequestsAreNotShared() throws Exception {
+		long requestCount = server.getRequestCount();
+		CompletableFuture<Resource> mandate1 = hapiClient.sendAsync(new Request.Builder("/mandates/1").build());
+		CompletableFuture<Resource> mandate2 = hapiClient.sendAsync(new Request.Builder("/mandates/2").build());
+
+		assertEquals("1", mandate1.get().getState().getString("id"));
+		assertEquals("2", mandate2.get().getState().getString("id"));
+		assertEquals(requestCount + 2, server.getRequestCount());
+	}
+
+	@Test
+	public void differentCredentialsAreNotShared() throws Exception {
+		String token1 = newToken(), token2 = newToken();
+		long requestCount = server.getRequestCount();
+
+		CompletableFuture<Resource> mandate1 = hapiClient.sendAsync(newRequestWithToken(token1));
+		CompletableFuture<Resource> mandate2 = hapiClient.sendAsync(newRequestWithToken(token2));
+		CompletableFuture<Resource> mandate3 = hapiClient.sendAsync(new Request.Builder("/mandates/1").build());
+		CompletableFuture<Resource> sharedMandate1 = hapiClient.sendAsync(newRequestWithToken(token1));
+
+		assertNotSame(mandate1.get(), mandate2.get());
+		assertNotSame(mandate1.get(), mandate3.get());
+		assertSame(mandate1.get(), sharedMandate1.get());
+		assertEquals(requestCount + 3, server.getRequestCount());
+	}
+
+	@Test
+	public void failureIsShared() throws Exception {
+		long requestCount = server.getRequestCount();
+		for (Future<Resource> resource : sendAtOnce(new Request.Builder("/unknown").build())) {
+			try {
+				resource.get();
+				fail("The resource doesn't exist.");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof HttpClientErrorException);
+			}
+		}
+		assertEquals(requestCount + 1, server.getRequestCount());
+	}
+
+	private static Request newRequestWithToken(String token) {
+		return new Request.Builder("/mandates/1")
+			.addHeader(new BasicHeader("Authorization", "Bearer " + token))
+			.build();
+	}
+
+	/**
+	 * @return	A token issued to another client.
+	 */
+	private String newToken() throws Exception {
+		Oauth2BasicAuthentication authentication = newAuthentication();
+		try (HapiClient other = new HapiClient.Builder()
+				.setApiUrl(server.getUrl())
+				.setAuthenticationMethod(authentication)
+				.build()) {
+			other.send(new Request.Builder("/mandates/0").build());
+		}
+		return authentication.getToken().getValue();
+	}
+
+	private static Oauth2BasicAuthentication newAuthentication() {
+		return new Oauth2BasicAuthentication.Builder()
+			.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+			.setUserid("democreditor01")
+			.setPassword("demosecret01")
+			.build();
+	}
+
+	/**
+	 * Sends the request from all the threads at once.
+	 */
+	private List<Future<Resource>> sendAtOnce(final Request request) throws Exception {
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Future<Resource>> resources = new ArrayList<Future<Resource>>();
+		for (int i = 0; i < THREADS; i++)
+			resources.add(threads.submit(() -> {
+				start.await();
+				return hapiClient.send(request);
+			}));
+		start.countDown();
+		// Let the threads join the exchange in progress
+		Thread.sleep(50);
+
+		return resources;
+	}
+
+}
@@ -2,17 +2,34 @@ package com.slimpay.hapiclient;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import javax.json.Json;
 import javax.json.JsonObject;
+import javax.json.stream.JsonParsingException;
 
 import org.junit.Test;
 
+import com.slimpay.hapiclient.exception.EmbeddedResourceNotUniqueException;
 import com.slimpay.hapiclient.hal.CustomRel;
+import com.slimpay.hapiclient.hal.Rel;
 import com.slimpay.hapiclient.hal.RegisteredRel;
 import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.json.JacksonJsonProvider;
+import com.slimpay.hapiclient.json.JsonProviders;
+import com.slimpay.hapiclient.util.EntityConverter;
 
 public class ResourceTest {
 	private static final String JSON_REPRESENTATION = new StringBuilder()
@@ -95,6 +112,109 @@ public class ResourceTest {
 		assertEquals(0, order1.getAllEmbeddedResources().size());
 	}
 	
+	@Test
+	public void streamedResources() {
+		Resource fromTree = Resource.fromJson(Json.createReader(new StringReader(JSON_REPRESENTATION)).readObject());
+		Resource fromStream = Resource.fromJson(new ByteArrayInputStream(JSON_REPRESENTATION.getBytes(StandardCharsets.UTF_8)));
+		
+		assertEquals(fromTree, fromStream);
+		assertEquals(fromTree, Resource.fromJson(JSON_REPRESENTATION));
+		assertEquals(new Resource.Builder().build(), Resource.fromJson("  "));
+	}
+	
+	@Test
+	public void lazyResources() {
+		Resource eager = Resource.fromJson(JSON_REPRESENTATION);
+		Resource lazy = Resource.fromJsonLazily(new StringReader(JSON_REPRESENTATION));
+		
+		assertEquals("/orders?page=2", lazy.getLink(RegisteredRel.NEXT).getHref());
+		assertEquals(eager, lazy);
+		assertEquals(eager.hashCode(), lazy.hashCode());
+	}
+
+	@Test
+	public void jsonRepresentation() {
+		Resource resource = Resource.fromJson(JSON_REPRESENTATION);
+		JsonObject json = resource.toJson();
+
+		assertEquals(resource, Resource.fromJson(json));
+		assertEquals(resource, Resource.fromJson(json.toString()));
+		assertTrue(json.getJsonObject("_links").getJsonObject("find").getBoolean("templated"));
+		assertFalse(json.getJsonObject("_links").getJsonObject("next").containsKey("templated"));
+		assertEquals(new Resource.Builder().build(), Resource.fromJson(new Resource.Builder().build().toJson()));
+	}
+
+	@Test
+	public void jacksonProvider() {
+		Resource expected = Resource.fromJson(JSON_REPRESENTATION);
+		JsonObject body = Json.createObjectBuilder()
+			.add("reference", "SLMP\u00e9")
+			.add("amount", new BigDecimal("30.50"))
+			.add("items", Json.createArrayBuilder().add(1).addNull().add(true))
+			.build();
+		
+		JsonProviders.setProvider(new JacksonJsonProvider());
+		try {
+			assertEquals(expected, Resource.fromJson(new ByteArrayInputStream(JSON_REPRESENTATION.getBytes(StandardCharsets.UTF_8))));
+			assertEquals(expected, Resource.fromJson(JSON_REPRESENTATION));
+			assertEquals(expected, Resource.fromJsonLazily(new StringReader(JSON_REPRESENTATION)));
+			assertEquals(new Resource.Builder().build(), Resource.fromJson(""));
+			
+			String json = EntityConverter.entityToString(EntityConverter.jsonToStringEntity(body));
+			assertEquals(body.toString(), json);
+			assertEquals(body, Json.createReader(new StringReader(json)).readObject());
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		} finally {
+			JsonProviders.setProvider(null);
+		}
+	}
+	
+	@Test(expected = JsonParsingException.class)
+	public void jacksonProviderMalformedJson() {
+		JsonProviders.setProvider(new JacksonJsonProvider());
+		try {
+			Resource.fromJson("{\"_links\": {\"self\": }");
+		} finally {
+			JsonProviders.setProvider(null);
+		}
+	}
+	
+	@Test
+	public void sharedCustomRels() throws Exception {
+		Rel orders = null;
+		for (Rel rel : Resource.fromJson(JSON_REPRESENTATION).getAllEmbeddedResources().keySet())
+			orders = rel;
+		Rel lazyOrders = null;
+		for (Rel rel : Resource.fromJsonLazily(new StringReader(JSON_REPRESENTATION)).getAllEmbeddedResources().keySet())
+			lazyOrders = rel;
+		
+		assertSame(CustomRel.valueOf("acme:orders"), orders);
+		assertSame(orders, lazyOrders);
+		assertEquals(new CustomRel("ACME:Orders"), orders);
+		assertEquals(new CustomRel("ACME:Orders").hashCode(), orders.hashCode());
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(new CustomRel("acme:orders"));
+		out.close();
+		assertSame(orders, new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject());
+	}
+	
+	@Test
+	public void findMissingRels() {
+		Resource resource = Resource.fromJson(JSON_REPRESENTATION);
+		
+		assertEquals("/orders?page=2", resource.findLink(RegisteredRel.NEXT).getHref());
+		assertNull(resource.findLink(RegisteredRel.PREV));
+		assertNull(resource.findEmbeddedResource(RegisteredRel.NEXT));
+	}
+	
+	@Test(expected = EmbeddedResourceNotUniqueException.class)
+	public void findEmbeddedArray() {
+		Resource.fromJson(JSON_REPRESENTATION).findEmbeddedResource(new CustomRel("acme", "orders"));
+	}
+	
 	@Test
 	public void equalResources() {
 		Resource resource1 = Resource.fromJson(JSON_REPRESENTATION);
@@ -0,0 +1,131 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.apache.http.message.BasicHeader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.Method;
+import com.slimpay.hapiclient.http.Request;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+public class ResponseCacheTest {
+	private HalStubServer server;
+	private HapiClient hapiClient;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder().build();
+		hapiClient = new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(newAuthentication())
+			.setResponseCacheSize(100)
+			.build();
+		// Authenticated beforehand
+		hapiClient.send(new Request.Builder("/mandates/0").build());
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		hapiClient.close();
+		server.close();
+	}
+
+	@Test
+	public void freshResourceIsNotRequested() throws Exception {
+		server.setCacheControl("private, max-age=60");
+		long requestCount = server.getRequestCount();
+
+		Resource mandate = hapiClient.send(new Request.Builder("/mandates/1").build());
+		assertSame(mandate, hapiClient.send(new Request.Builder("/mandates/1").build()));
+		assertSame(mandate, hapiClient.sendAsync(new Request.Builder("/mandates/1").build()).get());
+		assertEquals(requestCount + 1, server.getRequestCount());
+	}
+
+	@Test
+	public void staleResourceIsRevalidated() throws Exception {
+		// Stale at once, but sent with an ETag
+		long requestCount = server.getRequestCount();
+
+		Resource mandate = hapiClient.send(new Request.Builder("/mandates/1").build());
+		// 304 (Not Modified): the cached Resource is returned
+		assertSame(mandate, hapiClient.send(new Request.Builder("/mandates/1").build()));
+		assertEquals(requestCount + 2, server.getRequestCount());
+
+		// Modified
+		server.setResource("/mandates/1", "{\"id\":\"1\",\"state\":\"revoked\"}");
+		Resource modified = hapiClient.send(new Request.Builder("/mandates/1").build());
+		assertEquals("revoked", modified.getState().getString("state"));
+	}
+
+	@Test
+	public void noStoreIsNotCached() throws Exception {
+		server.setCacheControl("no-store");
+		long requestCount = server.getRequestCount();
+
+		Resource mandate = hapiClient.send(new Request.Builder("/mandates/1").build());
+		assertNotSame(mandate, hapiClient.send(new Request.Builder("/mandates/1").build()));
+		assertEquals(requestCount + 2, server.getRequestCount());
+	}
+
+	@Test
+	public void writeEvictsTheResource() throws Exception {
+		server.setCacheControl("max-age=60");
+		long requestCount = server.getRequestCount();
+
+		Resource mandate = hapiClient.send(new Request.Builder("/mandates/1").build());
+		hapiClient.send(new Request.Builder("/mandates/1").setMethod(Method.PATCH).build());
+		assertNotSame(mandate, hapiClient.send(new Request.Builder("/mandates/1").build()));
+		assertEquals(requestCount + 3, server.getRequestCount());
+	}
+
+	@Test
+	public void callerCredentialsAreNotShared() throws Exception {
+		server.setCacheControl("private, max-age=60");
+		String token1 = newToken(), token2 = newToken();
+		long requestCount = server.getRequestCount();
+
+		Resource mandate = hapiClient.send(newRequestWithToken(token1));
+		assertSame(mandate, hapiClient.send(newRequestWithToken(token1)));
+		assertEquals(requestCount + 1, server.getRequestCount());
+
+		assertNotSame(mandate, hapiClient.send(newRequestWithToken(token2)));
+		assertNotSame(mandate, hapiClient.send(new Request.Builder("/mandates/1").build()));
+		assertEquals(requestCount + 3, server.getRequestCount());
+	}
+
+	private Request newRequestWithToken(String token) {
+		return new Request.Builder("/mandates/1")
+			.addHeader(new BasicHeader("Authorization", "Bearer " + token))
+			.build();
+	}
+
+	/**
+	 * @return	A token issued to another client.
+	 */
+	private String newToken() throws Exception {
+		Oauth2BasicAuthentication authentication = newAuthentication();
+		try (HapiClient other = new HapiClient.Builder()
+				.setApiUrl(server.getUrl())
+				.setAuthenticationMethod(authentication)
+				.build()) {
+			other.send(new Request.Builder("/mandates/0").build());
+		}
+		return authentication.getToken().getValue();
+	}
+
+	private static Oauth2BasicAuthentication newAuthentication() {
+		return new Oauth2BasicAuthentication.Builder()
+			.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+			.setUserid("democreditor01")
+			.setPassword("demosecret01")
+			.build();
+	}
+
+}
@@ -0,0 +1,270 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.UnknownHostException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.message.BasicHeader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.slimpay.hapiclient.exception.HttpClientErrorException;
+import com.slimpay.hapiclient.exception.HttpServerErrorException;
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.Method;
+import com.slimpay.hapiclient.http.Request;
+import com.slimpay.hapiclient.http.RetryPolicy;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+public class RetryPolicyTest {
+	private HalStubServer server;
+	private HapiClient hapiClient;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder().build();
+		hapiClient = newClient(new RetryPolicy.Builder()
+			.setMaxAttempts(3)
+			.setBackoff(10, 100, TimeUnit.MILLISECONDS)
+			.build());
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		hapiClient.close();
+		server.close();
+	}
+
+	@Test
+	public void transientErrorsAreRetried() throws Exception {
+		server.failNextRequests(2, 503, null);
+		long requestCount = server.getRequestCount();
+
+		Resource mandate = hapiClient.send(new Request.Builder("/mandates/1").build());
+		assertEquals("1", mandate.getState().getString("id"));
+		assertEquals(requestCount + 3, server.getRequestCount());
+	}
+
+	@Test
+	public void lastErrorIsThrown() throws Exception {
+		server.failNextRequests(3, 502, null);
+		long requestCount = server.getRequestCount();
+
+		try {
+			hapiClient.send(new Request.Builder("/mandates/1").build());
+			fail("All the attempts failed.");
+		} catch (HttpServerErrorException e) {
+			assertEquals(502, e.getStatusCode());
+		}
+		assertEquals(requestCount + 3, server.getRequestCount());
+	}
+
+	@Test
+	public void otherErrorsAreNotRetried() throws Exception {
+		server.failNextRequests(1, 500, null);
+		long requestCount = server.getRequestCount();
+
+		try {
+			hapiClient.send(new Request.Builder("/mandates/1").build());
+			fail("The error is not transient.");
+		} catch (HttpServerErrorException e) {
+			assertEquals(500, e.getStatusCode());
+		}
+		assertEquals(requestCount + 1, server.getRequestCount());
+	}
+
+	@Test
+	public void postIsOnlyRetriedWithAnIdempotencyKey() throws Exception {
+		server.failNextRequests(1, 503, null);
+		long requestCount = server.getRequestCount();
+		try {
+			hapiClient.send(new Request.Builder("/mandates/1").setMethod(Method.POST).build());
+			fail("The POST request may not be idempotent.");
+		} catch (HttpServerErrorException e) {
+			assertEquals(503, e.getStatusCode());
+		}
+		assertEquals(requestCount + 1, server.getRequestCount());
+
+		server.failNextRequests(1, 503, null);
+		Resource mandate = hapiClient.send(new Request.Builder("/mandates/1")
+			.setMethod(Method.POST)
+			.addHeader(new BasicHeader("Idempotency-Key", "b5d3c3f8"))
+			.build());
+		assertEquals("1", mandate.getState().getString("id"));
+		assertEquals(requestCount + 3, server.getRequestCount());
+	}
+
+	@Test
+	public void retryAfterIsHonored() throws Exception {
+		hapiClient.close();
+		hapiClient = newClient(new RetryPolicy.Builder()
+			.setBackoff(0, 2, TimeUnit.SECONDS)
+			.build());
+		server.failNextRequests(1, 429, "1");
+
+		long start = System.nanoTime();
+		hapiClient.send(new Request.Builder("/mandates/1").build());
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue("Took " + elapsedMillis + " ms", elapsedMillis >= 1000);
+
+		// Longer than the maximum backoff
+		server.failNextRequests(1, 429, "10");
+		try {
+			hapiClient.send(new Request.Builder("/mandates/1").build());
+			fail("The server asked to wait too long.");
+		} catch (HttpClientErrorException e) {
+			assertEquals(429, e.getStatusCode());
+		}
+	}
+
+	@Test
+	public void retriesAreCappedByTheBudget() throws Exception {
+		hapiClient.close();
+		hapiClient = newClient(new RetryPolicy.Builder()
+			.setBackoff(0, 0, TimeUnit.MILLISECONDS)
+			.setRetryBudget(0, 2)
+			.build());
+		server.failNextRequests(Integer.MAX_VALUE, 503, null);
+		long requestCount = server.getRequestCount();
+
+		for (int i = 0; i < 3; i++) {
+			try {
+				hapiClient.send(new Request.Builder("/mandates/1").build());
+				fail("The server is down.");
+			} catch (HttpServerErrorException e) {
+				assertEquals(503, e.getStatusCode());
+			}
+		}
+		// 2 retries for the first request, none for the next ones
+		assertEquals(requestCount + 5, server.getRequestCount());
+	}
+
+	@Test
+	public void noBurstMeansNoRetry() throws Exception {
+		hapiClient.close();
+		hapiClient = newClient(new RetryPolicy.Builder()
+			.setBackoff(0, 0, TimeUnit.MILLISECONDS)
+			.setRetryBudget(1, 0)
+			.build());
+		server.failNextRequests(1, 503, null);
+		long requestCount = server.getRequestCount();
+
+		try {
+			hapiClient.send(new Request.Builder("/mandates/1").build());
+			fail("The budget cannot hold a retry.");
+		} catch (HttpServerErrorException e) {
+			assertEquals(503, e.getStatusCode());
+		}
+		assertEquals(requestCount + 1, server.getRequestCount());
+	}
+
+	@Test
+	public void retryIsSentWithTheCurrentToken() throws Exception {
+		hapiClient.close();
+		hapiClient = newClient(new RetryPolicy.Builder()
+			.setBackoff(0, 2, TimeUnit.SECONDS)
+			.build());
+		server.failNextRequests(1, 503, "1");
+		long requestCount = server.getRequestCount();
+
+		CompletableFuture<Resource> mandate = hapiClient.sendAsync(new Request.Builder("/mandates/1").build());
+		while (server.getRequestCount() == requestCount)
+			Thread.sleep(10);
+		// The token is replaced while the retry waits
+		server.revokeTokens();
+		hapiClient.send(new Request.Builder("/mandates/2").build());
+
+		assertEquals("1", mandate.get().getState().getString("id"));
+		// 503, 401, token, retried /mandates/2, retried /mandates/1 (no 401 with the revoked token)
+		assertEquals(requestCount + 5, server.getRequestCount());
+	}
+
+	@Test
+	public void asyncRetryIsNotSentFromTheScheduler() throws Exception {
+		RecordingAuthentication authentication = new RecordingAuthentication(new Oauth2BasicAuthentication.Builder()
+			.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+			.setUserid("democreditor01")
+			.setPassword("demosecret01")
+			.build());
+		hapiClient.close();
+		hapiClient = new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(authentication)
+			.setRetryPolicy(new RetryPolicy.Builder()
+				.setBackoff(10, 100, TimeUnit.MILLISECONDS)
+				.build())
+			.build();
+		server.failNextRequests(2, 503, null);
+
+		hapiClient.sendAsync(new Request.Builder("/mandates/1").build()).get();
+		for (String thread : authentication.authorizationThreads)
+			assertTrue(thread, thread.equals(Thread.currentThread().getName()) ||
+				thread.startsWith("hapiclient-blocking-task"));
+	}
+
+	@Test
+	public void permanentIoErrorsAreNotRetried() throws Exception {
+		RetryPolicy retryPolicy = new RetryPolicy.Builder()
+			.setBackoff(0, 0, TimeUnit.MILLISECONDS)
+			.setRetryBudget(0, 1)
+			.build();
+		try (HapiClient unknownHost = new HapiClient.Builder()
+				.setApiUrl("http://unknown-host.invalid")
+				.setRetryPolicy(retryPolicy)
+				.build()) {
+			unknownHost.send(new Request.Builder("/mandates/1").build());
+			fail("The host doesn't exist.");
+		} catch (RuntimeException e) {
+			assertTrue(e.getCause() instanceof UnknownHostException);
+		}
+
+		// The retry budget is still there
+		hapiClient.close();
+		hapiClient = newClient(retryPolicy);
+		server.failNextRequests(1, 503, null);
+		long requestCount = server.getRequestCount();
+		hapiClient.send(new Request.Builder("/mandates/1").build());
+		assertEquals(requestCount + 2, server.getRequestCount());
+	}
+
+	@Test
+	public void asyncRequestsAreRetried() throws Exception {
+		server.failNextRequests(2, 504, null);
+		long requestCount = server.getRequestCount();
+
+		Resource mandate = hapiClient.sendAsync(new Request.Builder("/mandates/1").build()).get();
+		assertEquals("1", mandate.getState().getString("id"));
+		assertEquals(requestCount + 3, server.getRequestCount());
+
+		server.failNextRequests(3, 504, null);
+		try {
+			hapiClient.sendAsync(new Request.Builder("/mandates/1").build()).get();
+			fail("All the attempts failed.");
+		} catch (ExecutionException e) {
+			assertEquals(504, ((HttpServerErrorException) e.getCause()).getStatusCode());
+		}
+	}
+
+	private HapiClient newClient(RetryPolicy retryPolicy) throws Exception {
+		HapiClient hapiClient = new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(new Oauth2BasicAuthentication.Builder()
+				.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+				.setUserid("democreditor01")
+				.setPassword("demosecret01")
+				.build())
+			.setRetryPolicy(retryPolicy)
+			.build();
+		// Authenticated beforehand
+		hapiClient.send(new Request.Builder("/mandates/0").build());
+		return hapiClient;
+	}
+
+}
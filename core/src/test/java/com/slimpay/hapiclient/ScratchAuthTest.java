@@ -0,0 +1,107 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.*;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.Test;
+import com.sun.net.httpserver.*;
+import com.slimpay.hapiclient.hal.*;
+import com.slimpay.hapiclient.http.*;
+import com.slimpay.hapiclient.http.auth.*;
+
+public class ScratchAuthTest {
+	static AtomicInteger tokens = new AtomicInteger();
+	static volatile String valid = "t0"; static volatile int expiresIn = 3600;
+	static HttpServer start() throws Exception {
+		System.setProperty("sun.net.httpserver.maxIdleConnections", "100000");
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1000);
+		server.setExecutor(Executors.newFixedThreadPool(16));
+		server.createContext("/", ex -> {
+			String path = ex.getRequestURI().getPath();
+			byte[] body; int code = 200;
+			if (path.equals("/oauth/token")) {
+				try { Thread.sleep(200); } catch (InterruptedException e) {}
+				valid = "t" + tokens.incrementAndGet();
+				body = ("{\"access_token\":\"" + valid + "\",\"expires_in\":" + expiresIn + "}").getBytes();
+			} else if (!("Bearer " + valid).equals(ex.getRequestHeaders().getFirst("Authorization"))) { code = 401; body = "{}".getBytes(); }
+			else if (path.equals("/")) body = "{\"_links\":{\"a\":{\"href\":\"/a\"}}}".getBytes();
+			else body = "{\"x\":1}".getBytes();
+			ex.sendResponseHeaders(code, body.length); ex.getResponseBody().write(body); ex.close();
+		});
+		server.start();
+		return server;
+	}
+	@Test
+	public void concurrentFirstRequests() throws Exception {
+		HttpServer server = start();
+		tokens.set(0);
+		org.apache.http.impl.conn.PoolingHttpClientConnectionManager cm = new org.apache.http.impl.conn.PoolingHttpClientConnectionManager();
+		cm.setMaxTotal(300); cm.setDefaultMaxPerRoute(300);
+		Oauth2BasicAuthentication auth = new Oauth2BasicAuthentication.Builder().setTokenEndPointUrl("/oauth/token").setUserid("u").setPassword("p").build();
+		HapiClient c = new HapiClient.Builder().setApiUrl("http://127.0.0.1:" + server.getAddress().getPort())
+			.setConnectionManager(cm).setAuthenticationMethod(auth).build();
+		ExecutorService pool = Executors.newFixedThreadPool(200);
+		List<Future<Resource>> l = new ArrayList<>();
+		for (int i = 0; i < 200; i++) l.add(pool.submit(() -> c.send(new Request.Builder("/a").build())));
+		for (Future<Resource> f : l) assertEquals(1, f.get().getState().getInt("x"));
+		assertEquals(1, tokens.get());
+		pool.shutdown(); c.close(); server.stop(0);
+	}
+
+	@Test
+	public void proactive() throws Exception {
+		HttpServer server = start();
+		tokens.set(0); expiresIn = 3;
+		ScheduledExecutorService sched = Executors.newSingleThreadScheduledExecutor();
+		Oauth2BasicAuthentication auth = new Oauth2BasicAuthentication.Builder().setTokenEndPointUrl("/oauth/token").setUserid("u").setPassword("p")
+			.setRefreshScheduler(sched).setRefreshLeadTime(2, TimeUnit.SECONDS).setRefreshJitter(0, TimeUnit.SECONDS).build();
+		HapiClient c = new HapiClient.Builder().setApiUrl("http://127.0.0.1:" + server.getAddress().getPort()).setAuthenticationMethod(auth).build();
+		c.send(new Request.Builder("/a").build());
+		assertEquals(1, tokens.get());
+		Thread.sleep(2500);
+		assertTrue(tokens.get() >= 2);
+		c.send(new Request.Builder("/a").build());
+		sched.shutdownNow(); c.close(); server.stop(0); expiresIn = 3600;
+	}
+
+	@Test
+	public void revoked() throws Exception {
+		HttpServer server = start();
+		tokens.set(0);
+		org.apache.http.impl.conn.PoolingHttpClientConnectionManager cm = new org.apache.http.impl.conn.PoolingHttpClientConnectionManager();
+		cm.setMaxTotal(300); cm.setDefaultMaxPerRoute(300);
+		Oauth2BasicAuthentication auth = new Oauth2BasicAuthentication.Builder().setTokenEndPointUrl("/oauth/token").setUserid("u").setPassword("p").build();
+		HapiClient c = new HapiClient.Builder().setApiUrl("http://127.0.0.1:" + server.getAddress().getPort())
+			.setConnectionManager(cm).setAuthenticationMethod(auth).build();
+		c.send(new Request.Builder("/a").build());
+		valid = "revoked";
+		ExecutorService pool = Executors.newFixedThreadPool(200);
+		List<Future<Resource>> l = new ArrayList<>();
+		for (int i = 0; i < 200; i++) l.add(pool.submit(() -> c.send(new Request.Builder("/a").build())));
+		for (int i = 0; i < 100; i++) l.add(CompletableFuture.completedFuture(null).thenCompose(x -> c.sendAsync(new Request.Builder("/a").build())));
+		for (Future<Resource> f : l) assertEquals(1, f.get().getState().getInt("x"));
+		assertEquals(2, tokens.get());
+		pool.shutdown(); c.close(); server.stop(0);
+	}
+
+	@Test
+	public void store() throws Exception {
+		HttpServer server = start();
+		tokens.set(0);
+		java.nio.file.Path f = java.nio.file.Files.createTempDirectory("tok").resolve("sub/token.properties");
+		for (int i = 0; i < 3; i++) {
+			Oauth2BasicAuthentication auth = new Oauth2BasicAuthentication.Builder().setTokenEndPointUrl("/oauth/token").setUserid("u").setPassword("p")
+				.setTokenStore(new FileTokenStore(f)).build();
+			HapiClient c = new HapiClient.Builder().setApiUrl("http://127.0.0.1:" + server.getAddress().getPort()).setAuthenticationMethod(auth).build();
+			c.send(new Request.Builder("/a").build());
+			c.close();
+		}
+		assertEquals(1, tokens.get());
+		System.out.println(new String(java.nio.file.Files.readAllBytes(f)) + java.nio.file.Files.getPosixFilePermissions(f));
+		Oauth2BasicAuthentication auth = new Oauth2BasicAuthentication.Builder().setToken(new ExpirableToken("zz", Long.MAX_VALUE)).build();
+		assertEquals("zz", auth.getToken().getValue());
+		server.stop(0);
+	}
+}
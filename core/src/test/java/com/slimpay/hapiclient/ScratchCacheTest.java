@@ -0,0 +1,46 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.*;
+import java.net.InetSocketAddress;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.Test;
+import com.sun.net.httpserver.*;
+import com.slimpay.hapiclient.hal.*;
+import com.slimpay.hapiclient.http.*;
+
+public class ScratchCacheTest {
+	@Test
+	public void cache() throws Exception {
+		AtomicInteger full = new AtomicInteger(), notModified = new AtomicInteger();
+		AtomicReference<String> version = new AtomicReference<>("v1");
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 100);
+		server.createContext("/", ex -> {
+			String path = ex.getRequestURI().getPath();
+			if (ex.getRequestMethod().equals("POST")) { version.set("v2"); ex.sendResponseHeaders(204, -1); ex.close(); return; }
+			String etag = "\"" + version.get() + "\"";
+			if (path.equals("/fresh")) ex.getResponseHeaders().add("Cache-Control", "max-age=1");
+			if (path.equals("/nostore")) ex.getResponseHeaders().add("Cache-Control", "no-store");
+			ex.getResponseHeaders().add("ETag", etag);
+			if (etag.equals(ex.getRequestHeaders().getFirst("If-None-Match"))) { notModified.incrementAndGet(); ex.sendResponseHeaders(304, -1); ex.close(); return; }
+			full.incrementAndGet();
+			byte[] body = ("{\"v\":\"" + version.get() + "\"}").getBytes();
+			ex.sendResponseHeaders(200, body.length); ex.getResponseBody().write(body); ex.close();
+		});
+		server.start();
+		String url = "http://127.0.0.1:" + server.getAddress().getPort();
+		HapiClient c = new HapiClient.Builder().setApiUrl(url).setResponseCacheSize(10).build();
+		Resource a = c.send(new Request.Builder("/etag").build());
+		Resource b = c.send(new Request.Builder("/etag").build());
+		assertSame(a, b); assertEquals(1, full.get()); assertEquals(1, notModified.get());
+		assertSame(a, c.sendAsync(new Request.Builder("/etag").build()).get()); assertEquals(2, notModified.get());
+		Resource f = c.send(new Request.Builder("/fresh").build());
+		assertSame(f, c.send(new Request.Builder("/fresh").build())); assertEquals(2, full.get()); assertEquals(2, notModified.get());
+		Thread.sleep(1100);
+		assertSame(f, c.send(new Request.Builder("/fresh").build())); assertEquals(3, notModified.get());
+		c.send(new Request.Builder("/nostore").build()); c.send(new Request.Builder("/nostore").build()); assertEquals(4, full.get());
+		c.send(new Request.Builder("/etag").setMethod(Method.POST).build());
+		assertEquals("v2", c.send(new Request.Builder("/etag").build()).getState().getString("v")); assertEquals(5, full.get());
+		c.close(); server.stop(0);
+	}
+}
@@ -0,0 +1,51 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.*;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.Test;
+import com.sun.net.httpserver.*;
+import com.slimpay.hapiclient.hal.*;
+import com.slimpay.hapiclient.http.*;
+import com.slimpay.hapiclient.http.auth.*;
+
+public class ScratchTenantTest {
+	@Test
+	public void tenants() throws Exception {
+		System.setProperty("sun.net.httpserver.maxIdleConnections", "100000");
+		AtomicInteger fetches = new AtomicInteger();
+		Map<String, String> tokenUser = new ConcurrentHashMap<>();
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1000);
+		server.setExecutor(Executors.newFixedThreadPool(16));
+		server.createContext("/", ex -> {
+			String path = ex.getRequestURI().getPath(); String auth = ex.getRequestHeaders().getFirst("Authorization");
+			byte[] body; int code = 200;
+			if (path.equals("/oauth/token")) {
+				String user = new String(Base64.getDecoder().decode(auth.substring(6))).split(":")[0];
+				String t = "t" + fetches.incrementAndGet(); tokenUser.put(t, user);
+				body = ("{\"access_token\":\"" + t + "\",\"expires_in\":3600}").getBytes();
+			} else if (path.equals("/")) body = "{\"_links\":{\"me\":{\"href\":\"/me\"}}}".getBytes();
+			else if (auth == null || tokenUser.get(auth.substring(7)) == null) { code = 401; body = "{}".getBytes(); }
+			else body = ("{\"user\":\"" + tokenUser.get(auth.substring(7)) + "\"}").getBytes();
+			ex.sendResponseHeaders(code, body.length); ex.getResponseBody().write(body); ex.close();
+		});
+		server.start();
+		MultiTenantOauth2Authentication tenants = new MultiTenantOauth2Authentication.Builder().setTokenEndPointUrl("/oauth/token").setMaximumTenants(20).build();
+		HapiClient c = new HapiClient.Builder().setApiUrl("http://127.0.0.1:" + server.getAddress().getPort()).build();
+		for (int round = 0; round < 3; round++)
+			for (int i = 0; i < 10; i++) {
+				Resource r = c.send(new Follow.Builder(new CustomRel("me")).setAuthenticationMethod(tenants.forTenant("u" + i, "p")).build());
+				assertEquals("u" + i, r.getState().getString("user"));
+				assertEquals("u" + i, c.sendAsync(new Follow.Builder(new CustomRel("me")).setAuthenticationMethod(tenants.forTenant("u" + i, "p")).build()).get().getState().getString("user"));
+			}
+		assertEquals(10, fetches.get());
+		assertEquals(tenants.forTenant("u1", "p"), tenants.forTenant("u1", "p"));
+		assertNotEquals(tenants.forTenant("u1", "p"), tenants.forTenant("u1", "q"));
+		for (int i = 10; i < 100; i++) c.send(new Request.Builder("/me").setAuthenticationMethod(tenants.forTenant("u" + i, "p")).build());
+		System.out.println("size " + tenants.size());
+		assertTrue(tenants.size() <= 20);
+		c.close(); server.stop(0);
+	}
+}
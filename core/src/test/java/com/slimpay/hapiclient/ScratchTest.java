@@ -0,0 +1,38 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.*;
+import java.net.InetSocketAddress;
+import java.util.concurrent.*;
+import org.junit.Test;
+import com.sun.net.httpserver.*;
+import com.slimpay.hapiclient.exception.*;
+import com.slimpay.hapiclient.hal.*;
+import com.slimpay.hapiclient.http.*;
+
+public class ScratchTest {
+	@Test
+	public void async() throws Exception {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", ex -> {
+			String path = ex.getRequestURI().getPath();
+			byte[] body; int code = 200;
+			if (path.equals("/")) body = "{\"_links\":{\"a\":{\"href\":\"/a\"},\"b\":{\"href\":\"/missing\"}}}".getBytes();
+			else if (path.equals("/a")) body = "{\"x\":1}".getBytes();
+			else { code = 404; body = "{\"code\":404}".getBytes(); }
+			ex.sendResponseHeaders(code, body.length); ex.getResponseBody().write(body); ex.close();
+		});
+		server.start();
+		HapiClient c = new HapiClient.Builder().setApiUrl("http://127.0.0.1:" + server.getAddress().getPort()).build();
+		assertEquals(1, c.send(new Follow.Builder(new CustomRel("a")).build()).getState().getInt("x"));
+		assertEquals(1, c.sendAsync(new Follow.Builder(new CustomRel("a")).build()).get().getState().getInt("x"));
+		try { c.sendAsync(new Follow.Builder(new CustomRel("b")).build()).get(); fail(); }
+		catch (ExecutionException e) { assertTrue(e.getCause() instanceof HttpClientErrorException); assertEquals(404, ((HttpException) e.getCause()).getStatusCode()); assertEquals("{\"code\":404}", ((HttpException) e.getCause()).getResponseBody()); }
+		try { c.sendAsync(new Follow.Builder(new CustomRel("zz")).build()).get(); fail(); }
+		catch (ExecutionException e) { assertTrue(e.getCause() instanceof RelNotFoundException); }
+		java.util.List<CompletableFuture<Resource>> l = new java.util.ArrayList<>();
+		for (int i = 0; i < 2000; i++) l.add(c.sendAsync(new Request.Builder("/a").build()));
+		for (CompletableFuture<Resource> f : l) assertEquals(1, f.get().getState().getInt("x"));
+		c.close();
+		server.stop(0);
+	}
+}
@@ -0,0 +1,120 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.slimpay.hapiclient.exception.HttpClientErrorException;
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.Request;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+public class SendAsyncTest {
+	private HalStubServer server;
+	private HapiClient hapiClient;
+	private RecordingAuthentication authentication;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder()
+			.setLatency(100, TimeUnit.MILLISECONDS)
+			.build();
+		authentication = new RecordingAuthentication(new Oauth2BasicAuthentication.Builder()
+			.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+			.setUserid("democreditor01")
+			.setPassword("demosecret01")
+			.build());
+		hapiClient = newClientBuilder().build();
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		hapiClient.close();
+		server.close();
+	}
+
+	@Test
+	public void resourceIsReturned() throws Exception {
+		CompletableFuture<Resource> mandate = hapiClient.sendAsync(new Request.Builder("/mandates/{id}")
+			.setUrlVariable("id", 7)
+			.build());
+
+		assertEquals("7", mandate.get(5, TimeUnit.SECONDS).getState().getString("id"));
+	}
+
+	@Test
+	public void errorIsTheHttpException() throws Exception {
+		try {
+			hapiClient.sendAsync(new Request.Builder("/unknown").build()).get(5, TimeUnit.SECONDS);
+			fail("The resource doesn't exist.");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof HttpClientErrorException);
+			assertEquals(404, ((HttpClientErrorException) e.getCause()).getStatusCode());
+		}
+	}
+
+	@Test
+	public void cancelledExchange() throws Exception {
+		// Authenticated beforehand
+		hapiClient.send(new Request.Builder("/mandates/0").build());
+
+		CompletableFuture<Resource> mandate = hapiClient.sendAsync(new Request.Builder("/mandates/1").build());
+		assertTrue(mandate.cancel(true));
+		try {
+			mandate.get();
+			fail("The exchange is cancelled.");
+		} catch (CancellationException expected) { }
+
+		// The client is still usable
+		Resource other = hapiClient.sendAsync(new Request.Builder("/mandates/2").build()).get(5, TimeUnit.SECONDS);
+		assertEquals("2", other.getState().getString("id"));
+	}
+
+	@Test
+	public void reauthorizationLeavesTheIoThread() throws Exception {
+		hapiClient.send(new Request.Builder("/mandates/0").build());
+		server.revokeTokens();
+
+		Resource mandate = hapiClient.sendAsync(new Request.Builder("/mandates/1").build()).get(5, TimeUnit.SECONDS);
+		assertEquals("1", mandate.getState().getString("id"));
+		assertEquals("hapiclient-blocking-task", authentication.reauthorizationThread);
+	}
+
+	@Test
+	public void reauthorizationRunsOnTheExecutor() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor(task -> new Thread(task, "test-executor"));
+		hapiClient.close();
+		hapiClient = newClientBuilder()
+			.setExecutor(executor)
+			.build();
+		try {
+			hapiClient.send(new Request.Builder("/mandates/0").build());
+			server.revokeTokens();
+
+			Resource mandate = hapiClient.sendAsync(new Request.Builder("/mandates/1").build()).get(5, TimeUnit.SECONDS);
+			assertEquals("1", mandate.getState().getString("id"));
+			assertEquals("test-executor", authentication.reauthorizationThread);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private HapiClient.Builder newClientBuilder() {
+		return new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(authentication);
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.slimpay.hapiclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.slimpay.hapiclient.exception.HttpClientErrorException;
+import com.slimpay.hapiclient.hal.CustomRel;
+import com.slimpay.hapiclient.hal.Resource;
+import com.slimpay.hapiclient.http.Follow;
+import com.slimpay.hapiclient.http.HapiClient;
+import com.slimpay.hapiclient.http.TraversalPlan;
+import com.slimpay.hapiclient.http.auth.Oauth2BasicAuthentication;
+
+public class TraversalPlanTest {
+	private HalStubServer server;
+	private HapiClient hapiClient;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new HalStubServer.Builder()
+			.setPagination(5, 5)
+			.build();
+		hapiClient = new HapiClient.Builder()
+			.setApiUrl(server.getUrl())
+			.setAuthenticationMethod(new Oauth2BasicAuthentication.Builder()
+				.setTokenEndPointUrl(HalStubServer.TOKEN_END_POINT_URL)
+				.setUserid("democreditor01")
+				.setPassword("demosecret01")
+				.build())
+			.build();
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		hapiClient.close();
+		server.close();
+	}
+
+	@Test
+	public void stableLinksAreRemembered() throws Exception {
+		TraversalPlan plan = hapiClient.prepare(Arrays.asList(
+			new Follow.Builder(new CustomRel(HalStubServer.REL_NS + "get-creditors"))
+				.setUrlVariable("reference", "democreditor")
+				.build(),
+			new Follow.Builder(new CustomRel(HalStubServer.REL_NS + "search-mandates"))
+				.build()));
+
+		assertEquals(0, getPage(plan.send(Collections.<String, Object>singletonMap("page", 0))));
+
+		long requestCount = server.getRequestCount();
+		assertEquals(3, getPage(plan.send(Collections.<String, Object>singletonMap("page", 3))));
+		assertEquals(0, getPage(plan.send()));
+		assertEquals(1, getPage(plan.sendAsync(Collections.<String, Object>singletonMap("page", 1)).get()));
+		assertEquals(requestCount + 3, server.getRequestCount());
+
+		// The creditor depends on the reference now
+		requestCount = server.getRequestCount();
+		assertEquals(0, getPage(plan.send(Collections.<String, Object>singletonMap("reference", "democreditor2"))));
+		assertEquals(requestCount + 2, server.getRequestCount());
+	}
+
+	@Test
+	public void linksDependingOnTheUrlVariables() throws Exception {
+		TraversalPlan plan = hapiClient.prepare(Collections.singletonList(
+			new Follow.Builder(new CustomRel(HalStubServer.REL_NS + "get-creditors"))
+				.build()));
+
+		assertEquals("a", plan.send(Collections.<String, Object>singletonMap("reference", "a")).getState().getString("reference"));
+
+		long requestCount = server.getRequestCount();
+		assertEquals("b", plan.send(Collections.<String, Object>singletonMap("reference", "b")).getState().getString("reference"));
+		assertEquals(requestCount + 1, server.getRequestCount());
+	}
+
+	@Test
+	public void linksAreForgottenOnFailure() throws Exception {
+		TraversalPlan plan = hapiClient.prepare(Arrays.asList(
+			new Follow.Builder(new CustomRel(HalStubServer.REL_NS + "get-creditors"))
+				.setUrlVariable("reference", "democreditor")
+				.build(),
+			new Follow.Builder(new CustomRel(HalStubServer.REL_NS + "search-mandates"))
+				.build()));
+		plan.send();
+
+		try {
+			plan.send(Collections.<String, Object>singletonMap("page", 99));
+			fail("The page doesn't exist.");
+		} catch (HttpClientErrorException e) {
+			assertEquals(404, e.getStatusCode());
+		}
+
+		long requestCount = server.getRequestCount();
+		plan.send();
+		assertEquals(requestCount + 2, server.getRequestCount());
+	}
+
+	private static int getPage(Resource resource) {
+		return resource.getState().getJsonObject("page").getInt("number");
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.slimpay.hapiclient.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.damnhandy.uri.template.MalformedUriTemplateException;
+import com.damnhandy.uri.template.UriTemplate;
+import com.damnhandy.uri.template.VariableExpansionException;
+
+/**
+ * Checks that a CompiledUriTemplate expands as UriTemplate does.
+ */
+public class CompiledUriTemplateTest {
+	/**
+	 * The variables of the examples of RFC 6570 section 3.2, and a few more.
+	 */
+	private static final Map<String, Object> VARIABLES = new LinkedHashMap<String, Object>();
+	static {
+		Map<String, Object> keys = new LinkedHashMap<String, Object>();
+		keys.put("semi", ";");
+		keys.put("dot", ".");
+		keys.put("comma", ",");
+
+		VARIABLES.put("count", Arrays.asList("one", "two", "three"));
+		VARIABLES.put("dom", Arrays.asList("example", "com"));
+		VARIABLES.put("dub", "me/too");
+		VARIABLES.put("hello", "Hello World!");
+		VARIABLES.put("half", "50%");
+		VARIABLES.put("var", "value");
+		VARIABLES.put("who", "fred");
+		VARIABLES.put("base", "http://example.com/home/");
+		VARIABLES.put("path", "/foo/bar");
+		VARIABLES.put("list", Arrays.asList("red", "green", "blue"));
+		VARIABLES.put("keys", keys);
+		VARIABLES.put("v", "6");
+		VARIABLES.put("x", "1024");
+		VARIABLES.put("y", "768");
+		VARIABLES.put("empty", "");
+		VARIABLES.put("empty_keys", new HashMap<String, Object>());
+		VARIABLES.put("empty_list", new ArrayList<Object>());
+		VARIABLES.put("empties", Arrays.asList("", "a", "", "b", ""));
+		VARIABLES.put("number", 42);
+		VARIABLES.put("decimal", -1.5);
+		VARIABLES.put("bool", true);
+		VARIABLES.put("unicode", "\u00e9\u20ac\ud83d\ude00\ud83d");
+		VARIABLES.put("pct", "%41%zz[]");
+		VARIABLES.put("date", new Date(0));
+	}
+
+	private static final String[] TEMPLATES = {
+		"{var}", "{hello}", "{half}", "O{empty}X", "O{undef}X", "{x,y}", "{x,hello,y}", "?{x,empty}", "?{x,undef}",
+		"{var:3}", "{var:30}", "{list}", "{list*}", "{keys}", "{keys*}",
+		"{+var}", "{+hello}", "{+half}", "{base}index", "{+base}index", "O{+empty}X", "O{+undef}X",
+		"{+path}/here", "here?ref={+path}", "up{+path}{var}/here", "{+x,hello,y}", "{+path,x}/here",
+		"{+path:6}/here", "{+list}", "{+list*}", "{+keys}", "{+keys*}",
+		"{#var}", "{#hello}", "{#half}", "foo{#empty}", "foo{#undef}", "{#x,hello,y}", "{#path,x}/here",
+		"{#path:6}/here", "{#list}", "{#list*}", "{#keys}", "{#keys*}",
+		"{.who}", "{.who,who}", "{.half,who}", "www{.dom*}", "X{.var}", "X{.empty}", "X{.undef}", "X{.var:3}",
+		"X{.list}", "X{.list*}", "X{.keys}", "X{.keys*}", "X{.empty_keys}", "X{.empty_keys*}",
+		"{/who}", "{/who,who}", "{/half,who}", "{/who,dub}", "{/var}", "{/var,empty}", "{/var,undef}",
+		"{/var,x}/here", "{/var:1,var}", "{/list}", "{/list*}", "{/list*,path:4}", "{/keys}", "{/keys*}",
+		"{;who}", "{;half}", "{;empty}", "{;v,empty,who}", "{;v,bar,who}", "{;x,y}", "{;x,y,empty}",
+		"{;x,y,undef}", "{;hello:5}", "{;list}", "{;list*}", "{;keys}", "{;keys*}", "{;empties}", "{;empties*}",
+		"{?who}", "{?half}", "{?x,y}", "{?x,y,empty}", "{?x,y,undef}", "{?var:3}", "{?list}", "{?list*}",
+		"{?keys}", "{?keys*}", "{?empty_list}", "{?empty_list*}",
+		"{&who}", "{&half}", "?fixed=yes{&x}", "{&x,y,empty}", "{&var:3}", "{&list}", "{&list*}", "{&keys}", "{&keys*}",
+		"{empty,x}", "{x,empty,y}", "{empties}", "{empties*}", "{/empties*}", "{?empties*}", "{.empty,empty,x}",
+		"{number}{.decimal}{/bool}", "{?number,decimal,bool}", "{number:1}", "{decimal:2}",
+		"{unicode}", "{+unicode}", "{unicode:2}", "{pct}", "{+pct}", "{#pct}",
+		"/creditors{?reference}", "/mandates/{id}", "{?date}", "{#date}"
+	};
+
+	@Test
+	public void expandsAsUriTemplate() {
+		for (String template : TEMPLATES)
+			assertEquals(template,
+				UriTemplate.fromTemplate(template).set(VARIABLES).expand(),
+				CompiledUriTemplate.compile(template).expand(VARIABLES, new StringBuilder()).toString());
+	}
+
+	@Test
+	public void appendsToTheBuilder() {
+		StringBuilder uri = new StringBuilder("https://api.example.com");
+		Map<String, Object> variables = new HashMap<String, Object>();
+		variables.put("reference", "democreditor");
+
+		CompiledUriTemplate.valueOf("/creditors{?reference}").expand(variables, uri);
+		assertEquals("https://api.example.com/creditors?reference=democreditor", uri.toString());
+	}
+
+	@Test
+	public void sharedCompiledTemplates() {
+		CompiledUriTemplate template = CompiledUriTemplate.valueOf("/mandates/{id}");
+		assertSame(template, CompiledUriTemplate.valueOf("/mandates/{id}"));
+		assertEquals("/mandates/{id}", template.getTemplate());
+	}
+
+	@Test
+	public void recentlyUsedTemplatesStayCached() {
+		CompiledUriTemplate template = CompiledUriTemplate.valueOf("/creditors/{reference}");
+		for (int i = 0; i < 2 * CompiledUriTemplate.MAXIMUM_CACHED; i++) {
+			CompiledUriTemplate.valueOf("/one-off/" + i + "{?page}");
+			if (i % 100 == 0)
+				assertSame(template, CompiledUriTemplate.valueOf("/creditors/{reference}"));
+		}
+
+		assertSame(template, CompiledUriTemplate.valueOf("/creditors/{reference}"));
+	}
+
+	@Test(expected = MalformedUriTemplateException.class)
+	public void malformedTemplate() {
+		CompiledUriTemplate.compile("/mandates/{id");
+	}
+
+	@Test(expected = VariableExpansionException.class)
+	public void prefixOfACompositeValue() {
+		CompiledUriTemplate.compile("{list:3}").expand(VARIABLES, new StringBuilder());
+	}
+
+}